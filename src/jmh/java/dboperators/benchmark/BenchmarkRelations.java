@@ -0,0 +1,72 @@
+package dboperators.benchmark;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Row;
+import dboperators.streamjoinoperator.StreamRelation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Generates the rows of two relations joined on a key column K: the probe relation (K, P1) and the build relation (K, P2).
+ */
+public class BenchmarkRelations {
+    private final Column keyColumn;
+    private final Column payloadColumn1 = new Column("P1", ColumnType.LONG);
+    private final Column payloadColumn2 = new Column("P2", ColumnType.LONG);
+    private final List<Row> rows1;
+    private final List<Row> rows2;
+
+    /**
+     * @param rowsCount1 the rows count of the probe relation
+     * @param rowsCount2 the rows count of the build relation, which has distinct keys
+     * @param skew 0 for uniformly distributed probe keys, higher values concentrating the probe keys on the first build keys
+     * @param matchRatio the ratio of probe rows having a key of the build relation
+     * @param keyType the type of the key column
+     */
+    public BenchmarkRelations(int rowsCount1, int rowsCount2, double skew, double matchRatio, ColumnType keyType) {
+        this.keyColumn = new Column("K", keyType);
+        final Random random = new Random(42);
+        this.rows2 = new ArrayList<>(rowsCount2);
+        for (int i = 0; i < rowsCount2; i++) {
+            rows2.add(Row.of(key(i, keyType), (long) i));
+        }
+        this.rows1 = new ArrayList<>(rowsCount1);
+        for (int i = 0; i < rowsCount1; i++) {
+            final long key = random.nextDouble() < matchRatio
+                    // a power law over the build keys when skewed
+                    ? (long) (rowsCount2 * Math.pow(random.nextDouble(), 1 + skew))
+                    // a key that is not in the build relation
+                    : rowsCount2 + random.nextInt(Math.max(rowsCount2, 1));
+            rows1.add(Row.of(key(key, keyType), (long) i));
+        }
+    }
+
+    private static Object key(long key, ColumnType keyType) {
+        switch (keyType) {
+            case INTEGER:
+                return (int) key;
+            case LONG:
+                return key;
+            case VARCHAR:
+                return "key" + key;
+            default:
+                throw new IllegalArgumentException("Unsupported column type: " + keyType);
+        }
+    }
+
+    public StreamRelation getProbeRelation() {
+        final StreamRelation rel = StreamRelation.of(rows1.stream(), keyColumn, payloadColumn1);
+        rel.setEstimatedRowsCount(Optional.of((long) rows1.size()));
+        return rel;
+    }
+
+    public StreamRelation getBuildRelation() {
+        final StreamRelation rel = StreamRelation.of(rows2.stream(), keyColumn, payloadColumn2);
+        rel.setEstimatedRowsCount(Optional.of((long) rows2.size()));
+        return rel;
+    }
+}
@@ -0,0 +1,103 @@
+package dboperators.benchmark;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Row;
+import dboperators.joinoperator.IIndex;
+import dboperators.joinoperator.Index;
+import dboperators.joinoperator.OpenAddressingIndex;
+import dboperators.joinoperator.Relation;
+import dboperators.streamjoinoperator.StreamRelation;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Memory comparison of {@link Index} and {@link OpenAddressingIndex}: the heap retained by an index of the rows of a relation,
+ * the rows themselves excluded as they belong to the relation. <br/>
+ * The retained bytes per indexed row reported by {@link Footprint#retainedBytesPerRow} are measured from the used heap
+ * after a full GC before and after building the index, so every measurement is a single shot:
+ * <pre>java -jar target/benchmarks.jar IndexMemoryBenchmark</pre>
+ * The build relation has distinct keys, the probe relation about 4 rows per key.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class IndexMemoryBenchmark {
+    private static final MemoryMXBean MEMORY_MX_BEAN = ManagementFactory.getMemoryMXBean();
+
+    @Param({"OpenAddressingIndex", "Index"})
+    public String index;
+
+    @Param({"262144"})
+    public int rowsCount;
+
+    @Param({"build", "probe"})
+    public String relation;
+
+    @Param({"LONG", "VARCHAR"})
+    public ColumnType keyType;
+
+    private ArrayList<Column> columns;
+    private ArrayList<Column> keyColumns;
+    private List<Row> rows;
+
+    @Setup
+    public void setup() {
+        final BenchmarkRelations relations = new BenchmarkRelations(rowsCount, rowsCount / 4, 0, 1, keyType);
+        final StreamRelation rel = "build".equals(relation) ? relations.getBuildRelation() : relations.getProbeRelation();
+        columns = rel.getColumns();
+        keyColumns = new ArrayList<>(columns.subList(0, 1));
+        rows = rel.getRows().collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedBytesPerRow;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            retainedBytesPerRow = 0;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int buildIndex(Footprint footprint) {
+        // a new relation on the same rows list, so that only the index is retained in addition
+        final Relation indexedRelation = new Relation(columns, rows);
+        final long usedBytes = usedHeapAfterGc();
+        final IIndex builtIndex = "Index".equals(index)
+                ? new Index(indexedRelation, keyColumns)
+                : new OpenAddressingIndex(indexedRelation, keyColumns);
+        footprint.retainedBytesPerRow = (usedHeapAfterGc() - usedBytes) / rows.size();
+        Reference.reachabilityFence(builtIndex);
+        return rows.size();
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return MEMORY_MX_BEAN.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,132 @@
+package dboperators.benchmark;
+
+import dboperators.ColumnType;
+import dboperators.batch.RowBatch;
+import dboperators.joinoperator.JoinOperator;
+import dboperators.joinoperator.Relation;
+import dboperators.streamjoinoperator.CostBasedStreamJoinOperator;
+import dboperators.streamjoinoperator.CrossProductChunkBasedStreamJoinOperator;
+import dboperators.streamjoinoperator.GraceHashStreamJoinOperator;
+import dboperators.streamjoinoperator.IStreamJoinOperator;
+import dboperators.streamjoinoperator.PartitionedHashStreamJoinOperator;
+import dboperators.streamjoinoperator.SingleHashStreamJoinOperator;
+import dboperators.streamjoinoperator.SortMergeStreamJoinOperator;
+import dboperators.streamjoinoperator.StreamExCrossProductChunkBasedStreamJoinOperator;
+import dboperators.streamjoinoperator.StreamRelation;
+import dboperators.streamjoinoperator.SymmetricHashStreamJoinOperator;
+import dboperators.streamjoinoperator.VavrCrossProductChunkBaseStreamJoinOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks the join operators over generated relations, see {@link BenchmarkRelations}. <br/>
+ * {@link #join} measures the throughput of joins reading all the output rows, {@link #joinBatches} the throughput of the same joins
+ * handing their output rows in batches and {@link #firstRow} the time to get the first output row.
+ * Run it with the gc profiler to get the allocation rate too:
+ * <pre>java -jar target/benchmarks.jar StreamJoinOperatorBenchmark -prof gc</pre>
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StreamJoinOperatorBenchmark {
+    @Param({"JoinOperator", "SingleHash", "SymmetricHash", "CrossProductChunkBased",
+            "StreamExCrossProductChunkBased", "VavrCrossProductChunkBase",
+            "PartitionedHash", "PartitionedHashBloom", "GraceHash", "SortMerge", "CostBased"})
+    public String operator;
+
+    @Param({"16384", "262144"})
+    public int rowsCount;
+
+    @Param({"0", "2"})
+    public double skew;
+
+    @Param({"0.1", "1"})
+    public double matchRatio;
+
+    @Param({"LONG", "VARCHAR"})
+    public ColumnType keyType;
+
+    private BenchmarkRelations relations;
+    private IStreamJoinOperator joinOperator;
+
+    @Setup
+    public void setup() {
+        // the build relation is four times smaller than the probe relation
+        relations = new BenchmarkRelations(rowsCount, rowsCount / 4, skew, matchRatio, keyType);
+        joinOperator = joinOperator(operator);
+    }
+
+    static IStreamJoinOperator joinOperator(String operator) {
+        switch (operator) {
+            case "JoinOperator":
+                return StreamJoinOperatorBenchmark::materializedJoin;
+            case "SingleHash":
+                return new SingleHashStreamJoinOperator();
+            case "SymmetricHash":
+                return new SymmetricHashStreamJoinOperator();
+            case "CrossProductChunkBased":
+                return new CrossProductChunkBasedStreamJoinOperator();
+            case "StreamExCrossProductChunkBased":
+                return new StreamExCrossProductChunkBasedStreamJoinOperator();
+            case "VavrCrossProductChunkBase":
+                return new VavrCrossProductChunkBaseStreamJoinOperator();
+            case "PartitionedHash":
+                return new PartitionedHashStreamJoinOperator();
+            case "PartitionedHashBloom":
+                return new PartitionedHashStreamJoinOperator(true);
+            case "GraceHash":
+                return new GraceHashStreamJoinOperator(1L << 26);
+            case "SortMerge":
+                return new SortMergeStreamJoinOperator();
+            case "CostBased":
+                return new CostBasedStreamJoinOperator();
+            default:
+                throw new IllegalArgumentException("Unknown operator: " + operator);
+        }
+    }
+
+    /**
+     * Adapts {@link JoinOperator}, which joins relations fully read in memory.
+     */
+    private static StreamRelation materializedJoin(StreamRelation rel1, StreamRelation rel2) {
+        final Relation outRel = JoinOperator.join(
+                new Relation(rel1.getColumns(), rel1.getRows().collect(Collectors.toList())),
+                new Relation(rel2.getColumns(), rel2.getRows().collect(Collectors.toList())));
+        return new StreamRelation(outRel.getColumns(), outRel.getRows().stream());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long join() {
+        return joinOperator.join(relations.getProbeRelation(), relations.getBuildRelation()).getRows().count();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long joinBatches() {
+        return joinOperator.joinBatches(relations.getProbeRelation(), relations.getBuildRelation(), RowBatch.DEFAULT_CAPACITY, batch -> {});
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Optional<?> firstRow() {
+        return joinOperator.join(relations.getProbeRelation(), relations.getBuildRelation()).getRows().findFirst();
+    }
+}
@@ -0,0 +1,101 @@
+package dboperators.benchmark;
+
+import dboperators.ColumnType;
+import dboperators.joinoperator.Index;
+import dboperators.joinoperator.OpenAddressingIndex;
+import dboperators.streamjoinoperator.StreamRelation;
+import dboperators.streamjoinoperator.SymmetricHashStreamJoinOperator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation regression benchmark of {@link SymmetricHashStreamJoinOperator}, whose allocation rate drives the young GC frequency
+ * of the streaming joins. <br/>
+ * Besides the output rows, the join should only allocate the growth of its indexes, so with a match ratio of 0
+ * the bytes allocated per input row reported by {@link Allocations#bytesPerInputRow} should stay close to the size of the index
+ * entries of a row, a few tens of bytes with the default open addressing indexes. Run it with the gc profiler to cross-check
+ * {@code gc.alloc.rate.norm}:
+ * <pre>java -jar target/benchmarks.jar SymmetricHashAllocationBenchmark -prof gc</pre>
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SymmetricHashAllocationBenchmark {
+    @Param({"OpenAddressingIndex", "Index"})
+    public String index;
+
+    @Param({"16384", "262144"})
+    public int rowsCount;
+
+    @Param({"0", "1"})
+    public double matchRatio;
+
+    @Param({"LONG", "VARCHAR"})
+    public ColumnType keyType;
+
+    private BenchmarkRelations relations;
+    private SymmetricHashStreamJoinOperator joinOperator;
+
+    @Setup
+    public void setup() {
+        relations = new BenchmarkRelations(rowsCount, rowsCount / 4, 0, matchRatio, keyType);
+        joinOperator = "Index".equals(index)
+                ? new SymmetricHashStreamJoinOperator(Index::new)
+                : new SymmetricHashStreamJoinOperator(OpenAddressingIndex::new);
+    }
+
+    /**
+     * The bytes allocated by the benchmark thread, which reads the inputs and joins their rows as the output stream is sequential.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Allocations {
+        private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        public long bytesPerInputRow;
+        private long allocatedBytes;
+        private long inputRowsCount;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerInputRow = 0;
+            allocatedBytes = 0;
+            inputRowsCount = 0;
+        }
+
+        void record(long bytes, long rowsCount) {
+            allocatedBytes += bytes;
+            inputRowsCount += rowsCount;
+            bytesPerInputRow = allocatedBytes / inputRowsCount;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long join(Allocations allocations) {
+        final StreamRelation probeRelation = relations.getProbeRelation();
+        final StreamRelation buildRelation = relations.getBuildRelation();
+        final long threadId = Thread.currentThread().getId();
+        final long allocatedBytes = Allocations.THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+        final long outputRowsCount = joinOperator.join(probeRelation, buildRelation).getRows().count();
+        allocations.record(Allocations.THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - allocatedBytes, rowsCount + rowsCount / 4);
+        return outputRowsCount;
+    }
+}
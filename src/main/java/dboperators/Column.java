@@ -22,6 +22,14 @@ public class Column {
         this.type = type;
     }
 
+    public String getName() {
+        return name;
+    }
+
+    public ColumnType getType() {
+        return type;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
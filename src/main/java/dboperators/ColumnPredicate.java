@@ -0,0 +1,264 @@
+package dboperators;
+
+import dboperators.batch.ColumnVector;
+import dboperators.batch.DoubleColumnVector;
+import dboperators.batch.IntColumnVector;
+import dboperators.batch.LongColumnVector;
+import dboperators.batch.VarcharColumnVector;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+/**
+ * Comparison of the values of one column with a constant, or null test. <br/>
+ * Like in SQL a null value matches only {@link #isNull}, every comparison with it being false.
+ * The values are compared as long values for the INTEGER and LONG columns, with the exact value of a fractional constant,
+ * as double values for the DOUBLE ones and as strings for the VARCHAR ones. <br/>
+ * Besides testing one value, it can refine a selection vector of the positions of a {@link ColumnVector},
+ * reading the primitive values without boxing them and, for a dictionary encoded vector, testing every distinct string only once.
+ */
+public class ColumnPredicate {
+    public enum Comparison {
+        EQUAL, NOT_EQUAL, LESS, LESS_OR_EQUAL, GREATER, GREATER_OR_EQUAL, IS_NULL, IS_NOT_NULL;
+
+        boolean accepts(int comparison) {
+            switch (this) {
+                case EQUAL:
+                    return comparison == 0;
+                case NOT_EQUAL:
+                    return comparison != 0;
+                case LESS:
+                    return comparison < 0;
+                case LESS_OR_EQUAL:
+                    return comparison <= 0;
+                case GREATER:
+                    return comparison > 0;
+                case GREATER_OR_EQUAL:
+                    return comparison >= 0;
+                default:
+                    // the null tests are not comparisons
+                    return true;
+            }
+        }
+    }
+
+    private final Column column;
+    private final Comparison comparison;
+    private final Object constant;
+    // the constant of the INTEGER, LONG and DOUBLE columns, converted once
+    private final long longConstant;
+    private final double doubleConstant;
+    // the comparison of the value longConstant with the constant, which is not a long value when it is fractional or out of range
+    private final int longConstantComparison;
+
+    private ColumnPredicate(Column column, Comparison comparison, Object constant) {
+        Objects.requireNonNull(column);
+        Objects.requireNonNull(comparison);
+        final boolean nullTest = comparison == Comparison.IS_NULL || comparison == Comparison.IS_NOT_NULL;
+        if (!nullTest) {
+            Objects.requireNonNull(constant);
+            final boolean numeric = column.getType() != ColumnType.VARCHAR;
+            if (numeric ? !(constant instanceof Number) : !(constant instanceof String)) {
+                throw new IllegalArgumentException("Cannot compare a " + column.getType() + " column with " + constant);
+            }
+        }
+        this.column = column;
+        this.comparison = comparison;
+        this.constant = constant;
+        this.doubleConstant = constant instanceof Number ? ((Number) constant).doubleValue() : 0;
+        if (constant instanceof Long || constant instanceof Integer || constant instanceof Short || constant instanceof Byte) {
+            this.longConstant = ((Number) constant).longValue();
+            this.longConstantComparison = 0;
+        } else if (Double.isNaN(doubleConstant) || doubleConstant >= 0x1p63) {
+            // like Double.compare, NaN is greater than any value
+            this.longConstant = Long.MAX_VALUE;
+            this.longConstantComparison = -1;
+        } else if (doubleConstant < -0x1p63) {
+            this.longConstant = Long.MIN_VALUE;
+            this.longConstantComparison = 1;
+        } else {
+            // a fractional constant lies between its floor and the next long value
+            this.longConstant = (long) Math.floor(doubleConstant);
+            this.longConstantComparison = longConstant == doubleConstant ? 0 : -1;
+        }
+    }
+
+    public static ColumnPredicate of(Column column, Comparison comparison, Object constant) {
+        return new ColumnPredicate(column, comparison, constant);
+    }
+
+    public static ColumnPredicate equalTo(Column column, Object constant) {
+        return new ColumnPredicate(column, Comparison.EQUAL, constant);
+    }
+
+    public static ColumnPredicate lessThan(Column column, Object constant) {
+        return new ColumnPredicate(column, Comparison.LESS, constant);
+    }
+
+    public static ColumnPredicate greaterThan(Column column, Object constant) {
+        return new ColumnPredicate(column, Comparison.GREATER, constant);
+    }
+
+    public static ColumnPredicate isNull(Column column) {
+        return new ColumnPredicate(column, Comparison.IS_NULL, null);
+    }
+
+    public static ColumnPredicate isNotNull(Column column) {
+        return new ColumnPredicate(column, Comparison.IS_NOT_NULL, null);
+    }
+
+    /**
+     * @return the predicates of the given ones whose column belongs to the relation
+     */
+    public static List<ColumnPredicate> applicableTo(List<ColumnPredicate> predicates, RelationMetadata relation) {
+        return predicates.stream()
+                .filter(predicate -> relation.getColumnIndexMap().containsKey(predicate.getColumn()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Checks that every predicate pushed down into a join can be applied to at least one of the joined relations.
+     */
+    public static void checkApplicable(List<ColumnPredicate> predicates, RelationMetadata rel1, RelationMetadata rel2) {
+        for (ColumnPredicate predicate : predicates) {
+            if (!rel1.getColumnIndexMap().containsKey(predicate.getColumn()) && !rel2.getColumnIndexMap().containsKey(predicate.getColumn())) {
+                throw new IllegalStateException("Filtered columns cannot be found in any of the two input relations");
+            }
+        }
+    }
+
+    public Column getColumn() {
+        return column;
+    }
+
+    public Comparison getComparison() {
+        return comparison;
+    }
+
+    public Object getConstant() {
+        return constant;
+    }
+
+    public boolean test(Object value) {
+        if (value == null || comparison == Comparison.IS_NULL || comparison == Comparison.IS_NOT_NULL) {
+            return (value == null) == (comparison == Comparison.IS_NULL);
+        }
+        switch (column.getType()) {
+            case INTEGER:
+            case LONG:
+                return comparison.accepts(compareToConstant(((Number) value).longValue()));
+            case DOUBLE:
+                return comparison.accepts(Double.compare(((Number) value).doubleValue(), doubleConstant));
+            default:
+                return comparison.accepts(((String) value).compareTo((String) constant));
+        }
+    }
+
+    /**
+     * Compares the value of an INTEGER or LONG column with the constant, which can be a fractional one.
+     */
+    private int compareToConstant(long value) {
+        final int comparison = Long.compare(value, longConstant);
+        return comparison == 0 ? longConstantComparison : comparison;
+    }
+
+    /**
+     * Keeps in the selection vector only the positions of the vector whose values match.
+     * @param selection the selected positions, in its first selectedCount elements
+     * @return the new count of selected positions
+     */
+    public int select(ColumnVector vector, int[] selection, int selectedCount) {
+        if (comparison == Comparison.IS_NULL || comparison == Comparison.IS_NOT_NULL) {
+            final boolean acceptsNull = comparison == Comparison.IS_NULL;
+            int count = 0;
+            for (int i = 0; i < selectedCount; i++) {
+                if (vector.isNull(selection[i]) == acceptsNull) {
+                    selection[count++] = selection[i];
+                }
+            }
+            return count;
+        }
+
+        int count = 0;
+        switch (vector.getType()) {
+            case INTEGER: {
+                final IntColumnVector intVector = (IntColumnVector) vector;
+                for (int i = 0; i < selectedCount; i++) {
+                    final int row = selection[i];
+                    if (!intVector.isNull(row) && comparison.accepts(compareToConstant(intVector.getInt(row)))) {
+                        selection[count++] = row;
+                    }
+                }
+                return count;
+            }
+            case LONG: {
+                final LongColumnVector longVector = (LongColumnVector) vector;
+                for (int i = 0; i < selectedCount; i++) {
+                    final int row = selection[i];
+                    if (!longVector.isNull(row) && comparison.accepts(compareToConstant(longVector.getLong(row)))) {
+                        selection[count++] = row;
+                    }
+                }
+                return count;
+            }
+            case DOUBLE: {
+                final DoubleColumnVector doubleVector = (DoubleColumnVector) vector;
+                for (int i = 0; i < selectedCount; i++) {
+                    final int row = selection[i];
+                    if (!doubleVector.isNull(row) && comparison.accepts(Double.compare(doubleVector.getDouble(row), doubleConstant))) {
+                        selection[count++] = row;
+                    }
+                }
+                return count;
+            }
+            default: {
+                final VarcharColumnVector varcharVector = (VarcharColumnVector) vector;
+                final VarcharColumnVector.Dictionary dictionary = varcharVector.getDictionary();
+                if (dictionary.size() > selectedCount) {
+                    for (int i = 0; i < selectedCount; i++) {
+                        if (test(varcharVector.get(selection[i]))) {
+                            selection[count++] = selection[i];
+                        }
+                    }
+                    return count;
+                }
+                // test every distinct string once
+                final boolean[] matchingCodes = new boolean[dictionary.size()];
+                for (int code = 0; code < matchingCodes.length; code++) {
+                    matchingCodes[code] = test(dictionary.getValue(code));
+                }
+                for (int i = 0; i < selectedCount; i++) {
+                    final int row = selection[i];
+                    if (!varcharVector.isNull(row) && matchingCodes[varcharVector.getCode(row)]) {
+                        selection[count++] = row;
+                    }
+                }
+                return count;
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ColumnPredicate that = (ColumnPredicate) o;
+        return column.equals(that.column) && comparison == that.comparison && Objects.equals(constant, that.constant);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(column, comparison, constant);
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", ColumnPredicate.class.getSimpleName() + "[", "]")
+                .add("column=" + column)
+                .add("comparison=" + comparison)
+                .add("constant=" + constant)
+                .toString();
+    }
+}
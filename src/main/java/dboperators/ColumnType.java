@@ -1,5 +1,5 @@
 package dboperators;
 
 public enum ColumnType {
-    VARCHAR, INTEGER, LONG;
+    VARCHAR, INTEGER, LONG, DOUBLE;
 }
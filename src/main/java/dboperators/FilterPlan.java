@@ -0,0 +1,62 @@
+package dboperators;
+
+import dboperators.batch.RowBatch;
+
+import java.util.List;
+
+/**
+ * Precompiled conjunction of {@link ColumnPredicate}s over the rows of one relation. <br/>
+ * The position of the column of every predicate is resolved once, when the plan is created,
+ * so that testing a row only reads its values.
+ */
+public class FilterPlan {
+    private final ColumnPredicate[] predicates;
+    private final int[] indexes;
+
+    private FilterPlan(ColumnPredicate[] predicates, int[] indexes) {
+        this.predicates = predicates;
+        this.indexes = indexes;
+    }
+
+    public static FilterPlan of(RelationMetadata relation, List<ColumnPredicate> predicates) {
+        final int[] indexes = new int[predicates.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            final Integer ri = relation.getColumnIndexMap().get(predicates.get(i).getColumn());
+            if (ri == null) {
+                throw new IllegalStateException("Filtered columns cannot be found in the relation set of columns!");
+            }
+            indexes[i] = ri;
+        }
+        return new FilterPlan(predicates.toArray(new ColumnPredicate[0]), indexes);
+    }
+
+    public boolean isEmpty() {
+        return predicates.length == 0;
+    }
+
+    public boolean test(Row row) {
+        final Object[] values = row.getValues();
+        for (int i = 0; i < predicates.length; i++) {
+            if (!predicates[i].test(values[indexes[i]])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Selects the rows of the batch matching all the predicates, one column at a time.
+     * @param selection the buffer of the selected positions, at least as large as the batch
+     * @return the count of selected positions, in the first elements of the selection
+     */
+    public int select(RowBatch batch, int[] selection) {
+        int selectedCount = batch.size();
+        for (int row = 0; row < selectedCount; row++) {
+            selection[row] = row;
+        }
+        for (int i = 0; i < predicates.length && selectedCount > 0; i++) {
+            selectedCount = predicates[i].select(batch.getVector(indexes[i]), selection, selectedCount);
+        }
+        return selectedCount;
+    }
+}
@@ -0,0 +1,72 @@
+package dboperators;
+
+import dboperators.batch.RowBatch;
+
+/**
+ * 64-bit hashing of row values, independent of the boxed {@link Object#hashCode()} of the numeric values.
+ */
+public class Hashing {
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The finalizer of MurmurHash3, spreading every input bit over all the output bits.
+     */
+    public static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public static long hash(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Long || value instanceof Integer) {
+            return ((Number) value).longValue();
+        }
+        return value.hashCode();
+    }
+
+    /**
+     * Hashes a single INTEGER or LONG value without boxing it.
+     * It gives the same result as {@link #hash(Object[])} of the boxed value.
+     */
+    public static long hashLong(long value) {
+        return mix64(SEED * SEED + value);
+    }
+
+    public static long hash(Object[] values) {
+        long h = SEED;
+        for (Object value : values) {
+            h = h * SEED + hash(value);
+        }
+        return mix64(h);
+    }
+
+    /**
+     * Hashes only the values found at the given positions, in the given order.
+     * It gives the same result as {@link #hash(Object[])} of the projected values.
+     */
+    public static long hash(Object[] values, int[] indexes) {
+        long h = SEED;
+        for (int index : indexes) {
+            h = h * SEED + hash(values[index]);
+        }
+        return mix64(h);
+    }
+
+    /**
+     * Hashes the values of the given columns of a row of a batch, in the given order, without boxing them.
+     * It gives the same result as {@link #hash(Object[])} of the boxed values.
+     */
+    public static long hash(RowBatch batch, int row, int[] columns) {
+        long h = SEED;
+        for (int column : columns) {
+            h = h * SEED + batch.getVector(column).hash(row);
+        }
+        return mix64(h);
+    }
+}
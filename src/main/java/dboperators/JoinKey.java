@@ -0,0 +1,182 @@
+package dboperators;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Immutable key of a hash join, the values of the common columns of a row. <br/>
+ * Unlike a {@link Row} key, it computes its 64-bit {@link Hashing} hash once, compares the hashes before the values,
+ * and a key of a single INTEGER or LONG column holds the raw long value, so no array is hashed or compared. <br/>
+ * Its hash is the same as {@link Hashing#hash(Object[])} of its values,
+ * so it can be checked against the Bloom filters and the hashes kept by the indexes. <br/>
+ * An INTEGER and a LONG value are equal when they have the same long value, see {@link #valueEquals}, in every column of a key.
+ */
+public abstract class JoinKey {
+    private final long hash;
+
+    private JoinKey(long hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * @param values the key values, which must not be modified afterwards
+     */
+    public static JoinKey of(Object... values) {
+        Objects.requireNonNull(values);
+        if (values.length == 1 && isIntegral(values[0])) {
+            return new LongKey((Number) values[0]);
+        }
+        return new ValuesKey(values);
+    }
+
+    /**
+     * Creates the key of a row without projecting the row first.
+     * @param keyIndexes the positions of the key values in the row values
+     */
+    public static JoinKey of(Object[] rowValues, int[] keyIndexes) {
+        if (keyIndexes.length == 1 && isIntegral(rowValues[keyIndexes[0]])) {
+            return new LongKey((Number) rowValues[keyIndexes[0]]);
+        }
+        final Object[] values = new Object[keyIndexes.length];
+        for (int i = 0; i < keyIndexes.length; i++) {
+            values[i] = rowValues[keyIndexes[i]];
+        }
+        return new ValuesKey(values);
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer;
+    }
+
+    /**
+     * The equality of the key values, shared by all the indexes: it is the same as {@link Objects#equals},
+     * except that an INTEGER and a LONG value with the same long value are equal, as they have the same {@link Hashing} hash.
+     */
+    public static boolean valueEquals(Object value1, Object value2) {
+        if (isIntegral(value1) && isIntegral(value2)) {
+            return ((Number) value1).longValue() == ((Number) value2).longValue();
+        }
+        return Objects.equals(value1, value2);
+    }
+
+    /**
+     * @return the 64-bit hash of the key values, see {@link Hashing#hash(Object[])}
+     */
+    public long hash() {
+        return hash;
+    }
+
+    public abstract int size();
+
+    public abstract Object getValue(int index);
+
+    /**
+     * @return whether the key has the values found in the row values at the given positions
+     */
+    public abstract boolean matches(Object[] rowValues, int[] keyIndexes);
+
+    public Row toRow() {
+        final Object[] values = new Object[size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getValue(i);
+        }
+        return new Row(values);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", JoinKey.class.getSimpleName() + "[", "]")
+                .add("values=" + Arrays.toString(toRow().getValues()))
+                .toString();
+    }
+
+    /**
+     * Key of a single INTEGER or LONG column. <br/>
+     * An INTEGER and a LONG key with the same value are equal, as they have the same {@link Hashing} hash too.
+     */
+    private static final class LongKey extends JoinKey {
+        private final long value;
+        private final boolean isInteger;
+
+        LongKey(Number value) {
+            super(Hashing.hashLong(value.longValue()));
+            this.value = value.longValue();
+            this.isInteger = value instanceof Integer;
+        }
+
+        @Override
+        public int size() {
+            return 1;
+        }
+
+        @Override
+        public Object getValue(int index) {
+            Objects.checkIndex(index, 1);
+            return isInteger ? (Object) (int) value : (Object) value;
+        }
+
+        @Override
+        public boolean matches(Object[] rowValues, int[] keyIndexes) {
+            final Object rowValue = rowValues[keyIndexes[0]];
+            return isIntegral(rowValue) && ((Number) rowValue).longValue() == value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof LongKey)) return false;
+            return value == ((LongKey) o).value;
+        }
+    }
+
+    private static final class ValuesKey extends JoinKey {
+        private final Object[] values;
+
+        ValuesKey(Object[] values) {
+            super(Hashing.hash(values));
+            this.values = values;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public Object getValue(int index) {
+            return values[index];
+        }
+
+        @Override
+        public boolean matches(Object[] rowValues, int[] keyIndexes) {
+            for (int i = 0; i < values.length; i++) {
+                if (!valueEquals(values[i], rowValues[keyIndexes[i]])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ValuesKey)) return false;
+            final ValuesKey key = (ValuesKey) o;
+            if (hash() != key.hash() || values.length != key.values.length) {
+                return false;
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (!valueEquals(values[i], key.values[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package dboperators;
+
+import java.util.ArrayList;
+
+/**
+ * Precompiled merge of the rows of two relations into the rows of an output relation. <br/>
+ * Every output column is resolved once, when the plan is created, to a position in the first relation
+ * or, when missing there, to a position in the second relation.
+ */
+public class MergePlan {
+    private final ArrayList<Column> outColumns;
+    private final int[] indexes1;
+    private final int[] indexes2;
+    // the position of every output column in the second relation, even when it is taken from the first one
+    private final int[] columnIndexes2;
+
+    private MergePlan(ArrayList<Column> outColumns, int[] indexes1, int[] indexes2, int[] columnIndexes2) {
+        this.outColumns = outColumns;
+        this.indexes1 = indexes1;
+        this.indexes2 = indexes2;
+        this.columnIndexes2 = columnIndexes2;
+    }
+
+    public static MergePlan of(RelationMetadata rel1, RelationMetadata rel2, RelationMetadata outRel) {
+        final ArrayList<Column> outColumns = outRel.getColumns();
+        final int[] indexes1 = new int[outColumns.size()];
+        final int[] indexes2 = new int[outColumns.size()];
+        final int[] columnIndexes2 = new int[outColumns.size()];
+        for (int i = 0; i < indexes1.length; i++) {
+            final Column outColumn = outColumns.get(i);
+            indexes1[i] = rel1.getColumnIndexMap().getOrDefault(outColumn, -1);
+            columnIndexes2[i] = rel2.getColumnIndexMap().getOrDefault(outColumn, -1);
+            indexes2[i] = indexes1[i] >= 0 ? -1 : columnIndexes2[i];
+            if (indexes1[i] < 0 && indexes2[i] < 0) {
+                throw new IllegalStateException("An output column cannot be found in any of the two input relations");
+            }
+        }
+        return new MergePlan(outColumns, indexes1, indexes2, columnIndexes2);
+    }
+
+    public ArrayList<Column> getColumns() {
+        return outColumns;
+    }
+
+    /**
+     * @return for every output column its position in the first relation or -1 when it is taken from the second one
+     */
+    public int[] getIndexes1() {
+        return indexes1;
+    }
+
+    /**
+     * @return for every output column its position in the second relation or -1 when it is taken from the first one
+     */
+    public int[] getIndexes2() {
+        return indexes2;
+    }
+
+    public Row merge(Row row1, Row row2) {
+        final Object[] values1 = row1.getValues();
+        final Object[] values2 = row2.getValues();
+        final Object[] outValues = new Object[indexes1.length];
+        for (int i = 0; i < outValues.length; i++) {
+            outValues[i] = indexes1[i] >= 0 ? values1[indexes1[i]] : values2[indexes2[i]];
+        }
+        return new Row(outValues);
+    }
+
+    /**
+     * Merges a row of the first relation without match, with null values for the columns of the second relation.
+     */
+    public Row mergeUnmatched1(Row row1) {
+        final Object[] values1 = row1.getValues();
+        final Object[] outValues = new Object[indexes1.length];
+        for (int i = 0; i < outValues.length; i++) {
+            outValues[i] = indexes1[i] >= 0 ? values1[indexes1[i]] : null;
+        }
+        return new Row(outValues);
+    }
+
+    /**
+     * Merges a row of the second relation without match, with null values for the columns of the first relation,
+     * so the common columns are taken from the second relation too.
+     */
+    public Row mergeUnmatched2(Row row2) {
+        final Object[] values2 = row2.getValues();
+        final Object[] outValues = new Object[columnIndexes2.length];
+        for (int i = 0; i < outValues.length; i++) {
+            outValues[i] = columnIndexes2[i] >= 0 ? values2[columnIndexes2[i]] : null;
+        }
+        return new Row(outValues);
+    }
+}
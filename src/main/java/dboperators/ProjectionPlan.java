@@ -0,0 +1,57 @@
+package dboperators;
+
+import java.util.ArrayList;
+
+/**
+ * Precompiled projection of the rows of one relation onto a subset of its columns. <br/>
+ * The position of every output column in the input relation is resolved once, when the plan is created,
+ * so that projecting a row is only an array copy.
+ */
+public class ProjectionPlan {
+    private final ArrayList<Column> outColumns;
+    private final int[] indexes;
+
+    private ProjectionPlan(ArrayList<Column> outColumns, int[] indexes) {
+        this.outColumns = outColumns;
+        this.indexes = indexes;
+    }
+
+    public static ProjectionPlan of(RelationMetadata fromRelation, RelationMetadata outRelation) {
+        final ArrayList<Column> outColumns = outRelation.getColumns();
+        final int[] indexes = new int[outColumns.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            final Integer ri = fromRelation.getColumnIndexMap().get(outColumns.get(i));
+            if (ri == null) {
+                throw new IllegalStateException("Output columns cannot be found in the fromRelation set of columns!");
+            }
+            indexes[i] = ri;
+        }
+        return new ProjectionPlan(outColumns, indexes);
+    }
+
+    public ArrayList<Column> getColumns() {
+        return outColumns;
+    }
+
+    /**
+     * @return for every output column its position in the input relation
+     */
+    public int[] getIndexes() {
+        return indexes;
+    }
+
+    public Row project(Row fromRow) {
+        return new Row(project(fromRow, new Object[indexes.length]));
+    }
+
+    /**
+     * Copies the projected values into the given buffer, which can be reused between rows.
+     */
+    public Object[] project(Row fromRow, Object[] outValues) {
+        final Object[] fromValues = fromRow.getValues();
+        for (int i = 0; i < indexes.length; i++) {
+            outValues[i] = fromValues[indexes[i]];
+        }
+        return outValues;
+    }
+}
@@ -0,0 +1,108 @@
+package dboperators;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Compact binary format of the rows of a relation, driven by the column types: <br/>
+ * a null mask of one bit per column, followed by the non null values,
+ * INTEGER as 4 bytes, LONG and DOUBLE as 8 bytes and VARCHAR as a variable length size followed by the UTF-8 bytes. <br/>
+ * A codec reuses its null mask buffer, so it must not be shared between threads.
+ */
+public class RowCodec {
+    private final ColumnType[] types;
+    private final byte[] nullMask;
+
+    public RowCodec(ArrayList<Column> columns) {
+        this.types = new ColumnType[columns.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = columns.get(i).getType();
+        }
+        this.nullMask = new byte[(types.length + 7) / 8];
+    }
+
+    public void write(DataOutput out, Row row) throws IOException {
+        final Object[] values = row.getValues();
+        for (int i = 0; i < nullMask.length; i++) {
+            nullMask[i] = 0;
+        }
+        for (int i = 0; i < types.length; i++) {
+            if (values[i] == null) {
+                nullMask[i >> 3] |= 1 << (i & 7);
+            }
+        }
+        out.write(nullMask);
+        for (int i = 0; i < types.length; i++) {
+            if (values[i] != null) {
+                switch (types[i]) {
+                    case INTEGER:
+                        out.writeInt(((Number) values[i]).intValue());
+                        break;
+                    case LONG:
+                        out.writeLong(((Number) values[i]).longValue());
+                        break;
+                    case DOUBLE:
+                        out.writeDouble(((Number) values[i]).doubleValue());
+                        break;
+                    case VARCHAR:
+                        final byte[] bytes = ((String) values[i]).getBytes(StandardCharsets.UTF_8);
+                        writeVarInt(out, bytes.length);
+                        out.write(bytes);
+                        break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @throws EOFException when there is no more row to read
+     */
+    public Row read(DataInput in) throws IOException {
+        in.readFully(nullMask);
+        final Object[] values = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            if ((nullMask[i >> 3] & (1 << (i & 7))) == 0) {
+                switch (types[i]) {
+                    case INTEGER:
+                        values[i] = in.readInt();
+                        break;
+                    case LONG:
+                        values[i] = in.readLong();
+                        break;
+                    case DOUBLE:
+                        values[i] = in.readDouble();
+                        break;
+                    case VARCHAR:
+                        final byte[] bytes = new byte[readVarInt(in)];
+                        in.readFully(bytes);
+                        values[i] = new String(bytes, StandardCharsets.UTF_8);
+                        break;
+                }
+            }
+        }
+        return new Row(values);
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            final byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package dboperators;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+
+/**
+ * Orders the rows of a relation by some of its columns, comparing the values in their natural order with the nulls first.
+ */
+public class RowComparator implements Comparator<Row> {
+    private final int[] indexes;
+
+    private RowComparator(int[] indexes) {
+        this.indexes = indexes;
+    }
+
+    public static RowComparator of(RelationMetadata relation, ArrayList<Column> columns) {
+        return new RowComparator(ProjectionPlan.of(relation, new RelationMetadata(columns)).getIndexes());
+    }
+
+    public int[] getIndexes() {
+        return indexes;
+    }
+
+    @Override
+    public int compare(Row row1, Row row2) {
+        return compare(row1, indexes, row2, indexes);
+    }
+
+    /**
+     * Compares the rows of two relations having the sort columns at different positions.
+     */
+    public static int compare(Row row1, int[] indexes1, Row row2, int[] indexes2) {
+        final Object[] values1 = row1.getValues();
+        final Object[] values2 = row2.getValues();
+        for (int i = 0; i < indexes1.length; i++) {
+            final int result = compareValues(values1[indexes1[i]], values2[indexes2[i]]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object value1, Object value2) {
+        if (value1 == null || value2 == null) {
+            return value1 == null ? (value2 == null ? 0 : -1) : 1;
+        }
+        return ((Comparable) value1).compareTo(value2);
+    }
+}
@@ -0,0 +1,50 @@
+package dboperators;
+
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class Rows {
+    private static final int OBJECT_HEADER_SIZE = 16;
+    private static final int REFERENCE_SIZE = 8;
+    private static final int BOXED_VALUE_SIZE = 16;
+    private static final int STRING_OVERHEAD = 40;
+
+    /**
+     * Estimates the heap size of a row, including the values array and the boxed values,
+     * for deciding how many rows fit in a memory budget.
+     */
+    public static long estimatedSize(Row row) {
+        final Object[] values = row.getValues();
+        long size = OBJECT_HEADER_SIZE + OBJECT_HEADER_SIZE + (long) REFERENCE_SIZE * values.length;
+        for (Object value : values) {
+            if (value instanceof String) {
+                size += STRING_OVERHEAD + ((String) value).length();
+            } else if (value != null) {
+                size += BOXED_VALUE_SIZE;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Creates the rows stream only when the returned stream is consumed, e.g. for reading the input relations of an operator lazily. <br/>
+     * Unlike the flatMap of a stream of one element, which buffers all the rows of its inner stream when it is pulled through its iterator,
+     * the returned stream hands over the rows of the created stream one at a time. Closing it closes the created stream.
+     */
+    public static Stream<Row> lazy(Supplier<? extends Stream<Row>> rowsSupplier) {
+        final AtomicReference<Stream<Row>> rows = new AtomicReference<>();
+        return StreamSupport.stream(() -> {
+            final Stream<Row> createdRows = rowsSupplier.get();
+            rows.set(createdRows);
+            return createdRows.spliterator();
+        }, Spliterator.ORDERED | Spliterator.NONNULL, false).onClose(() -> {
+            final Stream<Row> createdRows = rows.get();
+            if (createdRows != null) {
+                createdRows.close();
+            }
+        });
+    }
+}
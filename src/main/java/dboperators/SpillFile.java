@@ -0,0 +1,166 @@
+package dboperators;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Temporary file where the rows of a relation are written with a {@link RowCodec} when they do not fit in memory,
+ * and then read back once. <br/>
+ * The file is created on the first written row and deleted when the spill file is closed,
+ * which its owner must do as soon as the rows are read, even when failing.
+ * The files still not closed when the JVM exits, e.g. behind an output stream abandoned without being closed,
+ * are deleted by a shutdown hook.
+ * I/O errors are reported as {@link UncheckedIOException}s.
+ */
+public class SpillFile implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    // the files created and not deleted yet
+    private static final Set<Path> PENDING_FILES = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SpillFile::deletePendingFiles, "spill-files-cleanup"));
+    }
+
+    private final ArrayList<Column> columns;
+    private final Path directory;
+    private final RowCodec codec;
+    private Path path;
+    private DataOutputStream out;
+    private long rowsCount;
+    private long estimatedRowsSize;
+
+    /**
+     * @param directory where to create the file or null for the default temporary directory
+     */
+    public SpillFile(ArrayList<Column> columns, Path directory) {
+        this.columns = columns;
+        this.directory = directory;
+        this.codec = new RowCodec(columns);
+    }
+
+    public ArrayList<Column> getColumns() {
+        return columns;
+    }
+
+    public long getRowsCount() {
+        return rowsCount;
+    }
+
+    /**
+     * @return the sum of the estimated heap sizes of the written rows, see {@link Rows#estimatedSize(Row)}
+     */
+    public long getEstimatedRowsSize() {
+        return estimatedRowsSize;
+    }
+
+    public void write(Row row) {
+        try {
+            if (out == null) {
+                path = directory == null ? Files.createTempFile("dboperators-", ".spill") : Files.createTempFile(directory, "dboperators-", ".spill");
+                PENDING_FILES.add(path);
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE));
+            }
+            codec.write(out, row);
+            rowsCount++;
+            estimatedRowsSize += Rows.estimatedSize(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Finishes the writing and reads the rows back. Closing the returned stream does not delete the file.
+     */
+    public Stream<Row> readRows() {
+        try {
+            if (out == null) {
+                return Stream.empty();
+            }
+            out.close();
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE));
+            final RowCodec readCodec = new RowCodec(columns);
+            final Iterator<Row> rowsIterator = new Iterator<>() {
+                long readRowsCount = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return readRowsCount < rowsCount;
+                }
+
+                @Override
+                public Row next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    try {
+                        readRowsCount++;
+                        return readCodec.read(in);
+                    } catch (EOFException e) {
+                        throw new IllegalStateException("The spill file " + path + " is truncated", e);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+            return StreamSupport.stream(Spliterators.spliterator(rowsIterator, rowsCount, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(() -> {
+                        try {
+                            in.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (out != null) {
+                out.close();
+                Files.deleteIfExists(path);
+                PENDING_FILES.remove(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deletePendingFiles() {
+        for (Path pendingPath : PENDING_FILES) {
+            try {
+                Files.deleteIfExists(pendingPath);
+            } catch (IOException e) {
+                // the JVM is exiting, the other files are still deleted
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", SpillFile.class.getSimpleName() + "[", "]")
+                .add("path=" + path)
+                .add("rowsCount=" + rowsCount)
+                .toString();
+    }
+}
@@ -0,0 +1,104 @@
+package dboperators.aggregateoperator;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * An aggregate function of an input column, or of the rows for COUNT(*), and the output column of its results. <br/>
+ * COUNT and SUM output LONG values, MIN and MAX values of the type of the input column and AVG DOUBLE values.
+ * The null input values are ignored, and the result of a group without non null input values is null, except for COUNT which is 0.
+ */
+public class Aggregate {
+    private final AggregateFunction function;
+    private final Column inputColumn;
+    private final Column outputColumn;
+
+    private Aggregate(AggregateFunction function, Column inputColumn, String outputName, ColumnType outputType) {
+        Objects.requireNonNull(function);
+        Objects.requireNonNull(outputName);
+        if (inputColumn != null && inputColumn.getType() != ColumnType.INTEGER && inputColumn.getType() != ColumnType.LONG) {
+            throw new IllegalArgumentException("Unsupported column type: " + inputColumn.getType());
+        }
+        this.function = function;
+        this.inputColumn = inputColumn;
+        this.outputColumn = new Column(outputName, outputType);
+    }
+
+    /**
+     * @return the COUNT(*) of the rows
+     */
+    public static Aggregate count(String outputName) {
+        return new Aggregate(AggregateFunction.COUNT, null, outputName, ColumnType.LONG);
+    }
+
+    /**
+     * @return the COUNT of the non null values
+     */
+    public static Aggregate count(Column inputColumn, String outputName) {
+        return new Aggregate(AggregateFunction.COUNT, Objects.requireNonNull(inputColumn), outputName, ColumnType.LONG);
+    }
+
+    public static Aggregate sum(Column inputColumn, String outputName) {
+        return new Aggregate(AggregateFunction.SUM, Objects.requireNonNull(inputColumn), outputName, ColumnType.LONG);
+    }
+
+    public static Aggregate min(Column inputColumn, String outputName) {
+        return new Aggregate(AggregateFunction.MIN, Objects.requireNonNull(inputColumn), outputName, inputColumn.getType());
+    }
+
+    public static Aggregate max(Column inputColumn, String outputName) {
+        return new Aggregate(AggregateFunction.MAX, Objects.requireNonNull(inputColumn), outputName, inputColumn.getType());
+    }
+
+    public static Aggregate avg(Column inputColumn, String outputName) {
+        return new Aggregate(AggregateFunction.AVG, Objects.requireNonNull(inputColumn), outputName, ColumnType.DOUBLE);
+    }
+
+    public AggregateFunction getFunction() {
+        return function;
+    }
+
+    /**
+     * @return the input column or null for COUNT(*)
+     */
+    public Column getInputColumn() {
+        return inputColumn;
+    }
+
+    public Column getOutputColumn() {
+        return outputColumn;
+    }
+
+    /**
+     * @return the result of the accumulated value and count of non null values of a group
+     */
+    Object result(long value, long count) {
+        if (function == AggregateFunction.COUNT) {
+            return count;
+        }
+        if (count == 0) {
+            return null;
+        }
+        switch (function) {
+            case AVG:
+                return (double) value / count;
+            case MIN:
+            case MAX:
+                return outputColumn.getType() == ColumnType.INTEGER ? (Object) (int) value : (Object) value;
+            default:
+                return value;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", Aggregate.class.getSimpleName() + "[", "]")
+                .add("function=" + function)
+                .add("inputColumn=" + inputColumn)
+                .add("outputColumn=" + outputColumn)
+                .toString();
+    }
+}
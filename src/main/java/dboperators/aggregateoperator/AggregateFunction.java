@@ -0,0 +1,58 @@
+package dboperators.aggregateoperator;
+
+/**
+ * The aggregate functions over INTEGER and LONG values. <br/>
+ * Every function accumulates the values of a group into a primitive long value and the count of its non null values,
+ * so the partial aggregates of a group can be merged by combining their values and adding their counts.
+ */
+public enum AggregateFunction {
+    COUNT {
+        @Override
+        long combine(long value1, long value2) {
+            return 0;
+        }
+    },
+    SUM {
+        @Override
+        long combine(long value1, long value2) {
+            return value1 + value2;
+        }
+    },
+    MIN {
+        @Override
+        long initialValue() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        long combine(long value1, long value2) {
+            return Math.min(value1, value2);
+        }
+    },
+    MAX {
+        @Override
+        long initialValue() {
+            return Long.MIN_VALUE;
+        }
+
+        @Override
+        long combine(long value1, long value2) {
+            return Math.max(value1, value2);
+        }
+    },
+    AVG {
+        @Override
+        long combine(long value1, long value2) {
+            return value1 + value2;
+        }
+    };
+
+    long initialValue() {
+        return 0;
+    }
+
+    /**
+     * Combines an accumulated value with an input value or with another accumulated value.
+     */
+    abstract long combine(long value1, long value2);
+}
@@ -0,0 +1,225 @@
+package dboperators.aggregateoperator;
+
+import dboperators.Hashing;
+import dboperators.JoinKey;
+import dboperators.Row;
+import dboperators.Rows;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hash table of the groups of an aggregation, backed by an open addressing table with linear probing like the
+ * {@link dboperators.joinoperator.OpenAddressingIndex}. <br/>
+ * Every group has an id, in creation order, its key values and the primitive states of all the aggregates,
+ * an accumulated long value and a long count per aggregate, stored in one flat long array, so accumulating a value allocates nothing. <br/>
+ * The groups are looked up by the key values found at some positions of the row values, without building a key row,
+ * and they keep the 64-bit hash of their key, which partitions them when they are spilled.
+ * Not thread safe.
+ */
+public class GroupTable {
+    private static final int EMPTY = -1;
+    private static final int MIN_CAPACITY = 16;
+    // the estimated size of the table entries of one group, besides its key row and its states
+    private static final long GROUP_ENTRY_SIZE = 32;
+
+    private final AggregateFunction[] functions;
+    private final int stateSize;
+
+    // the table, with a power of two capacity, kept at most half full
+    private long[] slotHashes;
+    private int[] slotGroups;
+
+    // the groups by group id
+    private Row[] groupKeys;
+    private long[] groupHashes;
+    private long[] states;
+    private int groupsCount;
+    private long estimatedSize;
+
+    public GroupTable(List<Aggregate> aggregates) {
+        this.functions = aggregates.stream().map(Aggregate::getFunction).toArray(AggregateFunction[]::new);
+        this.stateSize = 2 * functions.length;
+        clear();
+    }
+
+    public void clear() {
+        slotHashes = new long[MIN_CAPACITY * 2];
+        slotGroups = new int[MIN_CAPACITY * 2];
+        Arrays.fill(slotGroups, EMPTY);
+        groupKeys = new Row[MIN_CAPACITY];
+        groupHashes = new long[MIN_CAPACITY];
+        states = new long[MIN_CAPACITY * stateSize];
+        groupsCount = 0;
+        estimatedSize = 0;
+    }
+
+    public int getGroupsCount() {
+        return groupsCount;
+    }
+
+    /**
+     * @return the estimated heap size of the groups, see {@link Rows#estimatedSize(Row)}
+     */
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    /**
+     * Finds the group of the key values found at the given positions of the row values, or creates it.
+     * @param hash the hash of the key values, see {@link Hashing#hash(Object[], int[])}
+     * @return the group id
+     */
+    public int findOrAddGroup(long hash, Object[] rowValues, int[] keyIndexes) {
+        final int mask = slotHashes.length - 1;
+        int slot = (int) hash & mask;
+        while (slotGroups[slot] != EMPTY) {
+            if (slotHashes[slot] == hash && keyEquals(groupKeys[slotGroups[slot]].getValues(), rowValues, keyIndexes)) {
+                return slotGroups[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (groupsCount == groupKeys.length) {
+            groupKeys = Arrays.copyOf(groupKeys, groupKeys.length * 2);
+            groupHashes = Arrays.copyOf(groupHashes, groupHashes.length * 2);
+            states = Arrays.copyOf(states, states.length * 2);
+        }
+        final int groupId = groupsCount++;
+        final Object[] keyValues = new Object[keyIndexes.length];
+        for (int i = 0; i < keyIndexes.length; i++) {
+            keyValues[i] = rowValues[keyIndexes[i]];
+        }
+        groupKeys[groupId] = new Row(keyValues);
+        groupHashes[groupId] = hash;
+        for (int a = 0; a < functions.length; a++) {
+            states[groupId * stateSize + 2 * a] = functions[a].initialValue();
+        }
+        estimatedSize += Rows.estimatedSize(groupKeys[groupId]) + GROUP_ENTRY_SIZE + 8L * stateSize;
+
+        slotHashes[slot] = hash;
+        slotGroups[slot] = groupId;
+        if (groupsCount * 2 > slotHashes.length) {
+            rehash(slotHashes.length * 2);
+        }
+        return groupId;
+    }
+
+    /**
+     * Accumulates an input value a number of times into the state of an aggregate of a group, e.g. once per joined row.
+     * @param value the INTEGER or LONG input value, ignored when null, or any non null value for COUNT(*)
+     */
+    public void accumulate(int groupId, int aggregateIndex, Object value, long times) {
+        if (value == null) {
+            return;
+        }
+        final int offset = groupId * stateSize + 2 * aggregateIndex;
+        final AggregateFunction function = functions[aggregateIndex];
+        if (function != AggregateFunction.COUNT) {
+            final long inputValue = ((Number) value).longValue();
+            final boolean additive = function == AggregateFunction.SUM || function == AggregateFunction.AVG;
+            states[offset] = function.combine(states[offset], additive ? inputValue * times : inputValue);
+        }
+        states[offset + 1] += times;
+    }
+
+    /**
+     * Merges the states of all the aggregates of a group, e.g. of a partial aggregation, starting at the given position.
+     */
+    public void merge(int groupId, long[] otherStates, int otherOffset) {
+        final int offset = groupId * stateSize;
+        for (int a = 0; a < functions.length; a++) {
+            states[offset + 2 * a] = functions[a].combine(states[offset + 2 * a], otherStates[otherOffset + 2 * a]);
+            states[offset + 2 * a + 1] += otherStates[otherOffset + 2 * a + 1];
+        }
+    }
+
+    /**
+     * Merges all the groups of another table with the same aggregates.
+     */
+    public void merge(GroupTable other) {
+        for (int groupId = 0; groupId < other.groupsCount; groupId++) {
+            final Object[] keyValues = other.groupKeys[groupId].getValues();
+            merge(findOrAddGroup(other.groupHashes[groupId], keyValues, identityIndexes(keyValues.length)), other.states, groupId * stateSize);
+        }
+    }
+
+    public long getGroupHash(int groupId) {
+        return groupHashes[groupId];
+    }
+
+    public Row getGroupKey(int groupId) {
+        return groupKeys[groupId];
+    }
+
+    /**
+     * @return the row of the key values of a group followed by the results of the aggregates
+     */
+    public Row getResultRow(int groupId, List<Aggregate> aggregates) {
+        final Object[] keyValues = groupKeys[groupId].getValues();
+        final Object[] values = Arrays.copyOf(keyValues, keyValues.length + functions.length);
+        final int offset = groupId * stateSize;
+        for (int a = 0; a < functions.length; a++) {
+            values[keyValues.length + a] = aggregates.get(a).result(states[offset + 2 * a], states[offset + 2 * a + 1]);
+        }
+        return new Row(values);
+    }
+
+    /**
+     * @return the row of the key values of a group followed by the value and the count of every aggregate, see {@link #mergeStateRow}
+     */
+    public Row getStateRow(int groupId) {
+        final Object[] keyValues = groupKeys[groupId].getValues();
+        final Object[] values = Arrays.copyOf(keyValues, keyValues.length + stateSize);
+        for (int i = 0; i < stateSize; i++) {
+            values[keyValues.length + i] = states[groupId * stateSize + i];
+        }
+        return new Row(values);
+    }
+
+    /**
+     * Merges a row created by {@link #getStateRow}, e.g. read back from a spill file.
+     */
+    public void mergeStateRow(Row stateRow, int keySize) {
+        final Object[] values = stateRow.getValues();
+        final int[] keyIndexes = identityIndexes(keySize);
+        final int groupId = findOrAddGroup(Hashing.hash(values, keyIndexes), values, keyIndexes);
+        final int offset = groupId * stateSize;
+        for (int a = 0; a < functions.length; a++) {
+            states[offset + 2 * a] = functions[a].combine(states[offset + 2 * a], (Long) values[keySize + 2 * a]);
+            states[offset + 2 * a + 1] += (Long) values[keySize + 2 * a + 1];
+        }
+    }
+
+    private static int[] identityIndexes(int size) {
+        final int[] indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+        }
+        return indexes;
+    }
+
+    private static boolean keyEquals(Object[] keyValues, Object[] rowValues, int[] keyIndexes) {
+        for (int i = 0; i < keyIndexes.length; i++) {
+            if (!JoinKey.valueEquals(keyValues[i], rowValues[keyIndexes[i]])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int newCapacity) {
+        slotHashes = new long[newCapacity];
+        slotGroups = new int[newCapacity];
+        Arrays.fill(slotGroups, EMPTY);
+        final int mask = newCapacity - 1;
+        for (int groupId = 0; groupId < groupsCount; groupId++) {
+            int slot = (int) groupHashes[groupId] & mask;
+            while (slotGroups[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slotHashes[slot] = groupHashes[groupId];
+            slotGroups[slot] = groupId;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package dboperators.aggregateoperator;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Hashing;
+import dboperators.ProjectionPlan;
+import dboperators.RelationMetadata;
+import dboperators.Row;
+import dboperators.SpillFile;
+import dboperators.streamjoinoperator.StreamRelation;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Hash aggregation of a stream relation, grouping its rows by some columns and computing aggregates of every group. <br/>
+ * The rows are accumulated into the primitive states of a {@link GroupTable}, one partial table per thread when the rows stream is parallel,
+ * and the partial tables are merged at the end.
+ * When the groups of a partial table exceed its share of the memory budget, their states are written into temporary {@link SpillFile}s
+ * hash partitioned on the group columns and the table is cleared. Then all the partial states of every partition are merged one by one,
+ * each partition being partitioned again if its groups still do not fit. <br/>
+ * Without group columns the output has a single row, even when the relation is empty. <br/>
+ * Runtime complexity O(N) plus the disk I/O of writing and reading the partial states once per partitioning level <br/>
+ * Memory complexity O(memory budget) <br/>
+ */
+public class HashAggregateOperator {
+    private static final int PARTITION_BITS = 5;
+    private static final int PARTITIONS_COUNT = 1 << PARTITION_BITS;
+    private static final int MAX_DEPTH = 4;
+
+    private final long memoryBudget;
+    private final Path spillDirectory;
+
+    /**
+     * @param memoryBudget the estimated heap size in bytes of the groups that can be aggregated in memory
+     */
+    public HashAggregateOperator(long memoryBudget) {
+        this(memoryBudget, null);
+    }
+
+    /**
+     * @param spillDirectory the directory of the temporary files or null for the default temporary directory
+     */
+    public HashAggregateOperator(long memoryBudget, Path spillDirectory) {
+        this.memoryBudget = memoryBudget;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * @return the relation of the group columns followed by the output columns of the aggregates
+     */
+    public StreamRelation aggregate(StreamRelation rel, ArrayList<Column> groupColumns, List<Aggregate> aggregates) {
+        Objects.requireNonNull(rel);
+        Objects.requireNonNull(groupColumns);
+        Objects.requireNonNull(aggregates);
+
+        final AggregationPlan plan = new AggregationPlan(rel, groupColumns, aggregates);
+        final ArrayList<Column> outRelColumns = new ArrayList<>(groupColumns);
+        aggregates.forEach(aggregate -> outRelColumns.add(aggregate.getOutputColumn()));
+
+        // the rows are read only when the output stream is consumed
+        final Stream<Row> outRows = Stream.of(rel)
+                .flatMap(r -> {
+                    final long partialBudget = r.getRows().isParallel()
+                            ? memoryBudget / ForkJoinPool.getCommonPoolParallelism()
+                            : memoryBudget;
+                    final Aggregation aggregation;
+                    try (Stream<Row> rows = r.getRows()) {
+                        aggregation = rows.collect(Collector.of(
+                                () -> new Aggregation(plan, partialBudget, 0),
+                                Aggregation::addRow,
+                                Aggregation::merge));
+                    }
+                    if (groupColumns.isEmpty() && aggregation.table.getGroupsCount() == 0 && aggregation.spills.isEmpty()) {
+                        aggregation.table.findOrAddGroup(Hashing.hash(new Object[0]), new Object[0], new int[0]);
+                    }
+                    return results(aggregation);
+                });
+        return new StreamRelation(outRelColumns, outRows);
+    }
+
+    private Stream<Row> results(Aggregation aggregation) {
+        final GroupTable table = aggregation.table;
+        if (aggregation.spills.isEmpty()) {
+            return IntStream.range(0, table.getGroupsCount())
+                    .mapToObj(groupId -> table.getResultRow(groupId, aggregation.plan.aggregates));
+        }
+
+        // merge the partial states of the partitions one by one, deleting their files once merged
+        aggregation.spill();
+        final List<SpillFile[]> spills = aggregation.spills;
+        return IntStream.range(0, PARTITIONS_COUNT).boxed()
+                .flatMap(p -> {
+                    final Aggregation partition = new Aggregation(aggregation.plan, memoryBudget, aggregation.depth + 1);
+                    for (SpillFile[] files : spills) {
+                        try (Stream<Row> stateRows = files[p].readRows()) {
+                            stateRows.forEach(partition::addStateRow);
+                        }
+                        files[p].close();
+                    }
+                    return results(partition);
+                })
+                .onClose(() -> spills.forEach(files -> {
+                    for (SpillFile file : files) {
+                        file.close();
+                    }
+                }));
+    }
+
+    /**
+     * Every partitioning level uses the next bits of the group hash, starting with the highest ones.
+     */
+    private static int partitionOf(long hash, int depth) {
+        return (int) (hash >>> (Long.SIZE - PARTITION_BITS * (depth + 1))) & (PARTITIONS_COUNT - 1);
+    }
+
+    /**
+     * The positions of the group columns and of the aggregate input columns, resolved once.
+     */
+    private static class AggregationPlan {
+        final List<Aggregate> aggregates;
+        final int[] groupIndexes;
+        // the positions of the input columns, -1 for COUNT(*)
+        final int[] inputIndexes;
+        // the group columns followed by the value and the count of every aggregate
+        final ArrayList<Column> stateColumns;
+
+        AggregationPlan(StreamRelation rel, ArrayList<Column> groupColumns, List<Aggregate> aggregates) {
+            this.aggregates = aggregates;
+            this.groupIndexes = ProjectionPlan.of(rel, new RelationMetadata(groupColumns)).getIndexes();
+            this.inputIndexes = new int[aggregates.size()];
+            this.stateColumns = new ArrayList<>(groupColumns);
+            for (int a = 0; a < aggregates.size(); a++) {
+                final Aggregate aggregate = aggregates.get(a);
+                if (aggregate.getInputColumn() == null) {
+                    inputIndexes[a] = -1;
+                } else {
+                    final Integer index = rel.getColumnIndexMap().get(aggregate.getInputColumn());
+                    if (index == null) {
+                        throw new IllegalStateException("Aggregate input column cannot be found in the relation set of columns!");
+                    }
+                    inputIndexes[a] = index;
+                }
+                stateColumns.add(new Column(aggregate.getOutputColumn().getName() + "$value", ColumnType.LONG));
+                stateColumns.add(new Column(aggregate.getOutputColumn().getName() + "$count", ColumnType.LONG));
+            }
+        }
+    }
+
+    /**
+     * A partial aggregation with its share of the memory budget and the partitions of the states it has spilled.
+     */
+    private class Aggregation {
+        final AggregationPlan plan;
+        final GroupTable table;
+        final int depth;
+        final List<SpillFile[]> spills = new ArrayList<>();
+        SpillFile[] files;
+        long budget;
+
+        Aggregation(AggregationPlan plan, long budget, int depth) {
+            this.plan = plan;
+            this.table = new GroupTable(plan.aggregates);
+            this.budget = budget;
+            this.depth = depth;
+        }
+
+        void addRow(Row row) {
+            final Object[] values = row.getValues();
+            final int groupId = table.findOrAddGroup(Hashing.hash(values, plan.groupIndexes), values, plan.groupIndexes);
+            for (int a = 0; a < plan.inputIndexes.length; a++) {
+                table.accumulate(groupId, a, plan.inputIndexes[a] < 0 ? Boolean.TRUE : values[plan.inputIndexes[a]], 1);
+            }
+            spillIfFull();
+        }
+
+        void addStateRow(Row stateRow) {
+            table.mergeStateRow(stateRow, plan.groupIndexes.length);
+            spillIfFull();
+        }
+
+        Aggregation merge(Aggregation other) {
+            table.merge(other.table);
+            spills.addAll(other.spills);
+            budget = Math.min(memoryBudget, budget + other.budget);
+            spillIfFull();
+            return this;
+        }
+
+        private void spillIfFull() {
+            if (table.getEstimatedSize() > budget && depth < MAX_DEPTH) {
+                spill();
+            }
+        }
+
+        void spill() {
+            if (files == null) {
+                files = new SpillFile[PARTITIONS_COUNT];
+                for (int p = 0; p < PARTITIONS_COUNT; p++) {
+                    files[p] = new SpillFile(plan.stateColumns, spillDirectory);
+                }
+                spills.add(files);
+            }
+            for (int groupId = 0; groupId < table.getGroupsCount(); groupId++) {
+                files[partitionOf(table.getGroupHash(groupId), depth)].write(table.getStateRow(groupId));
+            }
+            table.clear();
+        }
+    }
+}
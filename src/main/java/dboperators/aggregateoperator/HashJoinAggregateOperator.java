@@ -0,0 +1,189 @@
+package dboperators.aggregateoperator;
+
+import dboperators.Column;
+import dboperators.Columns;
+import dboperators.Hashing;
+import dboperators.ProjectionPlan;
+import dboperators.RelationMetadata;
+import dboperators.Row;
+import dboperators.joinoperator.OpenAddressingIndex;
+import dboperators.joinoperator.Relation;
+import dboperators.streamjoinoperator.StreamRelation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Natural join of two relations fused with the hash aggregation of its output, so the joined rows are never created. <br/>
+ * Like {@link dboperators.streamjoinoperator.SingleHashStreamJoinOperator} it indexes the second relation, here in an {@link OpenAddressingIndex},
+ * and probes it with the rows of the first one, but every match is accumulated directly from the probe row and the build row
+ * into the primitive states of a {@link GroupTable}, one partial table per thread when the first relation is parallel. <br/>
+ * When all the group columns and the aggregated columns of a probe row come from the first relation, the group is looked up once per probe row
+ * and the aggregates are accumulated once with the number of its matches, so a high fan-out costs only the walk of the matched rows. <br/>
+ * The groups must fit in memory, use {@link HashAggregateOperator} on the join output otherwise. <br/>
+ * Runtime complexity O(N1*b+N2) where b is the number of matches of a probe row <br/>
+ * Memory complexity O(N2+G) where G is the number of groups <br/>
+ */
+public class HashJoinAggregateOperator {
+
+    /**
+     * @return the relation of the group columns followed by the output columns of the aggregates
+     * of the natural join of the two relations
+     */
+    public StreamRelation aggregate(StreamRelation rel1, StreamRelation rel2, ArrayList<Column> groupColumns, List<Aggregate> aggregates) {
+        Objects.requireNonNull(rel1);
+        Objects.requireNonNull(rel2);
+        Objects.requireNonNull(groupColumns);
+        Objects.requireNonNull(aggregates);
+
+        // without common column every probe row matches all the rows, like in a Cartesian product
+        final ArrayList<Column> commonColumns = Columns.intersection(rel1.getColumns(), rel2.getColumns());
+        final FusionPlan plan = new FusionPlan(rel1, rel2, commonColumns, groupColumns, aggregates);
+        final ArrayList<Column> outRelColumns = new ArrayList<>(groupColumns);
+        aggregates.forEach(aggregate -> outRelColumns.add(aggregate.getOutputColumn()));
+
+        // the relations are read only when the output stream is consumed
+        final Stream<Row> outRows = Stream.of(rel2)
+                .flatMap(r2 -> {
+                    final Relation relation2 = new Relation(r2.getColumns(), r2.getRows().collect(Collectors.toList()));
+                    final OpenAddressingIndex index2 = new OpenAddressingIndex(relation2, commonColumns);
+                    final GroupTable table;
+                    try (Stream<Row> rows1 = rel1.getRows()) {
+                        table = index2.getRowsCount() == 0
+                                ? new GroupTable(aggregates)
+                                : rows1.collect(Collector.of(
+                                        () -> new FusedProbe(plan, index2),
+                                        FusedProbe::probe,
+                                        FusedProbe::merge)).table;
+                    }
+                    if (groupColumns.isEmpty() && table.getGroupsCount() == 0) {
+                        table.findOrAddGroup(Hashing.hash(new Object[0]), new Object[0], new int[0]);
+                    }
+                    return IntStream.range(0, table.getGroupsCount())
+                            .mapToObj(groupId -> table.getResultRow(groupId, aggregates));
+                });
+        return new StreamRelation(outRelColumns, outRows);
+    }
+
+    /**
+     * The positions of the key columns, of the group columns and of the aggregate input columns in the rows of their relation, resolved once.
+     * The common columns are read from the probe rows.
+     */
+    private static class FusionPlan {
+        final List<Aggregate> aggregates;
+        final int[] keyIndexes1;
+        final boolean[] groupFromBuild;
+        final int[] groupIndexes;
+        final int[] identityIndexes;
+        final boolean[] inputFromBuild;
+        // the positions of the input columns, -1 for COUNT(*)
+        final int[] inputIndexes;
+        final boolean groupsFromProbe;
+
+        FusionPlan(StreamRelation rel1, StreamRelation rel2, ArrayList<Column> commonColumns,
+                   ArrayList<Column> groupColumns, List<Aggregate> aggregates) {
+            this.aggregates = aggregates;
+            this.keyIndexes1 = ProjectionPlan.of(rel1, new RelationMetadata(commonColumns)).getIndexes();
+            this.groupFromBuild = new boolean[groupColumns.size()];
+            this.groupIndexes = new int[groupColumns.size()];
+            this.identityIndexes = IntStream.range(0, groupColumns.size()).toArray();
+            for (int i = 0; i < groupColumns.size(); i++) {
+                groupFromBuild[i] = !rel1.getColumnIndexMap().containsKey(groupColumns.get(i));
+                groupIndexes[i] = indexOf(groupFromBuild[i] ? rel2 : rel1, groupColumns.get(i));
+            }
+            this.inputFromBuild = new boolean[aggregates.size()];
+            this.inputIndexes = new int[aggregates.size()];
+            for (int a = 0; a < aggregates.size(); a++) {
+                final Column inputColumn = aggregates.get(a).getInputColumn();
+                inputFromBuild[a] = inputColumn != null && !rel1.getColumnIndexMap().containsKey(inputColumn);
+                inputIndexes[a] = inputColumn == null ? -1 : indexOf(inputFromBuild[a] ? rel2 : rel1, inputColumn);
+            }
+            boolean groupsFromProbe = true;
+            for (boolean fromBuild : groupFromBuild) {
+                groupsFromProbe &= !fromBuild;
+            }
+            this.groupsFromProbe = groupsFromProbe;
+        }
+
+        private static int indexOf(RelationMetadata relation, Column column) {
+            final Integer index = relation.getColumnIndexMap().get(column);
+            if (index == null) {
+                throw new IllegalStateException("Group and aggregate columns cannot be found in the relations set of columns!");
+            }
+            return index;
+        }
+    }
+
+    /**
+     * The partial aggregation of the matches of the probe rows read by one thread.
+     */
+    private static class FusedProbe {
+        final FusionPlan plan;
+        final OpenAddressingIndex index2;
+        final GroupTable table;
+        // the group values of a match, reused between the matches
+        final Object[] groupValues;
+
+        FusedProbe(FusionPlan plan, OpenAddressingIndex index2) {
+            this.plan = plan;
+            this.index2 = index2;
+            this.table = new GroupTable(plan.aggregates);
+            this.groupValues = new Object[plan.groupIndexes.length];
+        }
+
+        void probe(Row row1) {
+            final Object[] values1 = row1.getValues();
+            final int firstRowId = index2.firstRowId(Hashing.hash(values1, plan.keyIndexes1), values1, plan.keyIndexes1);
+            if (firstRowId == -1) {
+                return;
+            }
+
+            if (plan.groupsFromProbe) {
+                // one group for all the matches
+                final int groupId = table.findOrAddGroup(Hashing.hash(values1, plan.groupIndexes), values1, plan.groupIndexes);
+                long matchesCount = 0;
+                for (int rowId = firstRowId; rowId != -1; rowId = index2.nextRowId(rowId)) {
+                    matchesCount++;
+                    accumulate(groupId, values1, index2.getRow(rowId).getValues(), true);
+                }
+                for (int a = 0; a < plan.inputIndexes.length; a++) {
+                    if (!plan.inputFromBuild[a]) {
+                        table.accumulate(groupId, a, plan.inputIndexes[a] < 0 ? Boolean.TRUE : values1[plan.inputIndexes[a]], matchesCount);
+                    }
+                }
+            } else {
+                for (int rowId = firstRowId; rowId != -1; rowId = index2.nextRowId(rowId)) {
+                    final Object[] values2 = index2.getRow(rowId).getValues();
+                    for (int i = 0; i < groupValues.length; i++) {
+                        groupValues[i] = plan.groupFromBuild[i] ? values2[plan.groupIndexes[i]] : values1[plan.groupIndexes[i]];
+                    }
+                    final int groupId = table.findOrAddGroup(Hashing.hash(groupValues), groupValues, plan.identityIndexes);
+                    accumulate(groupId, values1, values2, false);
+                }
+            }
+        }
+
+        /**
+         * Accumulates the input values of one match, only the ones of the build row or all of them.
+         */
+        private void accumulate(int groupId, Object[] values1, Object[] values2, boolean onlyFromBuild) {
+            for (int a = 0; a < plan.inputIndexes.length; a++) {
+                if (plan.inputFromBuild[a]) {
+                    table.accumulate(groupId, a, values2[plan.inputIndexes[a]], 1);
+                } else if (!onlyFromBuild) {
+                    table.accumulate(groupId, a, plan.inputIndexes[a] < 0 ? Boolean.TRUE : values1[plan.inputIndexes[a]], 1);
+                }
+            }
+        }
+
+        FusedProbe merge(FusedProbe other) {
+            table.merge(other.table);
+            return this;
+        }
+    }
+}
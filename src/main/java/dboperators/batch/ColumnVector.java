@@ -0,0 +1,105 @@
+package dboperators.batch;
+
+import dboperators.ColumnType;
+
+import java.util.Arrays;
+
+/**
+ * A growable vector holding the values of one column of a {@link RowBatch}.<br/>
+ * The values are stored in primitive arrays specialized by {@link ColumnType}, so adding and copying values
+ * between vectors of the same type does not allocate any object per row. <br/>
+ * Null values are tracked separately in a null mask.
+ */
+public abstract class ColumnVector {
+    protected int size;
+    protected boolean[] nulls;
+
+    protected ColumnVector(int capacity) {
+        this.nulls = new boolean[capacity];
+    }
+
+    public static ColumnVector of(ColumnType type, int capacity) {
+        switch (type) {
+            case INTEGER:
+                return new IntColumnVector(capacity);
+            case LONG:
+                return new LongColumnVector(capacity);
+            case DOUBLE:
+                return new DoubleColumnVector(capacity);
+            case VARCHAR:
+                return new VarcharColumnVector(capacity);
+            default:
+                throw new IllegalArgumentException("Unsupported column type: " + type);
+        }
+    }
+
+    public abstract ColumnType getType();
+
+    /**
+     * @return the boxed value at the given position or null
+     */
+    public abstract Object get(int row);
+
+    /**
+     * Appends a boxed value, which is unboxed in the underlying primitive array.
+     */
+    public abstract void add(Object value);
+
+    /**
+     * Appends the value found at the given position of another vector of the same type without boxing it.
+     */
+    public abstract void addFrom(ColumnVector vector, int row);
+
+    /**
+     * @return the hash of the value at the given position, the same as {@link dboperators.Hashing#hash(Object)} of the boxed value,
+     * without boxing it
+     */
+    public abstract long hash(int row);
+
+    /**
+     * @return whether the value at the given position equals the given value, see {@link dboperators.JoinKey#valueEquals},
+     * without boxing it
+     */
+    public abstract boolean valueEquals(int row, Object value);
+
+    public boolean isNull(int row) {
+        return nulls[row];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return nulls.length;
+    }
+
+    public void clear() {
+        Arrays.fill(nulls, 0, size, false);
+        size = 0;
+    }
+
+    protected void addNull() {
+        ensureCapacity(size + 1);
+        nulls[size++] = true;
+    }
+
+    protected void ensureCapacity(int minCapacity) {
+        if (minCapacity > nulls.length) {
+            final int newCapacity = Math.max(minCapacity, nulls.length + (nulls.length >> 1) + 1);
+            nulls = Arrays.copyOf(nulls, newCapacity);
+            grow(newCapacity);
+        }
+    }
+
+    /**
+     * Grows the underlying values array to the new capacity.
+     */
+    protected abstract void grow(int newCapacity);
+
+    protected void checkType(ColumnVector vector) {
+        if (vector.getType() != getType()) {
+            throw new IllegalArgumentException("Cannot copy a " + vector.getType() + " value into a " + getType() + " vector");
+        }
+    }
+}
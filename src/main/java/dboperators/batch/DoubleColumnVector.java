@@ -0,0 +1,70 @@
+package dboperators.batch;
+
+import dboperators.ColumnType;
+
+import java.util.Arrays;
+
+public class DoubleColumnVector extends ColumnVector {
+    private double[] values;
+
+    public DoubleColumnVector(int capacity) {
+        super(capacity);
+        this.values = new double[capacity];
+    }
+
+    @Override
+    public ColumnType getType() {
+        return ColumnType.DOUBLE;
+    }
+
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    public void addDouble(double value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+    }
+
+    @Override
+    public Object get(int row) {
+        return nulls[row] ? null : values[row];
+    }
+
+    @Override
+    public void add(Object value) {
+        if (value == null) {
+            addNull();
+        } else {
+            addDouble(((Number) value).doubleValue());
+        }
+    }
+
+    @Override
+    public void addFrom(ColumnVector vector, int row) {
+        checkType(vector);
+        if (vector.isNull(row)) {
+            addNull();
+        } else {
+            addDouble(((DoubleColumnVector) vector).values[row]);
+        }
+    }
+
+    @Override
+    public long hash(int row) {
+        return nulls[row] ? 0 : Double.hashCode(values[row]);
+    }
+
+    @Override
+    public boolean valueEquals(int row, Object value) {
+        if (nulls[row]) {
+            return value == null;
+        }
+        return value instanceof Double && Double.doubleToLongBits((Double) value) == Double.doubleToLongBits(values[row]);
+    }
+
+    @Override
+    protected void grow(int newCapacity) {
+        values = Arrays.copyOf(values, newCapacity);
+    }
+}
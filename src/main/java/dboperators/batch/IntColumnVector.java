@@ -0,0 +1,74 @@
+package dboperators.batch;
+
+import dboperators.ColumnType;
+
+import java.util.Arrays;
+
+public class IntColumnVector extends ColumnVector {
+    private int[] values;
+
+    public IntColumnVector(int capacity) {
+        super(capacity);
+        this.values = new int[capacity];
+    }
+
+    @Override
+    public ColumnType getType() {
+        return ColumnType.INTEGER;
+    }
+
+    public int getInt(int row) {
+        return values[row];
+    }
+
+    public void addInt(int value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+    }
+
+    @Override
+    public Object get(int row) {
+        return nulls[row] ? null : values[row];
+    }
+
+    @Override
+    public void add(Object value) {
+        if (value == null) {
+            addNull();
+        } else {
+            final long longValue = ((Number) value).longValue();
+            if (longValue != (int) longValue) {
+                throw new IllegalArgumentException("The value does not fit in an INTEGER vector: " + value);
+            }
+            addInt((int) longValue);
+        }
+    }
+
+    @Override
+    public void addFrom(ColumnVector vector, int row) {
+        checkType(vector);
+        if (vector.isNull(row)) {
+            addNull();
+        } else {
+            addInt(((IntColumnVector) vector).values[row]);
+        }
+    }
+
+    @Override
+    public long hash(int row) {
+        return nulls[row] ? 0 : values[row];
+    }
+
+    @Override
+    public boolean valueEquals(int row, Object value) {
+        if (nulls[row]) {
+            return value == null;
+        }
+        return (value instanceof Long || value instanceof Integer) && ((Number) value).longValue() == values[row];
+    }
+
+    @Override
+    protected void grow(int newCapacity) {
+        values = Arrays.copyOf(values, newCapacity);
+    }
+}
@@ -0,0 +1,70 @@
+package dboperators.batch;
+
+import dboperators.ColumnType;
+
+import java.util.Arrays;
+
+public class LongColumnVector extends ColumnVector {
+    private long[] values;
+
+    public LongColumnVector(int capacity) {
+        super(capacity);
+        this.values = new long[capacity];
+    }
+
+    @Override
+    public ColumnType getType() {
+        return ColumnType.LONG;
+    }
+
+    public long getLong(int row) {
+        return values[row];
+    }
+
+    public void addLong(long value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+    }
+
+    @Override
+    public Object get(int row) {
+        return nulls[row] ? null : values[row];
+    }
+
+    @Override
+    public void add(Object value) {
+        if (value == null) {
+            addNull();
+        } else {
+            addLong(((Number) value).longValue());
+        }
+    }
+
+    @Override
+    public void addFrom(ColumnVector vector, int row) {
+        checkType(vector);
+        if (vector.isNull(row)) {
+            addNull();
+        } else {
+            addLong(((LongColumnVector) vector).values[row]);
+        }
+    }
+
+    @Override
+    public long hash(int row) {
+        return nulls[row] ? 0 : values[row];
+    }
+
+    @Override
+    public boolean valueEquals(int row, Object value) {
+        if (nulls[row]) {
+            return value == null;
+        }
+        return (value instanceof Long || value instanceof Integer) && ((Number) value).longValue() == values[row];
+    }
+
+    @Override
+    protected void grow(int newCapacity) {
+        values = Arrays.copyOf(values, newCapacity);
+    }
+}
@@ -0,0 +1,127 @@
+package dboperators.batch;
+
+import dboperators.Column;
+import dboperators.MergePlan;
+import dboperators.ProjectionPlan;
+import dboperators.RelationMetadata;
+import dboperators.Row;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Columnar representation of a batch of rows: one {@link ColumnVector} per column,
+ * specialized by the column type. <br/>
+ * A batch can be cleared and refilled, so that operators processing rows batch by batch
+ * can reuse the same vectors instead of allocating one {@link Row} per row.
+ */
+public class RowBatch extends RelationMetadata {
+    public static final int DEFAULT_CAPACITY = 1 << 12;
+
+    private final ColumnVector[] vectors;
+
+    public RowBatch(ArrayList<Column> columns) {
+        this(columns, DEFAULT_CAPACITY);
+    }
+
+    public RowBatch(ArrayList<Column> columns, int capacity) {
+        super(columns);
+        this.vectors = new ColumnVector[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            vectors[i] = ColumnVector.of(columns.get(i).getType(), capacity);
+        }
+    }
+
+    private RowBatch(ArrayList<Column> columns, ColumnVector[] vectors) {
+        super(columns);
+        this.vectors = vectors;
+    }
+
+    public static RowBatch fromRows(ArrayList<Column> columns, List<Row> rows) {
+        final RowBatch batch = new RowBatch(columns, Math.max(rows.size(), 1));
+        for (Row row : rows) {
+            batch.addRow(row);
+        }
+        return batch;
+    }
+
+    public ColumnVector getVector(int column) {
+        return vectors[column];
+    }
+
+    public int size() {
+        return vectors.length == 0 ? 0 : vectors[0].size();
+    }
+
+    public boolean isFull() {
+        return vectors.length > 0 && vectors[0].size() >= vectors[0].capacity();
+    }
+
+    public void clear() {
+        for (ColumnVector vector : vectors) {
+            vector.clear();
+        }
+    }
+
+    /**
+     * @return a batch of the projected columns sharing the vectors of this batch, so no value is copied
+     */
+    public RowBatch project(ProjectionPlan plan) {
+        final int[] indexes = plan.getIndexes();
+        final ColumnVector[] projectedVectors = new ColumnVector[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            projectedVectors[i] = vectors[indexes[i]];
+        }
+        return new RowBatch(plan.getColumns(), projectedVectors);
+    }
+
+    public Object getValue(int column, int row) {
+        return vectors[column].get(row);
+    }
+
+    public void addRow(Row row) {
+        final Object[] values = row.getValues();
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i].add(values[i]);
+        }
+    }
+
+    /**
+     * Appends the merge of two rows without creating the merged row, see {@link MergePlan#merge(Row, Row)}.
+     */
+    public void addMergedRow(MergePlan mergePlan, Row row1, Row row2) {
+        final Object[] values1 = row1.getValues();
+        final Object[] values2 = row2.getValues();
+        final int[] indexes1 = mergePlan.getIndexes1();
+        final int[] indexes2 = mergePlan.getIndexes2();
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i].add(indexes1[i] >= 0 ? values1[indexes1[i]] : values2[indexes2[i]]);
+        }
+    }
+
+    public Row getRow(int row) {
+        final Object[] values = new Object[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            values[i] = vectors[i].get(row);
+        }
+        return new Row(values);
+    }
+
+    public List<Row> toRows() {
+        final int size = size();
+        final ArrayList<Row> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(getRow(i));
+        }
+        return rows;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", RowBatch.class.getSimpleName() + "[", "]")
+                .add("columns=" + columns)
+                .add("size=" + size())
+                .toString();
+    }
+}
@@ -0,0 +1,140 @@
+package dboperators.batch;
+
+import dboperators.ColumnType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary encoded vector of strings: every distinct string is stored once in a {@link Dictionary}
+ * and the vector itself only keeps the int codes of the values. <br/>
+ * Vectors sharing the same dictionary copy values between them by copying the codes. <br/>
+ * Clearing a vector clears its own dictionary too, so a vector refilled batch after batch keeps only the strings of its current values.
+ * A dictionary shared with other vectors is kept, their codes still refer to it.
+ */
+public class VarcharColumnVector extends ColumnVector {
+    private int[] codes;
+    private final Dictionary dictionary;
+
+    public VarcharColumnVector(int capacity) {
+        super(capacity);
+        this.codes = new int[capacity];
+        this.dictionary = new Dictionary();
+    }
+
+    /**
+     * @param dictionary the dictionary of the values, shared with other vectors, so it is never cleared any more
+     */
+    public VarcharColumnVector(int capacity, Dictionary dictionary) {
+        super(capacity);
+        this.codes = new int[capacity];
+        this.dictionary = dictionary;
+        dictionary.shared = true;
+    }
+
+    @Override
+    public ColumnType getType() {
+        return ColumnType.VARCHAR;
+    }
+
+    public Dictionary getDictionary() {
+        return dictionary;
+    }
+
+    public int getCode(int row) {
+        return codes[row];
+    }
+
+    public void addCode(int code) {
+        ensureCapacity(size + 1);
+        codes[size++] = code;
+    }
+
+    @Override
+    public Object get(int row) {
+        return nulls[row] ? null : dictionary.getValue(codes[row]);
+    }
+
+    @Override
+    public void add(Object value) {
+        if (value == null) {
+            addNull();
+        } else {
+            addCode(dictionary.encode((String) value));
+        }
+    }
+
+    @Override
+    public void addFrom(ColumnVector vector, int row) {
+        checkType(vector);
+        final VarcharColumnVector varcharVector = (VarcharColumnVector) vector;
+        if (varcharVector.isNull(row)) {
+            addNull();
+        } else if (varcharVector.dictionary == dictionary) {
+            addCode(varcharVector.codes[row]);
+        } else {
+            addCode(dictionary.encode(varcharVector.dictionary.getValue(varcharVector.codes[row])));
+        }
+    }
+
+    @Override
+    public long hash(int row) {
+        return nulls[row] ? 0 : dictionary.getValue(codes[row]).hashCode();
+    }
+
+    @Override
+    public boolean valueEquals(int row, Object value) {
+        if (nulls[row]) {
+            return value == null;
+        }
+        return dictionary.getValue(codes[row]).equals(value);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        if (!dictionary.shared) {
+            dictionary.clear();
+        }
+    }
+
+    @Override
+    protected void grow(int newCapacity) {
+        codes = Arrays.copyOf(codes, newCapacity);
+    }
+
+    /**
+     * Maps strings to dense int codes and back. It can be shared by the vectors of the same column.
+     */
+    public static class Dictionary {
+        private final ArrayList<String> values = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+        // whether vectors other than the one creating it use it
+        private boolean shared;
+
+        public int encode(String value) {
+            final Integer code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            values.add(value);
+            codes.put(value, values.size() - 1);
+            return values.size() - 1;
+        }
+
+        public String getValue(int code) {
+            return values.get(code);
+        }
+
+        public int size() {
+            return values.size();
+        }
+
+        void clear() {
+            values.clear();
+            codes.clear();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package dboperators.columnarfile;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Row;
+import dboperators.joinoperator.Relation;
+import dboperators.streamjoinoperator.StreamRelation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Read only columnar file written by a {@link ColumnarFileWriter}, memory mapped through {@link FileChannel#map}. <br/>
+ * The file is made of row groups of at most {@link #ROW_GROUP_SIZE} rows, every one mapped separately,
+ * so the file can be larger than a single mapping. Within a row group every column is stored contiguously:
+ * a null bitmap, then the INTEGER, LONG or DOUBLE values or the int codes of the VARCHAR values with the dictionary of the row group. <br/>
+ * The values are read in place from the mapped buffers by the {@link RowGroup}s, the rows being created only when they are streamed,
+ * and the row groups are streamed independently, so a parallel stream splits the file by row groups. <br/>
+ * I/O errors are reported as {@link UncheckedIOException}s.
+ */
+public class ColumnarFile {
+    static final int MAGIC = 0x44424346;
+    static final int VERSION = 1;
+    public static final int ROW_GROUP_SIZE = 1 << 16;
+
+    private final ArrayList<Column> columns;
+    private final MappedByteBuffer[] rowGroupBuffers;
+    private final int[] rowGroupSizes;
+    private final int[][] columnOffsets;
+    private final long rowsCount;
+
+    private ColumnarFile(ArrayList<Column> columns, MappedByteBuffer[] rowGroupBuffers, int[] rowGroupSizes, int[][] columnOffsets) {
+        this.columns = columns;
+        this.rowGroupBuffers = rowGroupBuffers;
+        this.rowGroupSizes = rowGroupSizes;
+        this.columnOffsets = columnOffsets;
+        this.rowsCount = IntStream.of(rowGroupSizes).asLongStream().sum();
+    }
+
+    /**
+     * Maps all the row groups of the file. The mappings stay valid after the file channel is closed.
+     */
+    public static ColumnarFile open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer trailer = read(channel, channel.size() - Long.BYTES - Integer.BYTES, Long.BYTES + Integer.BYTES);
+            final long footerPosition = trailer.getLong();
+            checkMagic(trailer.getInt(), path);
+
+            final ByteBuffer header = read(channel, 0, (int) Math.min(footerPosition, 1 << 16));
+            checkMagic(header.getInt(), path);
+            if (header.getInt() != VERSION) {
+                throw new IllegalStateException("Unsupported columnar file version: " + path);
+            }
+            final int columnsCount = header.getInt();
+            final ArrayList<Column> columns = new ArrayList<>(columnsCount);
+            for (int c = 0; c < columnsCount; c++) {
+                final byte[] name = new byte[header.getInt()];
+                header.get(name);
+                columns.add(new Column(new String(name, StandardCharsets.UTF_8), ColumnType.values()[header.get()]));
+            }
+
+            final ByteBuffer footer = read(channel, footerPosition, (int) (channel.size() - footerPosition));
+            final int rowGroupsCount = footer.getInt();
+            final MappedByteBuffer[] rowGroupBuffers = new MappedByteBuffer[rowGroupsCount];
+            final int[] rowGroupSizes = new int[rowGroupsCount];
+            final int[][] columnOffsets = new int[rowGroupsCount][columnsCount];
+            for (int g = 0; g < rowGroupsCount; g++) {
+                rowGroupSizes[g] = footer.getInt();
+                final long position = footer.getLong();
+                final long size = footer.getLong();
+                for (int c = 0; c < columnsCount; c++) {
+                    columnOffsets[g][c] = footer.getInt();
+                }
+                rowGroupBuffers[g] = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            }
+            return new ColumnarFile(columns, rowGroupBuffers, rowGroupSizes, columnOffsets);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int size) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IllegalStateException("Truncated columnar file");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void checkMagic(int magic, Path path) {
+        if (magic != MAGIC) {
+            throw new IllegalStateException("Not a columnar file: " + path);
+        }
+    }
+
+    static int nullWordsCount(int rowsCount) {
+        return (rowsCount + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    public ArrayList<Column> getColumns() {
+        return columns;
+    }
+
+    public long getRowsCount() {
+        return rowsCount;
+    }
+
+    public int getRowGroupsCount() {
+        return rowGroupBuffers.length;
+    }
+
+    public RowGroup getRowGroup(int rowGroup) {
+        return new RowGroup(rowGroupBuffers[rowGroup].duplicate(), rowGroupSizes[rowGroup], columnOffsets[rowGroup]);
+    }
+
+    /**
+     * @return the relation of all the rows, with their exact count as estimated rows count
+     */
+    public StreamRelation toStreamRelation() {
+        final Stream<Row> rows = IntStream.range(0, getRowGroupsCount()).boxed()
+                .flatMap(g -> getRowGroup(g).getRows());
+        final StreamRelation rel = new StreamRelation(columns, rows);
+        rel.setEstimatedRowsCount(Optional.of(rowsCount));
+        return rel;
+    }
+
+    public Relation toRelation() {
+        return new Relation(columns, toStreamRelation().getRows().collect(Collectors.toList()));
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", ColumnarFile.class.getSimpleName() + "[", "]")
+                .add("columns=" + columns)
+                .add("rowsCount=" + rowsCount)
+                .add("rowGroupsCount=" + getRowGroupsCount())
+                .toString();
+    }
+
+    /**
+     * The columns of one row group, read in place from the mapped buffer. Not thread safe, every thread should get its own row group.
+     */
+    public class RowGroup {
+        private final ByteBuffer buffer;
+        private final int size;
+        // the positions in the buffer of the null bitmaps and of the values of every column
+        private final int[] nullsOffsets;
+        private final int[] valuesOffsets;
+        // the decoded dictionaries of the VARCHAR columns
+        private final String[][] dictionaries;
+
+        private RowGroup(ByteBuffer buffer, int size, int[] columnOffsets) {
+            this.buffer = buffer;
+            this.size = size;
+            this.nullsOffsets = columnOffsets;
+            this.valuesOffsets = new int[columns.size()];
+            this.dictionaries = new String[columns.size()][];
+            for (int c = 0; c < columns.size(); c++) {
+                int offset = columnOffsets[c] + nullWordsCount(size) * Long.BYTES;
+                if (columns.get(c).getType() == ColumnType.VARCHAR) {
+                    final String[] dictionary = new String[buffer.getInt(offset)];
+                    offset += Integer.BYTES;
+                    for (int code = 0; code < dictionary.length; code++) {
+                        final byte[] bytes = new byte[buffer.getInt(offset)];
+                        buffer.position(offset + Integer.BYTES);
+                        buffer.get(bytes);
+                        dictionary[code] = new String(bytes, StandardCharsets.UTF_8);
+                        offset += Integer.BYTES + bytes.length;
+                    }
+                    dictionaries[c] = dictionary;
+                }
+                valuesOffsets[c] = offset;
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isNull(int column, int row) {
+            return (buffer.getLong(nullsOffsets[column] + (row >>> 6) * Long.BYTES) & (1L << row)) != 0;
+        }
+
+        public int getInt(int column, int row) {
+            return buffer.getInt(valuesOffsets[column] + row * Integer.BYTES);
+        }
+
+        public long getLong(int column, int row) {
+            return buffer.getLong(valuesOffsets[column] + row * Long.BYTES);
+        }
+
+        public double getDouble(int column, int row) {
+            return buffer.getDouble(valuesOffsets[column] + row * Double.BYTES);
+        }
+
+        /**
+         * @return the dictionary code of a VARCHAR value, equal codes of the same row group having equal values
+         */
+        public int getCode(int column, int row) {
+            return buffer.getInt(valuesOffsets[column] + row * Integer.BYTES);
+        }
+
+        public String getString(int column, int row) {
+            return dictionaries[column][getCode(column, row)];
+        }
+
+        /**
+         * @return the boxed value or null
+         */
+        public Object get(int column, int row) {
+            if (isNull(column, row)) {
+                return null;
+            }
+            switch (columns.get(column).getType()) {
+                case INTEGER:
+                    return getInt(column, row);
+                case LONG:
+                    return getLong(column, row);
+                case DOUBLE:
+                    return getDouble(column, row);
+                default:
+                    return getString(column, row);
+            }
+        }
+
+        public Row getRow(int row) {
+            final Object[] values = new Object[columns.size()];
+            for (int c = 0; c < values.length; c++) {
+                values[c] = get(c, row);
+            }
+            return new Row(values);
+        }
+
+        public Stream<Row> getRows() {
+            return IntStream.range(0, size).mapToObj(this::getRow);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package dboperators.columnarfile;
+
+import dboperators.Column;
+import dboperators.Row;
+import dboperators.batch.ColumnVector;
+import dboperators.batch.DoubleColumnVector;
+import dboperators.batch.IntColumnVector;
+import dboperators.batch.LongColumnVector;
+import dboperators.batch.RowBatch;
+import dboperators.batch.VarcharColumnVector;
+import dboperators.streamjoinoperator.StreamRelation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Writes the rows of a relation into a columnar file read by {@link ColumnarFile}. <br/>
+ * The rows are buffered into a {@link RowBatch} of at most {@link ColumnarFile#ROW_GROUP_SIZE} rows, then written as one row group,
+ * column after column: a null bitmap followed by the primitive values, the VARCHAR values being encoded with the dictionary of the batch.
+ * The file ends with a footer of the positions of the row groups and of their columns. <br/>
+ * I/O errors are reported as {@link UncheckedIOException}s.
+ */
+public class ColumnarFileWriter implements Closeable {
+    private final ArrayList<Column> columns;
+    private final int rowGroupSize;
+    private final FileChannel channel;
+    private RowBatch batch;
+    private int rowGroupsCount;
+    private ByteBuffer groupFooters;
+
+    public ColumnarFileWriter(Path path, ArrayList<Column> columns) {
+        this(path, columns, ColumnarFile.ROW_GROUP_SIZE);
+    }
+
+    ColumnarFileWriter(Path path, ArrayList<Column> columns, int rowGroupSize) {
+        this.columns = Objects.requireNonNull(columns);
+        this.rowGroupSize = rowGroupSize;
+        this.batch = new RowBatch(columns, rowGroupSize);
+        this.groupFooters = ByteBuffer.allocate(1 << 10);
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            writeHeader();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes all the rows of the relation into a new file.
+     */
+    public static void write(Path path, StreamRelation rel) {
+        try (ColumnarFileWriter writer = new ColumnarFileWriter(path, rel.getColumns());
+             Stream<Row> rows = rel.getRows()) {
+            rows.sequential().forEach(writer::write);
+        }
+    }
+
+    public void write(Row row) {
+        batch.addRow(row);
+        if (batch.size() >= rowGroupSize) {
+            writeRowGroup();
+        }
+    }
+
+    /**
+     * Writes the buffered rows and the footer.
+     */
+    @Override
+    public void close() {
+        try {
+            if (batch.size() > 0) {
+                writeRowGroup();
+            }
+            final long footerPosition = channel.position();
+            final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + groupFooters.position() + Long.BYTES + Integer.BYTES);
+            buffer.putInt(rowGroupsCount);
+            buffer.put(groupFooters.flip());
+            buffer.putLong(footerPosition);
+            buffer.putInt(ColumnarFile.MAGIC);
+            writeFully(buffer.flip());
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        final ArrayList<byte[]> names = new ArrayList<>();
+        int size = 3 * Integer.BYTES;
+        for (Column column : columns) {
+            final byte[] name = column.getName().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            size += Integer.BYTES + name.length + 1;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(ColumnarFile.MAGIC);
+        buffer.putInt(ColumnarFile.VERSION);
+        buffer.putInt(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            buffer.putInt(names.get(i).length);
+            buffer.put(names.get(i));
+            buffer.put((byte) columns.get(i).getType().ordinal());
+        }
+        writeFully(buffer.flip());
+    }
+
+    private void writeRowGroup() {
+        final int rowsCount = batch.size();
+        final int[] columnOffsets = new int[columns.size()];
+        int size = 0;
+        for (int c = 0; c < columns.size(); c++) {
+            columnOffsets[c] = size;
+            size += columnSize(batch.getVector(c), rowsCount);
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (int c = 0; c < columns.size(); c++) {
+            writeColumn(buffer, batch.getVector(c), rowsCount);
+        }
+        try {
+            final long groupPosition = channel.position();
+            writeFully(buffer.flip());
+
+            final int groupFooterSize = Integer.BYTES + 2 * Long.BYTES + columns.size() * Integer.BYTES;
+            if (groupFooters.remaining() < groupFooterSize) {
+                final ByteBuffer newGroupFooters = ByteBuffer.allocate(Math.max(groupFooters.capacity() * 2, groupFooterSize));
+                groupFooters = newGroupFooters.put(groupFooters.flip());
+            }
+            groupFooters.putInt(rowsCount);
+            groupFooters.putLong(groupPosition);
+            groupFooters.putLong(size);
+            for (int columnOffset : columnOffsets) {
+                groupFooters.putInt(columnOffset);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rowGroupsCount++;
+        // a new batch for a new dictionary per row group
+        batch = new RowBatch(columns, rowGroupSize);
+    }
+
+    private static int columnSize(ColumnVector vector, int rowsCount) {
+        final int nullsSize = ColumnarFile.nullWordsCount(rowsCount) * Long.BYTES;
+        switch (vector.getType()) {
+            case INTEGER:
+                return nullsSize + rowsCount * Integer.BYTES;
+            case LONG:
+                return nullsSize + rowsCount * Long.BYTES;
+            case DOUBLE:
+                return nullsSize + rowsCount * Double.BYTES;
+            case VARCHAR: {
+                final VarcharColumnVector.Dictionary dictionary = ((VarcharColumnVector) vector).getDictionary();
+                int size = nullsSize + Integer.BYTES + rowsCount * Integer.BYTES;
+                for (int code = 0; code < dictionary.size(); code++) {
+                    size += Integer.BYTES + dictionary.getValue(code).getBytes(StandardCharsets.UTF_8).length;
+                }
+                return size;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported column type: " + vector.getType());
+        }
+    }
+
+    private static void writeColumn(ByteBuffer buffer, ColumnVector vector, int rowsCount) {
+        final long[] nullWords = new long[ColumnarFile.nullWordsCount(rowsCount)];
+        for (int row = 0; row < rowsCount; row++) {
+            if (vector.isNull(row)) {
+                nullWords[row >>> 6] |= 1L << row;
+            }
+        }
+        for (long nullWord : nullWords) {
+            buffer.putLong(nullWord);
+        }
+
+        switch (vector.getType()) {
+            case INTEGER:
+                for (int row = 0; row < rowsCount; row++) {
+                    buffer.putInt(vector.isNull(row) ? 0 : ((IntColumnVector) vector).getInt(row));
+                }
+                break;
+            case LONG:
+                for (int row = 0; row < rowsCount; row++) {
+                    buffer.putLong(vector.isNull(row) ? 0 : ((LongColumnVector) vector).getLong(row));
+                }
+                break;
+            case DOUBLE:
+                for (int row = 0; row < rowsCount; row++) {
+                    buffer.putDouble(vector.isNull(row) ? 0 : ((DoubleColumnVector) vector).getDouble(row));
+                }
+                break;
+            default: {
+                final VarcharColumnVector varcharVector = (VarcharColumnVector) vector;
+                final VarcharColumnVector.Dictionary dictionary = varcharVector.getDictionary();
+                buffer.putInt(dictionary.size());
+                for (int code = 0; code < dictionary.size(); code++) {
+                    final byte[] bytes = dictionary.getValue(code).getBytes(StandardCharsets.UTF_8);
+                    buffer.putInt(bytes.length);
+                    buffer.put(bytes);
+                }
+                for (int row = 0; row < rowsCount; row++) {
+                    buffer.putInt(vector.isNull(row) ? 0 : varcharVector.getCode(row));
+                }
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
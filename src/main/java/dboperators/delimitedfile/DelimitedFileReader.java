@@ -0,0 +1,352 @@
+package dboperators.delimitedfile;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Row;
+import dboperators.streamjoinoperator.StreamRelation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a delimited text file, e.g. CSV or TSV, as a stream relation whose rows are parsed while the stream is consumed. <br/>
+ * The file is read through a {@link FileChannel} in large byte chunks and the fields are converted from the bytes directly
+ * into the values of the column types, without creating a string per line or per numeric field. An empty field is a null value,
+ * a field can be quoted with double quotes, doubling the quotes inside it, but it cannot contain a line break. <br/>
+ * The rows stream is backed by a spliterator splitting the byte range of the file at line boundaries,
+ * so a parallel stream parses balanced parts of the file on all the cores. <br/>
+ * I/O errors are reported as {@link UncheckedIOException}s.
+ */
+public class DelimitedFileReader {
+    static final int CHUNK_SIZE = 1 << 20;
+    private static final long MIN_SPLIT_SIZE = 1 << 20;
+    private static final byte QUOTE = '"';
+
+    private final ArrayList<Column> columns;
+    private final byte delimiter;
+    private final boolean withHeader;
+    private final long minSplitSize;
+
+    /**
+     * @param delimiter a single byte delimiter
+     * @param withHeader whether the first line is a header line, which is skipped
+     */
+    public DelimitedFileReader(ArrayList<Column> columns, char delimiter, boolean withHeader) {
+        this(columns, delimiter, withHeader, MIN_SPLIT_SIZE);
+    }
+
+    DelimitedFileReader(ArrayList<Column> columns, char delimiter, boolean withHeader, long minSplitSize) {
+        this.columns = Objects.requireNonNull(columns);
+        if (delimiter > 0x7F || delimiter == QUOTE || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Unsupported delimiter: " + delimiter);
+        }
+        this.delimiter = (byte) delimiter;
+        this.withHeader = withHeader;
+        this.minSplitSize = minSplitSize;
+    }
+
+    public static DelimitedFileReader csv(ArrayList<Column> columns, boolean withHeader) {
+        return new DelimitedFileReader(columns, ',', withHeader);
+    }
+
+    public static DelimitedFileReader tsv(ArrayList<Column> columns, boolean withHeader) {
+        return new DelimitedFileReader(columns, '\t', withHeader);
+    }
+
+    /**
+     * Opens the file, which is closed when the rows stream is closed.
+     */
+    public StreamRelation read(Path path) {
+        try {
+            final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                final long start = withHeader ? nextLineStart(channel, 0, channel.size()) : 0;
+                final Stream<Row> rows = StreamSupport.stream(new LinesSpliterator(channel, start, channel.size()), false)
+                        .onClose(() -> {
+                            try {
+                                channel.close();
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                return new StreamRelation(columns, rows);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the position following the first line break at or after the given position, or the end
+     */
+    private static long nextLineStart(FileChannel channel, long position, long end) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(1 << 12);
+        while (position < end) {
+            buffer.clear();
+            final int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return end;
+    }
+
+    /**
+     * Spliterator of the rows of the lines starting in a byte range of the file, the range starting at a line start
+     * and ending at a line start or at the end of the file.
+     * The file channel is shared by the spliterators, reading at absolute positions.
+     */
+    private class LinesSpliterator implements Spliterator<Row> {
+        private final FileChannel channel;
+        private long start;
+        private final long end;
+        // the next position to read in the file
+        private long filePosition;
+        // the bytes read and not parsed yet are from pos to limit
+        private byte[] bytes;
+        private int pos;
+        private int limit;
+
+        LinesSpliterator(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.filePosition = start;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Row> action) {
+            try {
+                while (true) {
+                    for (int i = pos; i < limit; i++) {
+                        if (bytes[i] == '\n') {
+                            final int lineStart = pos;
+                            pos = i + 1;
+                            if (isBlank(bytes, lineStart, i)) {
+                                continue;
+                            }
+                            action.accept(parseLine(bytes, lineStart, i));
+                            return true;
+                        }
+                    }
+                    if (filePosition >= end) {
+                        // the last line of the file without line break
+                        if (!isBlank(bytes, pos, limit)) {
+                            final int lineStart = pos;
+                            pos = limit;
+                            action.accept(parseLine(bytes, lineStart, limit));
+                            return true;
+                        }
+                        return false;
+                    }
+                    readChunk();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Keeps the bytes of the partial line and appends the next chunk of the range.
+         */
+        private void readChunk() throws IOException {
+            final int partialLength = limit - pos;
+            final int chunkSize = (int) Math.min(CHUNK_SIZE, end - filePosition);
+            if (bytes == null || partialLength + chunkSize > bytes.length) {
+                final byte[] newBytes = new byte[Math.max(partialLength + chunkSize, bytes == null ? 0 : bytes.length)];
+                if (bytes != null) {
+                    System.arraycopy(bytes, pos, newBytes, 0, partialLength);
+                }
+                bytes = newBytes;
+            } else {
+                System.arraycopy(bytes, pos, bytes, 0, partialLength);
+            }
+            pos = 0;
+            limit = partialLength;
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes, limit, chunkSize);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, filePosition + buffer.position() - limit) < 0) {
+                    throw new IllegalStateException("The file has been truncated while read");
+                }
+            }
+            limit += chunkSize;
+            filePosition += chunkSize;
+        }
+
+        /**
+         * Splits the remaining range in two halves at a line start, before any byte is read.
+         */
+        @Override
+        public Spliterator<Row> trySplit() {
+            if (bytes != null || end - start < 2 * minSplitSize) {
+                return null;
+            }
+            try {
+                final long split = nextLineStart(channel, start + (end - start) / 2, end);
+                if (split >= end) {
+                    return null;
+                }
+                final LinesSpliterator prefix = new LinesSpliterator(channel, start, split);
+                start = split;
+                filePosition = split;
+                return prefix;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * @return the remaining bytes, a size that decreases like the remaining rows count
+         */
+        @Override
+        public long estimateSize() {
+            return end - filePosition + limit - pos;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /**
+     * @return true for the empty lines, which are skipped
+     */
+    private static boolean isBlank(byte[] bytes, int from, int to) {
+        return to == from || (to == from + 1 && bytes[from] == '\r');
+    }
+
+    private Row parseLine(byte[] bytes, int from, int to) {
+        if (to > from && bytes[to - 1] == '\r') {
+            to--;
+        }
+        final Object[] values = new Object[columns.size()];
+        int fieldStart = from;
+        for (int c = 0; c < values.length; c++) {
+            if (fieldStart > to) {
+                throw new IllegalStateException("Missing fields in line: " + new String(bytes, from, to - from, StandardCharsets.UTF_8));
+            }
+            int fieldEnd;
+            if (fieldStart < to && bytes[fieldStart] == QUOTE) {
+                // find the closing quote, skipping the doubled quotes
+                fieldEnd = fieldStart + 1;
+                boolean doubledQuotes = false;
+                while (true) {
+                    if (fieldEnd >= to) {
+                        throw new IllegalStateException("Unclosed quote in line: " + new String(bytes, from, to - from, StandardCharsets.UTF_8));
+                    }
+                    if (bytes[fieldEnd] == QUOTE) {
+                        if (fieldEnd + 1 < to && bytes[fieldEnd + 1] == QUOTE) {
+                            doubledQuotes = true;
+                            fieldEnd += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    fieldEnd++;
+                }
+                values[c] = parseQuotedField(columns.get(c).getType(), bytes, fieldStart + 1, fieldEnd, doubledQuotes);
+                fieldEnd++;
+                if (fieldEnd < to && bytes[fieldEnd] != delimiter) {
+                    throw new IllegalStateException("Unexpected character after a quoted field in line: " + new String(bytes, from, to - from, StandardCharsets.UTF_8));
+                }
+            } else {
+                fieldEnd = fieldStart;
+                while (fieldEnd < to && bytes[fieldEnd] != delimiter) {
+                    fieldEnd++;
+                }
+                values[c] = parseField(columns.get(c).getType(), bytes, fieldStart, fieldEnd);
+            }
+            fieldStart = fieldEnd + 1;
+        }
+        if (fieldStart <= to) {
+            throw new IllegalStateException("Too many fields in line: " + new String(bytes, from, to - from, StandardCharsets.UTF_8));
+        }
+        return new Row(values);
+    }
+
+    private static Object parseQuotedField(ColumnType type, byte[] bytes, int from, int to, boolean doubledQuotes) {
+        if (!doubledQuotes) {
+            // a quoted empty string is not null
+            return type == ColumnType.VARCHAR ? new String(bytes, from, to - from, StandardCharsets.UTF_8) : parseField(type, bytes, from, to);
+        }
+        final byte[] unquoted = new byte[to - from];
+        int length = 0;
+        for (int i = from; i < to; i++) {
+            unquoted[length++] = bytes[i];
+            if (bytes[i] == QUOTE) {
+                i++;
+            }
+        }
+        return parseQuotedField(type, Arrays.copyOf(unquoted, length), 0, length, false);
+    }
+
+    private static Object parseField(ColumnType type, byte[] bytes, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+        switch (type) {
+            case INTEGER: {
+                final long value = parseLong(bytes, from, to);
+                if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Invalid INTEGER value: " + new String(bytes, from, to - from, StandardCharsets.UTF_8));
+                }
+                return (int) value;
+            }
+            case LONG:
+                return parseLong(bytes, from, to);
+            case DOUBLE:
+                try {
+                    return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.ISO_8859_1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalStateException("Invalid DOUBLE value: " + new String(bytes, from, to - from, StandardCharsets.UTF_8));
+                }
+            default:
+                return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Parses the decimal digits, accumulated as a negative value so that Long.MIN_VALUE can be parsed too.
+     */
+    private static long parseLong(byte[] bytes, int from, int to) {
+        final boolean negative = bytes[from] == '-';
+        int i = negative || bytes[from] == '+' ? from + 1 : from;
+        if (i == to) {
+            throw new IllegalStateException("Invalid number: " + new String(bytes, from, to - from, StandardCharsets.UTF_8));
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            final int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9 || value < (Long.MIN_VALUE + digit) / 10) {
+                throw new IllegalStateException("Invalid number: " + new String(bytes, from, to - from, StandardCharsets.UTF_8));
+            }
+            value = value * 10 - digit;
+        }
+        if (!negative && value == Long.MIN_VALUE) {
+            throw new IllegalStateException("Invalid number: " + new String(bytes, from, to - from, StandardCharsets.UTF_8));
+        }
+        return negative ? value : -value;
+    }
+}
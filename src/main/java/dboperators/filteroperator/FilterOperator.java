@@ -0,0 +1,69 @@
+package dboperators.filteroperator;
+
+import dboperators.ColumnPredicate;
+import dboperators.FilterPlan;
+import dboperators.batch.ColumnVector;
+import dboperators.batch.RowBatch;
+import dboperators.streamjoinoperator.StreamRelation;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Selection of the rows of a relation matching a conjunction of {@link ColumnPredicate}s. <br/>
+ * The rows of a stream relation are tested with a {@link FilterPlan} resolved once.
+ * The columnar batches are filtered vectorized: every predicate refines a selection vector reading one column vector,
+ * and only then the selected values are copied vector to vector into the output batch, without creating any row. <br/>
+ * The filter keeps the order of the rows. <br/>
+ * Runtime complexity O(N*p) where p is the number of predicates <br/>
+ * Memory complexity O(1) <br/>
+ */
+public class FilterOperator {
+
+    public StreamRelation filter(StreamRelation rel, List<ColumnPredicate> predicates) {
+        Objects.requireNonNull(rel);
+        Objects.requireNonNull(predicates);
+        final FilterPlan plan = FilterPlan.of(rel, predicates);
+        if (plan.isEmpty()) {
+            return rel;
+        }
+
+        final StreamRelation outRel = new StreamRelation(rel.getColumns(), rel.getRows().filter(plan::test));
+        // the estimates of the relation are kept as upper bounds, e.g. for choosing the build side of a join
+        outRel.setEstimatedRowsCount(rel.getEstimatedRowsCount());
+        rel.getColumns().forEach(column -> outRel.setEstimatedDistinctCount(column, rel.getEstimatedDistinctCount(column)));
+        outRel.setSortColumns(rel.getSortColumns());
+        return outRel;
+    }
+
+    public Stream<RowBatch> filterBatches(Stream<RowBatch> batches, List<ColumnPredicate> predicates) {
+        Objects.requireNonNull(batches);
+        Objects.requireNonNull(predicates);
+        return batches.map(batch -> filter(batch, predicates));
+    }
+
+    public RowBatch filter(RowBatch batch, List<ColumnPredicate> predicates) {
+        Objects.requireNonNull(batch);
+        return filter(batch, predicates, new RowBatch(batch.getColumns(), Math.max(batch.size(), 1)));
+    }
+
+    /**
+     * Appends the selected rows of the batch to the output batch, which has the same columns.
+     */
+    public RowBatch filter(RowBatch batch, List<ColumnPredicate> predicates, RowBatch outBatch) {
+        Objects.requireNonNull(batch);
+        Objects.requireNonNull(predicates);
+        Objects.requireNonNull(outBatch);
+        final int[] selection = new int[batch.size()];
+        final int selectedCount = FilterPlan.of(batch, predicates).select(batch, selection);
+        for (int column = 0; column < batch.getColumns().size(); column++) {
+            final ColumnVector vector = batch.getVector(column);
+            final ColumnVector outVector = outBatch.getVector(column);
+            for (int i = 0; i < selectedCount; i++) {
+                outVector.addFrom(vector, selection[i]);
+            }
+        }
+        return outBatch;
+    }
+}
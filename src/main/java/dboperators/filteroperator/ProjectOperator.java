@@ -0,0 +1,62 @@
+package dboperators.filteroperator;
+
+import dboperators.Column;
+import dboperators.ProjectionPlan;
+import dboperators.RelationMetadata;
+import dboperators.batch.RowBatch;
+import dboperators.streamjoinoperator.StreamRelation;
+
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Projection of the rows of a relation onto some of its columns, in the given order. <br/>
+ * The rows of a stream relation are projected with a {@link ProjectionPlan} resolved once.
+ * The columnar batches are projected without copying any value, the projected batch sharing the column vectors of the input batch. <br/>
+ * Runtime complexity O(N*c) for the rows and O(c) per batch, where c is the number of projected columns <br/>
+ * Memory complexity O(1) <br/>
+ */
+public class ProjectOperator {
+
+    public StreamRelation project(StreamRelation rel, ArrayList<Column> columns) {
+        Objects.requireNonNull(rel);
+        Objects.requireNonNull(columns);
+        if (rel.getColumns().equals(columns)) {
+            return rel;
+        }
+        final ProjectionPlan plan = ProjectionPlan.of(rel, new RelationMetadata(columns));
+
+        final StreamRelation outRel = new StreamRelation(columns, rel.getRows().map(plan::project));
+        outRel.setEstimatedRowsCount(rel.getEstimatedRowsCount());
+        columns.forEach(column -> outRel.setEstimatedDistinctCount(column, rel.getEstimatedDistinctCount(column)));
+        // the rows stay sorted by the projected prefix of the sort columns
+        rel.getSortColumns().ifPresent(sortColumns -> {
+            final ArrayList<Column> projectedSortColumns = new ArrayList<>();
+            for (Column sortColumn : sortColumns) {
+                if (!columns.contains(sortColumn)) {
+                    break;
+                }
+                projectedSortColumns.add(sortColumn);
+            }
+            if (!projectedSortColumns.isEmpty()) {
+                outRel.setSortColumns(Optional.of(projectedSortColumns));
+            }
+        });
+        return outRel;
+    }
+
+    public Stream<RowBatch> projectBatches(Stream<RowBatch> batches, ArrayList<Column> columns) {
+        Objects.requireNonNull(batches);
+        Objects.requireNonNull(columns);
+        final RelationMetadata outRelation = new RelationMetadata(columns);
+        return batches.map(batch -> batch.project(ProjectionPlan.of(batch, outRelation)));
+    }
+
+    public RowBatch project(RowBatch batch, ArrayList<Column> columns) {
+        Objects.requireNonNull(batch);
+        Objects.requireNonNull(columns);
+        return batch.project(ProjectionPlan.of(batch, new RelationMetadata(columns)));
+    }
+}
@@ -0,0 +1,66 @@
+package dboperators.joinoperator;
+
+import dboperators.Hashing;
+
+import java.util.StringJoiner;
+
+/**
+ * Bloom filter of 64-bit key hashes, see {@link Hashing}. <br/>
+ * It answers without false negatives whether a key might have been added, so that the probe rows which
+ * certainly have no match can be rejected by hashing their key values in place, before building a key row.
+ * The k bit positions are derived from a single 64-bit hash with double hashing.
+ */
+public class BloomFilter {
+    public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final int MIN_BITS = 1 << 10;
+    private static final int MAX_BITS = 1 << 30;
+
+    private final long[] words;
+    private final int bitsMask;
+    private final int hashesCount;
+
+    public BloomFilter(long expectedKeysCount) {
+        this(expectedKeysCount, DEFAULT_FALSE_POSITIVE_PROBABILITY);
+    }
+
+    public BloomFilter(long expectedKeysCount, double falsePositiveProbability) {
+        final long keysCount = Math.max(expectedKeysCount, 1);
+        final double optimalBits = -keysCount * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2));
+        // a power of two bits count, so that the bit positions are computed with a mask
+        final int bitsCount = (int) Math.min(MAX_BITS, Math.max(MIN_BITS, Long.highestOneBit((long) Math.ceil(optimalBits) - 1) << 1));
+        this.words = new long[bitsCount / Long.SIZE];
+        this.bitsMask = bitsCount - 1;
+        this.hashesCount = (int) Math.max(1, Math.round(-Math.log(falsePositiveProbability) / Math.log(2)));
+    }
+
+    public void add(long keyHash) {
+        final long hash = Hashing.mix64(keyHash);
+        final int hash1 = (int) hash;
+        final int hash2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashesCount; i++) {
+            final int bit = (hash1 + i * hash2) & bitsMask;
+            words[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(long keyHash) {
+        final long hash = Hashing.mix64(keyHash);
+        final int hash1 = (int) hash;
+        final int hash2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashesCount; i++) {
+            final int bit = (hash1 + i * hash2) & bitsMask;
+            if ((words[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", BloomFilter.class.getSimpleName() + "[", "]")
+                .add("bitsCount=" + (bitsMask + 1L))
+                .add("hashesCount=" + hashesCount)
+                .toString();
+    }
+}
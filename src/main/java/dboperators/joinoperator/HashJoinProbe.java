@@ -0,0 +1,142 @@
+package dboperators.joinoperator;
+
+import dboperators.Hashing;
+import dboperators.MergePlan;
+import dboperators.Row;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Probes an {@link OpenAddressingIndex} of the build rows with the probe rows of a join of any {@link JoinType}. <br/>
+ * Either the first or the second relation of the join can be the build side, so the hash operators can still build on the smallest one.
+ * The build rows matched so far are kept in a bit set of row ids, only when the join type needs them at the end,
+ * and {@link #finish} outputs the build rows which are in the output depending on whether they were matched. <br/>
+ * The semi and anti joins output the rows of the first relation as they are and stop at the first match of a probe row.
+ * The probe rows rejected by the Bloom filter of the index, if it has one, are unmatched without looking the index up.
+ * Not thread safe, every partition of a join uses its own probe.
+ */
+public class HashJoinProbe {
+    private static final int NO_ROW = -1;
+
+    private final OpenAddressingIndex buildIndex;
+    private final boolean buildIsFirst;
+    private final int[] probeKeyIndexes;
+    private final MergePlan mergePlan;
+    private final JoinType joinType;
+    private final BloomFilter bloomFilter;
+    private final boolean keepsUnmatchedProbeRows;
+    private final BitSet matchedBuildRows;
+
+    /**
+     * @param buildIsFirst    whether the indexed rows are the rows of the first relation of the join
+     * @param probeKeyIndexes the positions of the indexed columns in the probe rows
+     * @param mergePlan       merges a row of the first relation with a row of the second one, unused by the semi and anti joins
+     */
+    public HashJoinProbe(OpenAddressingIndex buildIndex, boolean buildIsFirst, int[] probeKeyIndexes, MergePlan mergePlan, JoinType joinType) {
+        this.buildIndex = buildIndex;
+        this.buildIsFirst = buildIsFirst;
+        this.probeKeyIndexes = probeKeyIndexes;
+        this.mergePlan = mergePlan;
+        this.joinType = joinType;
+        this.bloomFilter = buildIndex.getBloomFilter().orElse(null);
+        this.keepsUnmatchedProbeRows = buildIsFirst ? joinType.keepsUnmatchedRows2() : joinType.keepsUnmatchedRows1();
+        final boolean keepsUnmatchedBuildRows = buildIsFirst ? joinType.keepsUnmatchedRows1() : joinType.keepsUnmatchedRows2();
+        this.matchedBuildRows = keepsUnmatchedBuildRows || (buildIsFirst && joinType == JoinType.SEMI) ? new BitSet() : null;
+    }
+
+    /**
+     * @return whether the probe rows without match are in the output, so they cannot be skipped
+     */
+    public boolean keepsUnmatchedProbeRows() {
+        return keepsUnmatchedProbeRows;
+    }
+
+    /**
+     * @return whether {@link #finish} can output build rows, even without probe rows
+     */
+    public boolean hasBuildRowsOutput() {
+        return matchedBuildRows != null;
+    }
+
+    public void probe(Row probeRow, Consumer<Row> action) {
+        final Object[] values = probeRow.getValues();
+        final long hash = Hashing.hash(values, probeKeyIndexes);
+        final int firstRowId = bloomFilter != null && !bloomFilter.mightContain(hash)
+                ? NO_ROW
+                : buildIndex.firstRowId(hash, values, probeKeyIndexes);
+
+        if (firstRowId == NO_ROW) {
+            if (keepsUnmatchedProbeRows) {
+                action.accept(unmatched(probeRow, !buildIsFirst));
+            }
+        } else if (joinType.isFiltering()) {
+            if (!buildIsFirst) {
+                if (joinType == JoinType.SEMI) {
+                    action.accept(probeRow);
+                }
+            } else if (!matchedBuildRows.get(firstRowId)) {
+                // all the rows of a key are marked together, so only the first one is checked
+                markMatched(firstRowId);
+            }
+        } else {
+            if (matchedBuildRows != null && !matchedBuildRows.get(firstRowId)) {
+                markMatched(firstRowId);
+            }
+            for (int rowId = firstRowId; rowId != NO_ROW; rowId = buildIndex.nextRowId(rowId)) {
+                final Row buildRow = buildIndex.getRow(rowId);
+                action.accept(buildIsFirst ? mergePlan.merge(buildRow, probeRow) : mergePlan.merge(probeRow, buildRow));
+            }
+        }
+    }
+
+    /**
+     * Outputs the build rows depending on whether they were matched, after all the probe rows were probed.
+     */
+    public void finish(Consumer<Row> action) {
+        if (matchedBuildRows == null) {
+            return;
+        }
+        for (int rowId = 0; rowId < buildIndex.getRowsCount(); rowId++) {
+            final boolean matched = matchedBuildRows.get(rowId);
+            if (joinType == JoinType.SEMI ? matched : !matched) {
+                action.accept(unmatched(buildIndex.getRow(rowId), buildIsFirst));
+            }
+        }
+    }
+
+    /**
+     * @return the lazy stream of the output rows of probing all the given probe rows, followed by the output build rows
+     */
+    public Stream<Row> join(Stream<Row> probeRows) {
+        final Stream<Row> probedRows = probeRows.flatMap(probeRow -> {
+            final ArrayList<Row> outRows = new ArrayList<>();
+            probe(probeRow, outRows::add);
+            return outRows.stream();
+        });
+        final Stream<Row> buildRows = Stream.of(this).flatMap(probe -> {
+            final ArrayList<Row> outRows = new ArrayList<>();
+            probe.finish(outRows::add);
+            return outRows.stream();
+        });
+        return Stream.concat(probedRows, buildRows);
+    }
+
+    private void markMatched(int firstRowId) {
+        for (int rowId = firstRowId; rowId != NO_ROW; rowId = buildIndex.nextRowId(rowId)) {
+            matchedBuildRows.set(rowId);
+        }
+    }
+
+    /**
+     * @return the output row of a row without match, or of a matched row of a semi join
+     */
+    private Row unmatched(Row row, boolean isFirst) {
+        if (joinType.isFiltering()) {
+            return row;
+        }
+        return isFirst ? mergePlan.mergeUnmatched1(row) : mergePlan.mergeUnmatched2(row);
+    }
+}
@@ -0,0 +1,126 @@
+package dboperators.joinoperator;
+
+import dboperators.Column;
+import dboperators.JoinKey;
+import dboperators.Row;
+import dboperators.batch.RowBatch;
+import dboperators.streamjoinoperator.StreamRelation;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A hash index of the rows of a relation on a subset of its columns.
+ */
+public interface IIndex {
+    Relation getRelation();
+
+    /**
+     * @return the indexed columns
+     */
+    ArrayList<Column> getColumns();
+
+    void addIndexRow(Row relationRow);
+
+    /**
+     * Calls the action for every indexed row having the given key values.
+     * @param key the values of the indexed columns, in the order of {@link #getColumns()}
+     */
+    void forEachRow(Row key, Consumer<Row> action);
+
+    boolean contains(Row key);
+
+    /**
+     * Same as {@link #forEachRow(Row, Consumer)} with a key of cached hash,
+     * which the indexes override to look it up without building a key row.
+     */
+    default void forEachRow(JoinKey key, Consumer<Row> action) {
+        forEachRow(key.toRow(), action);
+    }
+
+    default boolean contains(JoinKey key) {
+        return contains(key.toRow());
+    }
+
+    /**
+     * Adds a row whose key hash is already known, see {@link dboperators.Hashing#hash(Object[], int[])},
+     * which the indexes keeping the hashes override to not hash it again.
+     */
+    default void addIndexRow(Row relationRow, long hash) {
+        addIndexRow(relationRow);
+    }
+
+    /**
+     * Same as {@link #forEachRow(JoinKey, Consumer)} with the key found at the given positions of the values of a row,
+     * which the indexes override to look it up without building a key.
+     * @param hash the hash of the key, see {@link dboperators.Hashing#hash(Object[], int[])}
+     */
+    default void forEachRow(long hash, Object[] rowValues, int[] rowKeyIndexes, Consumer<Row> action) {
+        forEachRow(JoinKey.of(rowValues, rowKeyIndexes), action);
+    }
+
+    /**
+     * Same as {@link #forEachRow(JoinKey, Consumer)} with the key found in the given columns of a row of a batch,
+     * which the indexes override to compare it with the indexed keys without boxing its values.
+     * @param hash the hash of the key, see {@link dboperators.Hashing#hash(RowBatch, int, int[])}
+     */
+    default void forEachRow(long hash, RowBatch batch, int row, int[] batchKeyIndexes, Consumer<Row> action) {
+        final Object[] keyValues = new Object[batchKeyIndexes.length];
+        for (int i = 0; i < batchKeyIndexes.length; i++) {
+            keyValues[i] = batch.getValue(batchKeyIndexes[i], row);
+        }
+        forEachRow(JoinKey.of(keyValues), action);
+    }
+
+    /**
+     * @return the Bloom filter of the hashes of the indexed keys, see {@link dboperators.Hashing#hash(Object[])}, if it has one
+     */
+    default Optional<BloomFilter> getBloomFilter() {
+        return Optional.empty();
+    }
+
+    /**
+     * Makes room for the given number of rows more, so that adding them does not grow the index one step at a time.
+     */
+    default void ensureCapacity(int additionalRowsCount) {
+    }
+
+    /**
+     * Adds the rows of a batch having the same columns as the indexed relation.
+     */
+    default void addIndexRows(RowBatch batch) {
+        ensureCapacity(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            final Row relationRow = batch.getRow(i);
+            getRelation().getRows().add(relationRow);
+            addIndexRow(relationRow);
+        }
+    }
+
+    /**
+     * Appends the rows of a relation having the same columns as the indexed relation to it and to the index,
+     * keeping the rows already indexed, so that a long-lived index absorbs new rows without being rebuilt.
+     * The index makes room for the estimated rows count of the relation first, if known. It consumes the rows stream.
+     * @return the number of appended rows
+     */
+    default long append(StreamRelation rel) {
+        if (!rel.getColumns().equals(getRelation().getColumns())) {
+            throw new IllegalStateException("Appended relation columns are not the indexed relation set of columns!");
+        }
+        rel.getEstimatedRowsCount().ifPresent(rowsCount -> ensureCapacity((int) Math.min(rowsCount, Integer.MAX_VALUE)));
+        long appendedRowsCount = 0;
+        try (Stream<Row> rows = rel.getRows()) {
+            final Iterator<Row> rowsIterator = rows.iterator();
+            while (rowsIterator.hasNext()) {
+                final Row relationRow = rowsIterator.next();
+                getRelation().getRows().add(relationRow);
+                addIndexRow(relationRow);
+                appendedRowsCount++;
+            }
+        }
+        return appendedRowsCount;
+    }
+}
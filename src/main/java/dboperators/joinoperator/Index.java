@@ -1,32 +1,59 @@
 package dboperators.joinoperator;
 
 import dboperators.Column;
+import dboperators.JoinKey;
+import dboperators.ProjectionPlan;
 import dboperators.RelationMetadata;
-import dboperators.Relations;
 import dboperators.Row;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.StringJoiner;
+import java.util.function.Consumer;
 
-public class Index extends RelationMetadata {
+public class Index extends RelationMetadata implements IIndex {
     private Relation relation;
+    private int[] keyIndexes;
 
-    private Map<Row, ArrayList<Row>> values;
+    private Map<JoinKey, ArrayList<Row>> values;
+    // the number of keys the map holds without resizing
+    private int keysCapacity;
+    private BloomFilter bloomFilter;
 
     public Index(Relation relation, ArrayList<Column> columns) {
+        this(relation, columns, false);
+    }
+
+    /**
+     * @param withBloomFilter whether to build a Bloom filter of the keys too, sized for the current relation rows
+     */
+    public Index(Relation relation, ArrayList<Column> columns, boolean withBloomFilter) {
+        this(relation, columns, withBloomFilter, relation.getRows().size());
+    }
+
+    /**
+     * Bulk loads the rows of the relation into a map sized once for the expected rows count.
+     * @param expectedRowsCount the rows count that the index is expected to hold, including the rows appended later,
+     *                          which also sizes the Bloom filter
+     */
+    public Index(Relation relation, ArrayList<Column> columns, boolean withBloomFilter, int expectedRowsCount) {
         super(columns);
         this.relation = relation;
-        this.values = new HashMap<>();
+        this.keyIndexes = ProjectionPlan.of(relation, this).getIndexes();
+        this.keysCapacity = Math.max(expectedRowsCount, relation.getRows().size());
+        this.values = new HashMap<>(mapCapacityFor(keysCapacity));
+        this.bloomFilter = withBloomFilter ? new BloomFilter(keysCapacity) : null;
         addIndexRows();
     }
 
+    @Override
     public Relation getRelation() {
         return relation;
     }
 
-    public Map<Row, ArrayList<Row>> getValues() {
+    public Map<JoinKey, ArrayList<Row>> getValues() {
         return values;
     }
 
@@ -36,11 +63,61 @@ public class Index extends RelationMetadata {
         }
     }
 
-    public ArrayList<Row> addIndexRow(Row relationRow) {
-        final Row indexRow = Relations.extractRow(relation, relationRow, this);
-        ArrayList<Row> existingRelationRows = values.computeIfAbsent(indexRow, k -> new ArrayList<>());
+    @Override
+    public void addIndexRow(Row relationRow) {
+        final JoinKey key = JoinKey.of(relationRow.getValues(), keyIndexes);
+        ArrayList<Row> existingRelationRows = values.computeIfAbsent(key, k -> new ArrayList<>());
         existingRelationRows.add(relationRow);
-        return existingRelationRows;
+        if (bloomFilter != null) {
+            bloomFilter.add(key.hash());
+        }
+    }
+
+    /**
+     * Resizes the map once for the rows to come, in place of the successive resizes of adding them one at a time.
+     * The keys count is bounded by the rows count.
+     */
+    @Override
+    public void ensureCapacity(int additionalRowsCount) {
+        final int requiredCapacity = (int) Math.min((long) values.size() + additionalRowsCount, Integer.MAX_VALUE);
+        if (requiredCapacity > keysCapacity) {
+            final Map<JoinKey, ArrayList<Row>> newValues = new HashMap<>(mapCapacityFor(requiredCapacity));
+            newValues.putAll(values);
+            values = newValues;
+            keysCapacity = requiredCapacity;
+        }
+    }
+
+    private static int mapCapacityFor(int keysCount) {
+        return (int) Math.min(keysCount / 0.75 + 1, 1 << 30);
+    }
+
+    @Override
+    public void forEachRow(Row key, Consumer<Row> action) {
+        forEachRow(JoinKey.of(key.getValues()), action);
+    }
+
+    @Override
+    public void forEachRow(JoinKey key, Consumer<Row> action) {
+        final ArrayList<Row> relationRows = values.get(key);
+        if (relationRows != null) {
+            relationRows.forEach(action);
+        }
+    }
+
+    @Override
+    public boolean contains(Row key) {
+        return contains(JoinKey.of(key.getValues()));
+    }
+
+    @Override
+    public boolean contains(JoinKey key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    public Optional<BloomFilter> getBloomFilter() {
+        return Optional.ofNullable(bloomFilter);
     }
 
     @Override
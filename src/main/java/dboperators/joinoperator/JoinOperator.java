@@ -1,13 +1,24 @@
 package dboperators.joinoperator;
 
 import dboperators.Column;
+import dboperators.ColumnPredicate;
 import dboperators.Columns;
-import dboperators.Relations;
+import dboperators.FilterPlan;
+import dboperators.Hashing;
+import dboperators.JoinKey;
+import dboperators.MergePlan;
+import dboperators.ProjectionPlan;
+import dboperators.RelationMetadata;
 import dboperators.Row;
+import dboperators.batch.RowBatch;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 public class JoinOperator {
     /**
@@ -26,6 +37,14 @@ public class JoinOperator {
      * So if n1 > n2 then we should index the second smaller relation with n2 elements as it takes less memory.
      */
     public static Relation join(Relation r1, Relation r2) {
+        return join(r1, r2, Index::new);
+    }
+
+    /**
+     * Same as {@link #join(Relation, Relation)}, but the smallest relation is indexed with the given index implementation,
+     * e.g. {@code OpenAddressingIndex::new}.
+     */
+    public static Relation join(Relation r1, Relation r2, BiFunction<Relation, ArrayList<Column>, IIndex> indexFactory) {
         Objects.requireNonNull(r1);
         Objects.requireNonNull(r2);
 
@@ -37,30 +56,208 @@ public class JoinOperator {
             // create an index of the smallest relation
             Relation sRel = r1.getRows().size() < r2.getRows().size() ? r1 : r2; //smallest
             Relation bRel = (sRel == r1) ? r2 : r1; //biggest
-            final Index sRelIndex = new Index(sRel, commonColumns);
+            final IIndex sRelIndex = indexFactory.apply(sRel, commonColumns);
 
             return join(bRel, sRelIndex);
         } else {
             // create a Cartesian product as there is no common column
-            //TODO: implement it or leave it as an error
-            throw new IllegalStateException("The two input relations have no common column!");
+            return crossProduct(r1, r2);
+        }
+    }
+
+    /**
+     * Same as {@link #join(Relation, Relation)} for any join type, indexing the smallest relation in an {@link OpenAddressingIndex}. <br/>
+     * Without common columns every row matches every row of the other relation.
+     */
+    public static Relation join(Relation r1, Relation r2, JoinType joinType) {
+        Objects.requireNonNull(r1);
+        Objects.requireNonNull(r2);
+        Objects.requireNonNull(joinType);
+
+        final ArrayList<Column> commonColumns = Columns.intersection(r1.getColumns(), r2.getColumns());
+        final Relation outRel = new Relation(joinType.getColumns(r1, r2));
+        final MergePlan mergePlan = joinType.isFiltering() ? null : MergePlan.of(r1, r2, outRel);
+
+        final boolean buildIsFirst = r1.getRows().size() < r2.getRows().size();
+        final Relation buildRel = buildIsFirst ? r1 : r2;
+        final Relation probeRel = buildIsFirst ? r2 : r1;
+        final OpenAddressingIndex buildIndex = new OpenAddressingIndex(buildRel, commonColumns);
+        final int[] probeKeyIndexes = ProjectionPlan.of(probeRel, buildIndex).getIndexes();
+        final HashJoinProbe probe = new HashJoinProbe(buildIndex, buildIsFirst, probeKeyIndexes, mergePlan, joinType);
+        for (Row probeRow : probeRel.getRows()) {
+            probe.probe(probeRow, outRel.getRows()::add);
+        }
+        probe.finish(outRel.getRows()::add);
+        return outRel;
+    }
+
+    /**
+     * Same as {@link #join(Relation, Relation)} with filters and a projection pushed down into the join. <br/>
+     * Every predicate is applied to the relations having its column, both of them for a common column,
+     * so the rejected rows are neither indexed nor probed, and the merged rows get only the output columns.
+     * @param outColumns the output columns, any of the columns of the two relations
+     */
+    public static Relation join(Relation r1, Relation r2, List<ColumnPredicate> predicates, ArrayList<Column> outColumns) {
+        Objects.requireNonNull(r1);
+        Objects.requireNonNull(r2);
+        Objects.requireNonNull(predicates);
+        Objects.requireNonNull(outColumns);
+        ColumnPredicate.checkApplicable(predicates, r1, r2);
+
+        final Relation f1 = filter(r1, ColumnPredicate.applicableTo(predicates, r1));
+        final Relation f2 = filter(r2, ColumnPredicate.applicableTo(predicates, r2));
+        final RelationMetadata outRel = new RelationMetadata(outColumns);
+        final ArrayList<Column> commonColumns = Columns.intersection(f1.getColumns(), f2.getColumns());
+
+        if (commonColumns.size() > 0) {
+            Relation sRel = f1.getRows().size() < f2.getRows().size() ? f1 : f2; //smallest
+            Relation bRel = (sRel == f1) ? f2 : f1; //biggest
+            final IIndex sRelIndex = new Index(sRel, commonColumns);
+            return join(bRel, sRelIndex, ProjectionPlan.of(bRel, new RelationMetadata(sRelIndex.getColumns())), MergePlan.of(bRel, sRel, outRel));
+        } else {
+            return crossProduct(f1, f2, MergePlan.of(f1, f2, outRel));
+        }
+    }
+
+    private static Relation filter(Relation relation, List<ColumnPredicate> predicates) {
+        if (predicates.isEmpty()) {
+            return relation;
         }
+        final FilterPlan filterPlan = FilterPlan.of(relation, predicates);
+        return new Relation(relation.getColumns(), relation.getRows().stream().filter(filterPlan::test).collect(Collectors.toList()));
     }
 
-    public static Relation join(Relation bRel, Index sRelIndex) {
+    /**
+     * Joins every row of the first relation with every row of the second one, which have no common column. <br/>
+     * The runtime complexity is O(n1*n2), like the size of the output.
+     */
+    public static Relation crossProduct(Relation r1, Relation r2) {
+        Objects.requireNonNull(r1);
+        Objects.requireNonNull(r2);
+        return crossProduct(r1, r2, MergePlan.of(r1, r2, new RelationMetadata(Columns.union(r1.getColumns(), r2.getColumns()))));
+    }
+
+    private static Relation crossProduct(Relation r1, Relation r2, MergePlan mergePlan) {
+        final Relation outRel = new Relation(mergePlan.getColumns());
+        for (Row row1 : r1.getRows()) {
+            for (Row row2 : r2.getRows()) {
+                outRel.addMergedRow(mergePlan, row1, row2);
+            }
+        }
+        return outRel;
+    }
+
+    public static Relation join(Relation bRel, IIndex sRelIndex) {
         Objects.requireNonNull(bRel);
         Objects.requireNonNull(sRelIndex);
         Relation sRel = sRelIndex.getRelation();
 
         // create the columns of the output relation
-        Relation outRel = new Relation(Columns.union(bRel.getColumns(), sRel.getColumns()));
+        final Relation outRel = new Relation(Columns.union(bRel.getColumns(), sRel.getColumns()));
+        return join(bRel, sRelIndex, ProjectionPlan.of(bRel, new RelationMetadata(sRelIndex.getColumns())), MergePlan.of(bRel, sRel, outRel));
+    }
+
+    /**
+     * Joins using plans computed once by the caller, so that the chunk based operators
+     * can reuse them for all the pairs of chunks having the same columns.
+     * @param keyPlan projects the rows of bRel onto the columns of the index
+     * @param mergePlan merges a row of bRel with a row of the indexed relation
+     */
+    public static Relation join(Relation bRel, IIndex sRelIndex, ProjectionPlan keyPlan, MergePlan mergePlan) {
+        Objects.requireNonNull(bRel);
+        Objects.requireNonNull(sRelIndex);
+
+        // create the columns of the output relation
+        Relation outRel = new Relation(mergePlan.getColumns());
         // create the values of the output relation
+        forEachMatch(bRel, sRelIndex, keyPlan, (bRow, sRow) -> outRel.addMergedRow(mergePlan, bRow, sRow));
+        return outRel;
+    }
+
+    /**
+     * Calls the action for every pair of a row of bRel and a matching indexed row, without creating any output row,
+     * e.g. to merge them directly into a {@link RowBatch}.
+     * @param keyPlan projects the rows of bRel onto the columns of the index
+     */
+    public static void forEachMatch(Relation bRel, IIndex sRelIndex, ProjectionPlan keyPlan, BiConsumer<Row, Row> action) {
+        Objects.requireNonNull(bRel);
+        Objects.requireNonNull(sRelIndex);
+
+        final int[] keyIndexes = keyPlan.getIndexes();
+        final BloomFilter bloomFilter = sRelIndex.getBloomFilter().orElse(null);
         for (Row bRow : bRel.getRows()) {
-            final Row indexRow = Relations.extractRow(bRel, bRow, sRelIndex);
-            final Optional<ArrayList<Row>> optSRows = Optional.ofNullable(sRelIndex.getValues().get(indexRow));
-            optSRows.ifPresent(sRows -> sRows.forEach(sRow -> outRel.addMergedRow(bRel, bRow, sRel, sRow)));
+            // reject the rows without match before copying their key
+            if (bloomFilter != null && !bloomFilter.mightContain(Hashing.hash(bRow.getValues(), keyIndexes))) {
+                continue;
+            }
+            sRelIndex.forEachRow(JoinKey.of(bRow.getValues(), keyIndexes), sRow -> action.accept(bRow, sRow));
         }
-        return outRel;
     }
 
+    public static RowBatch join(RowBatch bBatch, IIndex sRelIndex) {
+        Objects.requireNonNull(bBatch);
+        Objects.requireNonNull(sRelIndex);
+        final ArrayList<Column> outColumns = Columns.union(bBatch.getColumns(), sRelIndex.getRelation().getColumns());
+        return join(bBatch, sRelIndex, new RowBatch(outColumns, Math.max(bBatch.size(), 1)));
+    }
+
+    /**
+     * Joins a batch of rows with an index and appends the merged rows to the output batch. <br/>
+     * The probe keys are hashed and compared with the indexed keys from the primitive vectors of the batch, see
+     * {@link IIndex#forEachRow(long, RowBatch, int, int[], Consumer)}, the values of the batch are copied vector to vector
+     * and the values of the indexed rows, already boxed in their rows, are unboxed into the output vectors,
+     * so no key, value or output row is created per row.
+     */
+    public static RowBatch join(RowBatch bBatch, IIndex sRelIndex, RowBatch outBatch) {
+        Objects.requireNonNull(bBatch);
+        Objects.requireNonNull(sRelIndex);
+        Objects.requireNonNull(outBatch);
+        Relation sRel = sRelIndex.getRelation();
+
+        final ProjectionPlan keyPlan = ProjectionPlan.of(bBatch, new RelationMetadata(sRelIndex.getColumns()));
+        final MergePlan mergePlan = MergePlan.of(bBatch, sRel, outBatch);
+        final int[] keyIndexes = keyPlan.getIndexes();
+        final BloomFilter bloomFilter = sRelIndex.getBloomFilter().orElse(null);
+        final BatchMatchAppender appender = new BatchMatchAppender(bBatch, mergePlan, outBatch);
+
+        for (int row = 0; row < bBatch.size(); row++) {
+            final long hash = Hashing.hash(bBatch, row, keyIndexes);
+            if (bloomFilter != null && !bloomFilter.mightContain(hash)) {
+                continue;
+            }
+            appender.bRow = row;
+            sRelIndex.forEachRow(hash, bBatch, row, keyIndexes, appender);
+        }
+        return outBatch;
+    }
+
+    /**
+     * Appends the merge of the current row of a batch with every matching indexed row to the output batch,
+     * reused for all the rows of the batch instead of capturing every row in a new action.
+     */
+    private static final class BatchMatchAppender implements Consumer<Row> {
+        private final RowBatch bBatch;
+        private final int[] bIndexes;
+        private final int[] sIndexes;
+        private final RowBatch outBatch;
+        private int bRow;
+
+        BatchMatchAppender(RowBatch bBatch, MergePlan mergePlan, RowBatch outBatch) {
+            this.bBatch = bBatch;
+            this.bIndexes = mergePlan.getIndexes1();
+            this.sIndexes = mergePlan.getIndexes2();
+            this.outBatch = outBatch;
+        }
+
+        @Override
+        public void accept(Row sRow) {
+            for (int i = 0; i < bIndexes.length; i++) {
+                if (bIndexes[i] >= 0) {
+                    outBatch.getVector(i).addFrom(bBatch.getVector(bIndexes[i]), bRow);
+                } else {
+                    outBatch.getVector(i).add(sRow.getValues()[sIndexes[i]]);
+                }
+            }
+        }
+    }
 }
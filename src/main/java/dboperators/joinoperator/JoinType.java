@@ -0,0 +1,47 @@
+package dboperators.joinoperator;
+
+import dboperators.Column;
+import dboperators.Columns;
+import dboperators.RelationMetadata;
+
+import java.util.ArrayList;
+
+/**
+ * The kinds of equi-joins of a first and a second relation, on their common columns. <br/>
+ * The outer joins pad the rows without match with null values for the columns of the other relation.
+ * The semi and anti joins output only the rows of the first relation having at least one match, respectively no match,
+ * each of them once, so no merged row is ever created.
+ */
+public enum JoinType {
+    INNER,
+    LEFT_OUTER,
+    RIGHT_OUTER,
+    FULL_OUTER,
+    SEMI,
+    ANTI;
+
+    /**
+     * @return whether the rows of the first relation without match are in the output
+     */
+    public boolean keepsUnmatchedRows1() {
+        return this == LEFT_OUTER || this == FULL_OUTER || this == ANTI;
+    }
+
+    /**
+     * @return whether the rows of the second relation without match are in the output
+     */
+    public boolean keepsUnmatchedRows2() {
+        return this == RIGHT_OUTER || this == FULL_OUTER;
+    }
+
+    /**
+     * @return whether the output has only rows of the first relation, not merged rows
+     */
+    public boolean isFiltering() {
+        return this == SEMI || this == ANTI;
+    }
+
+    public ArrayList<Column> getColumns(RelationMetadata rel1, RelationMetadata rel2) {
+        return isFiltering() ? rel1.getColumns() : Columns.union(rel1.getColumns(), rel2.getColumns());
+    }
+}
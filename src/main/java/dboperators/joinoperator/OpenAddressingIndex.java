@@ -0,0 +1,309 @@
+package dboperators.joinoperator;
+
+import dboperators.Column;
+import dboperators.Hashing;
+import dboperators.JoinKey;
+import dboperators.ProjectionPlan;
+import dboperators.RelationMetadata;
+import dboperators.Row;
+import dboperators.batch.RowBatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+
+/**
+ * Hash index backed by an open addressing table with linear probing. <br/>
+ * Every slot of the table holds the 64-bit hash of one distinct key and the ids of the first and last rows having that key.
+ * The rows with the same key are chained through a flat array of row ids, in insertion order,
+ * so no key row and no bucket list is allocated per distinct key. <br/>
+ * The keys are not stored either, they are compared with the indexed columns of the first row of the chain. <br/>
+ * The id of a row is its position in the rows of the relation, which are not copied: the relation rows must be a random access list,
+ * whose rows are all indexed in order. A row added to the index only is appended to the relation rows too. <br/>
+ * Memory complexity: O(N) ints plus O(distinct keys) longs and ints for the table.
+ */
+public class OpenAddressingIndex extends RelationMetadata implements IIndex {
+    private static final int EMPTY = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private final Relation relation;
+    private final List<Row> relationRows;
+    private final int[] keyIndexes;
+
+    // the table, with a power of two capacity, kept at most half full
+    private long[] slotHashes;
+    private int[] slotFirstRows;
+    private int[] slotLastRows;
+    private int keysCount;
+
+    // the chain of row ids having the same key
+    private int[] nextRows;
+    private int rowsCount;
+
+    private final BloomFilter bloomFilter;
+
+    public OpenAddressingIndex(Relation relation, ArrayList<Column> columns) {
+        this(relation, columns, false);
+    }
+
+    /**
+     * @param withBloomFilter whether to build a Bloom filter of the keys too, sized for the current relation rows
+     */
+    public OpenAddressingIndex(Relation relation, ArrayList<Column> columns, boolean withBloomFilter) {
+        super(columns);
+        if (!(relation.getRows() instanceof RandomAccess)) {
+            throw new IllegalArgumentException("The rows of the indexed relation are not a random access list");
+        }
+        this.relation = relation;
+        this.relationRows = relation.getRows();
+        this.keyIndexes = ProjectionPlan.of(relation, this).getIndexes();
+        final int rowsCapacity = Math.max(relation.getRows().size(), MIN_CAPACITY);
+        this.nextRows = new int[rowsCapacity];
+        allocateTable(tableCapacityFor(rowsCapacity));
+        this.bloomFilter = withBloomFilter ? new BloomFilter(relation.getRows().size()) : null;
+        for (Row relationRow : relation.getRows()) {
+            addIndexRow(relationRow);
+        }
+    }
+
+    @Override
+    public Relation getRelation() {
+        return relation;
+    }
+
+    public int getRowsCount() {
+        return rowsCount;
+    }
+
+    public int getKeysCount() {
+        return keysCount;
+    }
+
+    @Override
+    public void addIndexRow(Row relationRow) {
+        addIndexRow(relationRow, Hashing.hash(relationRow.getValues(), keyIndexes));
+    }
+
+    /**
+     * Indexes the next row of the relation, or else appends the row to the relation rows too.
+     */
+    @Override
+    public void addIndexRow(Row relationRow, long hash) {
+        if (relationRows.size() == rowsCount) {
+            relationRows.add(relationRow);
+        }
+        if (rowsCount == nextRows.length) {
+            nextRows = Arrays.copyOf(nextRows, nextRows.length * 2);
+        }
+        final int rowId = rowsCount++;
+        nextRows[rowId] = EMPTY;
+
+        final int slot = findSlot(hash, relationRow.getValues(), keyIndexes);
+        if (slotFirstRows[slot] == EMPTY) {
+            if (bloomFilter != null) {
+                bloomFilter.add(hash);
+            }
+            slotHashes[slot] = hash;
+            slotFirstRows[slot] = rowId;
+            slotLastRows[slot] = rowId;
+            if (++keysCount * 2 > slotHashes.length) {
+                rehash(slotHashes.length * 2);
+            }
+        } else {
+            nextRows[slotLastRows[slot]] = rowId;
+            slotLastRows[slot] = rowId;
+        }
+    }
+
+    /**
+     * Grows the row ids chain and the table once for the rows to come, the keys count being bounded by the rows count.
+     */
+    @Override
+    public void ensureCapacity(int additionalRowsCount) {
+        final int requiredRowsCapacity = (int) Math.min((long) rowsCount + additionalRowsCount, Integer.MAX_VALUE - 8);
+        if (requiredRowsCapacity > nextRows.length) {
+            nextRows = Arrays.copyOf(nextRows, requiredRowsCapacity);
+        }
+        final int tableCapacity = tableCapacityFor((int) Math.min((long) keysCount + additionalRowsCount, 1 << 29));
+        if (tableCapacity > slotHashes.length) {
+            rehash(tableCapacity);
+        }
+    }
+
+    @Override
+    public void forEachRow(Row key, Consumer<Row> action) {
+        for (int rowId = firstRowId(key); rowId != EMPTY; rowId = nextRowId(rowId)) {
+            action.accept(relationRows.get(rowId));
+        }
+    }
+
+    @Override
+    public void forEachRow(JoinKey key, Consumer<Row> action) {
+        for (int rowId = firstRowId(key); rowId != EMPTY; rowId = nextRowId(rowId)) {
+            action.accept(relationRows.get(rowId));
+        }
+    }
+
+    @Override
+    public void forEachRow(long hash, Object[] rowValues, int[] rowKeyIndexes, Consumer<Row> action) {
+        for (int rowId = firstRowId(hash, rowValues, rowKeyIndexes); rowId != EMPTY; rowId = nextRowId(rowId)) {
+            action.accept(relationRows.get(rowId));
+        }
+    }
+
+    @Override
+    public void forEachRow(long hash, RowBatch batch, int row, int[] batchKeyIndexes, Consumer<Row> action) {
+        for (int rowId = firstRowId(hash, batch, row, batchKeyIndexes); rowId != EMPTY; rowId = nextRowId(rowId)) {
+            action.accept(relationRows.get(rowId));
+        }
+    }
+
+    @Override
+    public boolean contains(Row key) {
+        return firstRowId(key) != EMPTY;
+    }
+
+    @Override
+    public boolean contains(JoinKey key) {
+        return firstRowId(key) != EMPTY;
+    }
+
+    @Override
+    public Optional<BloomFilter> getBloomFilter() {
+        return Optional.ofNullable(bloomFilter);
+    }
+
+    /**
+     * @return the id of the first indexed row having the given key values or -1 if there is none
+     */
+    public int firstRowId(Row key) {
+        final Object[] keyValues = key.getValues();
+        final long hash = Hashing.hash(keyValues);
+        return slotFirstRows[findSlot(hash, keyValues, null)];
+    }
+
+    /**
+     * @return the id of the first indexed row having the given key or -1 if there is none
+     */
+    public int firstRowId(JoinKey key) {
+        final long hash = key.hash();
+        final int mask = slotHashes.length - 1;
+        int slot = (int) hash & mask;
+        while (slotFirstRows[slot] != EMPTY
+                && (slotHashes[slot] != hash || !key.matches(relationRows.get(slotFirstRows[slot]).getValues(), keyIndexes))) {
+            slot = (slot + 1) & mask;
+        }
+        return slotFirstRows[slot];
+    }
+
+    /**
+     * Looks up the key found at the given positions of the row values, without building a key.
+     * @param hash the hash of the key, see {@link Hashing#hash(Object[], int[])}
+     * @return the id of the first indexed row having that key or -1 if there is none
+     */
+    public int firstRowId(long hash, Object[] rowValues, int[] rowKeyIndexes) {
+        return slotFirstRows[findSlot(hash, rowValues, rowKeyIndexes)];
+    }
+
+    /**
+     * Looks up the key found in the given columns of a row of a batch, comparing it with the indexed keys without boxing its values.
+     * @param hash the hash of the key, see {@link Hashing#hash(RowBatch, int, int[])}
+     * @return the id of the first indexed row having that key or -1 if there is none
+     */
+    public int firstRowId(long hash, RowBatch batch, int row, int[] batchKeyIndexes) {
+        final int mask = slotHashes.length - 1;
+        int slot = (int) hash & mask;
+        while (slotFirstRows[slot] != EMPTY
+                && (slotHashes[slot] != hash || !keyEquals(relationRows.get(slotFirstRows[slot]).getValues(), batch, row, batchKeyIndexes))) {
+            slot = (slot + 1) & mask;
+        }
+        return slotFirstRows[slot];
+    }
+
+    /**
+     * @return the id of the next indexed row having the same key values as the given row or -1 if there is none
+     */
+    public int nextRowId(int rowId) {
+        return nextRows[rowId];
+    }
+
+    public Row getRow(int rowId) {
+        return relationRows.get(rowId);
+    }
+
+    /**
+     * Finds the slot of the given key or the empty slot where it should be added.
+     * @param keyIndexes the positions of the key in the values or null when the values are the key
+     */
+    private int findSlot(long hash, Object[] values, int[] keyIndexes) {
+        final int mask = slotHashes.length - 1;
+        int slot = (int) hash & mask;
+        while (slotFirstRows[slot] != EMPTY
+                && (slotHashes[slot] != hash || !keyEquals(relationRows.get(slotFirstRows[slot]).getValues(), values, keyIndexes))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private boolean keyEquals(Object[] rowValues, Object[] values, int[] valuesKeyIndexes) {
+        for (int i = 0; i < keyIndexes.length; i++) {
+            final Object value = valuesKeyIndexes == null ? values[i] : values[valuesKeyIndexes[i]];
+            if (!JoinKey.valueEquals(rowValues[keyIndexes[i]], value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean keyEquals(Object[] rowValues, RowBatch batch, int row, int[] batchKeyIndexes) {
+        for (int i = 0; i < keyIndexes.length; i++) {
+            if (!batch.getVector(batchKeyIndexes[i]).valueEquals(row, rowValues[keyIndexes[i]])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int newCapacity) {
+        final long[] oldHashes = slotHashes;
+        final int[] oldFirstRows = slotFirstRows;
+        final int[] oldLastRows = slotLastRows;
+        allocateTable(newCapacity);
+        final int mask = newCapacity - 1;
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldFirstRows[i] != EMPTY) {
+                int slot = (int) oldHashes[i] & mask;
+                while (slotFirstRows[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                slotHashes[slot] = oldHashes[i];
+                slotFirstRows[slot] = oldFirstRows[i];
+                slotLastRows[slot] = oldLastRows[i];
+            }
+        }
+    }
+
+    private void allocateTable(int capacity) {
+        slotHashes = new long[capacity];
+        slotFirstRows = new int[capacity];
+        slotLastRows = new int[capacity];
+        Arrays.fill(slotFirstRows, EMPTY);
+    }
+
+    private static int tableCapacityFor(int keysCount) {
+        return Integer.highestOneBit(Math.max(keysCount, MIN_CAPACITY) * 2 - 1) << 1;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", OpenAddressingIndex.class.getSimpleName() + "[", "]")
+                .add("columns=" + columns)
+                .add("keysCount=" + keysCount)
+                .add("rowsCount=" + rowsCount)
+                .toString();
+    }
+}
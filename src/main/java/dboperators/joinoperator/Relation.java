@@ -1,9 +1,10 @@
 package dboperators.joinoperator;
 
 import dboperators.Column;
+import dboperators.MergePlan;
 import dboperators.RelationMetadata;
-import dboperators.Relations;
 import dboperators.Row;
+import dboperators.batch.RowBatch;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -12,6 +13,10 @@ import java.util.StringJoiner;
 
 public class Relation extends RelationMetadata {
     private List<Row> rows;
+    // the plan of the last pair of relations merged row by row, see addMergedRow(Relation, Row, Relation, Row)
+    private MergePlan lastMergePlan;
+    private Relation lastRel1;
+    private Relation lastRel2;
 
     public static Relation of(Column... columns) {
         return new Relation(new ArrayList<>(Arrays.asList(columns)));
@@ -31,6 +36,20 @@ public class Relation extends RelationMetadata {
         return rows;
     }
 
+    public List<RowBatch> toRowBatches(int batchSize) {
+        final ArrayList<RowBatch> batches = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            batches.add(RowBatch.fromRows(columns, rows.subList(from, Math.min(from + batchSize, rows.size()))));
+        }
+        return batches;
+    }
+
+    public void addRowBatch(RowBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            rows.add(batch.getRow(i));
+        }
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", Relation.class.getSimpleName() + "[", "]")
@@ -39,9 +58,21 @@ public class Relation extends RelationMetadata {
                 .toString();
     }
 
+    /**
+     * Same as {@link #addMergedRow(MergePlan, Row, Row)} with the merge plan of the two relations,
+     * created once for all the rows merged in a row from the same pair of relations.
+     */
     public Row addMergedRow(Relation rel1, Row row1, Relation rel2, Row row2) {
-        Relations.mergeRows(rel1, row1, rel2, row2, this);
-        final Row mergedRow = Relations.mergeRows(rel1, row1, rel2, row2, this);
+        if (lastMergePlan == null || rel1 != lastRel1 || rel2 != lastRel2) {
+            lastMergePlan = MergePlan.of(rel1, rel2, this);
+            lastRel1 = rel1;
+            lastRel2 = rel2;
+        }
+        return addMergedRow(lastMergePlan, row1, row2);
+    }
+
+    public Row addMergedRow(MergePlan mergePlan, Row row1, Row row2) {
+        final Row mergedRow = mergePlan.merge(row1, row2);
         getRows().add(mergedRow);
         return mergedRow;
     }
@@ -0,0 +1,175 @@
+package dboperators.sortoperator;
+
+import dboperators.Column;
+import dboperators.Row;
+import dboperators.RowComparator;
+import dboperators.Rows;
+import dboperators.SpillFile;
+import dboperators.streamjoinoperator.StreamRelation;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * External merge sort of a stream relation with a bounded memory. <br/>
+ * The rows are read in memory until the memory budget is exceeded, then they are sorted and written as a sorted run into a {@link SpillFile}.
+ * At the end all the runs are merged, at most {@link #MAX_MERGED_RUNS} at a time, so that only one row per merged run is kept in memory.
+ * If all the rows fit in the memory budget, they are only sorted in memory. <br/>
+ * Runtime complexity O(N*log(N)) plus the disk I/O of writing and reading the rows once per merge pass <br/>
+ * Memory complexity O(memory budget) <br/>
+ */
+public class ExternalSortOperator {
+    static final int MAX_MERGED_RUNS = 64;
+
+    private final long memoryBudget;
+    private final Path spillDirectory;
+
+    /**
+     * @param memoryBudget the estimated heap size in bytes of the rows that can be sorted in memory
+     */
+    public ExternalSortOperator(long memoryBudget) {
+        this(memoryBudget, null);
+    }
+
+    /**
+     * @param spillDirectory the directory of the sorted runs or null for the default temporary directory
+     */
+    public ExternalSortOperator(long memoryBudget, Path spillDirectory) {
+        this.memoryBudget = memoryBudget;
+        this.spillDirectory = spillDirectory;
+    }
+
+    public StreamRelation sort(StreamRelation rel, ArrayList<Column> sortColumns) {
+        Objects.requireNonNull(rel);
+        Objects.requireNonNull(sortColumns);
+        if (rel.isSortedBy(sortColumns)) {
+            return rel;
+        }
+        final RowComparator comparator = RowComparator.of(rel, sortColumns);
+
+        // the rows are read only when the output stream is consumed, and the merged runs are read one row at a time
+        final Stream<Row> outRows = Rows.lazy(() -> sort(rel, comparator));
+
+        final StreamRelation outRel = new StreamRelation(rel.getColumns(), outRows);
+        outRel.setEstimatedRowsCount(rel.getEstimatedRowsCount());
+        outRel.setSortColumns(Optional.of(sortColumns));
+        return outRel;
+    }
+
+    private Stream<Row> sort(StreamRelation rel, RowComparator comparator) {
+        final ArrayList<SpillFile> runs = new ArrayList<>();
+        final Iterator<Row> rowsIterator = rel.getRows().iterator();
+        ArrayList<Row> bufferedRows = new ArrayList<>();
+        long bufferedSize = 0;
+        while (rowsIterator.hasNext()) {
+            final Row row = rowsIterator.next();
+            bufferedRows.add(row);
+            bufferedSize += Rows.estimatedSize(row);
+            if (bufferedSize > memoryBudget) {
+                bufferedRows.sort(comparator);
+                final SpillFile run = new SpillFile(rel.getColumns(), spillDirectory);
+                bufferedRows.forEach(run::write);
+                runs.add(run);
+                bufferedRows = new ArrayList<>();
+                bufferedSize = 0;
+            }
+        }
+        rel.getRows().close();
+        bufferedRows.sort(comparator);
+        if (runs.isEmpty()) {
+            return bufferedRows.stream();
+        }
+        if (!bufferedRows.isEmpty()) {
+            final SpillFile run = new SpillFile(rel.getColumns(), spillDirectory);
+            bufferedRows.forEach(run::write);
+            runs.add(run);
+        }
+
+        // merge the runs until they can be merged all at once
+        List<SpillFile> remainingRuns = runs;
+        while (remainingRuns.size() > MAX_MERGED_RUNS) {
+            final ArrayList<SpillFile> mergedRuns = new ArrayList<>();
+            for (int from = 0; from < remainingRuns.size(); from += MAX_MERGED_RUNS) {
+                final List<SpillFile> group = remainingRuns.subList(from, Math.min(from + MAX_MERGED_RUNS, remainingRuns.size()));
+                final SpillFile mergedRun = new SpillFile(rel.getColumns(), spillDirectory);
+                try (Stream<Row> mergedRows = merge(group, comparator)) {
+                    mergedRows.forEach(mergedRun::write);
+                }
+                mergedRuns.add(mergedRun);
+            }
+            remainingRuns = mergedRuns;
+        }
+        return merge(remainingRuns, comparator);
+    }
+
+    /**
+     * Merges the sorted runs, keeping the order of the runs for the equal rows. Closing the stream deletes the runs.
+     */
+    private static Stream<Row> merge(List<SpillFile> runs, RowComparator comparator) {
+        final ArrayList<Stream<Row>> runsRows = new ArrayList<>(runs.size());
+        final PriorityQueue<RunHead> heads = new PriorityQueue<>(runs.size());
+        for (int i = 0; i < runs.size(); i++) {
+            final Stream<Row> runRows = runs.get(i).readRows();
+            runsRows.add(runRows);
+            final Iterator<Row> runIterator = runRows.iterator();
+            if (runIterator.hasNext()) {
+                heads.add(new RunHead(runIterator.next(), i, runIterator, comparator));
+            }
+        }
+        final Iterator<Row> mergedIterator = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final RunHead head = heads.poll();
+                final Row row = head.row;
+                if (head.iterator.hasNext()) {
+                    head.row = head.iterator.next();
+                    heads.add(head);
+                }
+                return row;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(mergedIterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    runsRows.forEach(Stream::close);
+                    runs.forEach(SpillFile::close);
+                });
+    }
+
+    private static class RunHead implements Comparable<RunHead> {
+        Row row;
+        final int run;
+        final Iterator<Row> iterator;
+        final RowComparator comparator;
+
+        RunHead(Row row, int run, Iterator<Row> iterator, RowComparator comparator) {
+            this.row = row;
+            this.run = run;
+            this.iterator = iterator;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public int compareTo(RunHead other) {
+            final int result = comparator.compare(row, other.row);
+            return result != 0 ? result : Integer.compare(run, other.run);
+        }
+    }
+}
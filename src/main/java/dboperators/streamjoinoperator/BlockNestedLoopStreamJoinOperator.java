@@ -0,0 +1,154 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Column;
+import dboperators.Columns;
+import dboperators.JoinKey;
+import dboperators.MergePlan;
+import dboperators.ProjectionPlan;
+import dboperators.RelationMetadata;
+import dboperators.Row;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Block nested loop join, joining every row of the first relation with every row of the second relation
+ * which has the same values of the common columns and satisfies an optional join predicate. <br/>
+ * Without common columns and without predicate it is the Cartesian product of the two relations,
+ * and with a predicate it is a theta join, e.g. on a non equality condition that no hash index can answer. <br/>
+ * The inner, second, relation is read in memory into blocks of a few rows fitting in the CPU cache,
+ * while the outer, first, relation is streamed block by block, and every pair of outer and inner blocks is joined with nested loops,
+ * so every inner block is loaded once in the cache for a whole outer block instead of once per outer row. <br/>
+ * When parallel, the outer blocks are joined in parallel on the common ForkJoinPool, the rows of different blocks in no particular order. <br/>
+ * Runtime complexity O(N1*N2) <br/>
+ * Memory complexity O(N2) because it stores the inner relation in memory <br/>
+ */
+public class BlockNestedLoopStreamJoinOperator implements IStreamJoinOperator {
+    public static final int DEFAULT_BLOCK_ROWS = 1 << 8;
+
+    private final BiPredicate<Row, Row> predicate;
+    private final int blockRows;
+    private final boolean parallel;
+
+    /**
+     * Creates a natural join, which is the Cartesian product of the relations without common columns.
+     */
+    public BlockNestedLoopStreamJoinOperator() {
+        this(null);
+    }
+
+    /**
+     * @param predicate the condition on a row of the first relation and a row of the second relation to be joined,
+     *                  checked in addition to the equality of the common columns, or null for none
+     */
+    public BlockNestedLoopStreamJoinOperator(BiPredicate<Row, Row> predicate) {
+        this(predicate, DEFAULT_BLOCK_ROWS, false);
+    }
+
+    /**
+     * @param blockRows the number of rows of the outer and of the inner blocks
+     * @param parallel  whether to join the outer blocks in parallel
+     */
+    public BlockNestedLoopStreamJoinOperator(BiPredicate<Row, Row> predicate, int blockRows, boolean parallel) {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("The block rows count must be positive: " + blockRows);
+        }
+        this.predicate = predicate;
+        this.blockRows = blockRows;
+        this.parallel = parallel;
+    }
+
+    @Override
+    public StreamRelation join(StreamRelation rel1, StreamRelation rel2) {
+        Objects.requireNonNull(rel1);
+        Objects.requireNonNull(rel2);
+
+        final ArrayList<Column> commonColumns = Columns.intersection(rel1.getColumns(), rel2.getColumns());
+
+        // create the columns of the output relation
+        ArrayList<Column> outRelColumns = Columns.union(rel1.getColumns(), rel2.getColumns());
+        final int[] keyIndexes1 = ProjectionPlan.of(rel1, new RelationMetadata(commonColumns)).getIndexes();
+        final int[] keyIndexes2 = ProjectionPlan.of(rel2, new RelationMetadata(commonColumns)).getIndexes();
+        final MergePlan mergePlan = MergePlan.of(rel1, rel2, new RelationMetadata(outRelColumns));
+
+        // the inner relation is read only when the output stream is consumed, then every outer block is a join task
+        // of the output spliterator, so only the rows of one outer block per worker are held at a time
+        final Stream<Row> outRows = StreamSupport.stream(() -> {
+            final List<Row[]> innerBlocks = new ArrayList<>();
+            blocks(rel2.getRows().iterator()).forEachRemaining(innerBlocks::add);
+            rel2.getRows().close();
+            if (innerBlocks.isEmpty()) {
+                return Spliterators.emptySpliterator();
+            }
+            final Iterator<Row[]> outerBlocks = blocks(rel1.getRows().iterator());
+            final Iterator<Supplier<List<Row>>> joinTasks = new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return outerBlocks.hasNext();
+                }
+
+                @Override
+                public Supplier<List<Row>> next() {
+                    final Row[] outerBlock = outerBlocks.next();
+                    return () -> joinBlock(outerBlock, innerBlocks, keyIndexes1, keyIndexes2, mergePlan);
+                }
+            };
+            return JoinTasksSpliterator.of(joinTasks);
+        }, Spliterator.NONNULL, parallel).onClose(() -> rel1.getRows().close());
+        return new StreamRelation(outRelColumns, outRows);
+    }
+
+    private List<Row> joinBlock(Row[] outerBlock, List<Row[]> innerBlocks, int[] keyIndexes1, int[] keyIndexes2, MergePlan mergePlan) {
+        final ArrayList<Row> outRows = new ArrayList<>();
+        for (Row[] innerBlock : innerBlocks) {
+            for (Row row1 : outerBlock) {
+                for (Row row2 : innerBlock) {
+                    if (keyEquals(row1.getValues(), keyIndexes1, row2.getValues(), keyIndexes2)
+                            && (predicate == null || predicate.test(row1, row2))) {
+                        outRows.add(mergePlan.merge(row1, row2));
+                    }
+                }
+            }
+        }
+        return outRows;
+    }
+
+    private static boolean keyEquals(Object[] values1, int[] keyIndexes1, Object[] values2, int[] keyIndexes2) {
+        for (int i = 0; i < keyIndexes1.length; i++) {
+            if (!JoinKey.valueEquals(values1[keyIndexes1[i]], values2[keyIndexes2[i]])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Iterator<Row[]> blocks(Iterator<Row> rows) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public Row[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final ArrayList<Row> block = new ArrayList<>(blockRows);
+                while (block.size() < blockRows && rows.hasNext()) {
+                    block.add(rows.next());
+                }
+                return block.toArray(new Row[0]);
+            }
+        };
+    }
+}
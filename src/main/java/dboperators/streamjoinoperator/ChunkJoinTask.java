@@ -0,0 +1,39 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.MergePlan;
+import dboperators.ProjectionPlan;
+import dboperators.Row;
+import dboperators.joinoperator.Index;
+import dboperators.joinoperator.JoinOperator;
+import dboperators.joinoperator.Relation;
+import io.vavr.Lazy;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * The join of a chunk of the first relation with the index of a chunk of the second relation, built once by the first task using it.
+ * The output stream joins it into a collection of rows, the batch-wise output merges the matches directly into a batch.
+ */
+class ChunkJoinTask implements Supplier<Collection<Row>> {
+    private final Relation relation1;
+    private final Lazy<Index> index2;
+    private final ProjectionPlan keyPlan1;
+    private final MergePlan mergePlan;
+
+    ChunkJoinTask(Relation relation1, Lazy<Index> index2, ProjectionPlan keyPlan1, MergePlan mergePlan) {
+        this.relation1 = relation1;
+        this.index2 = index2;
+        this.keyPlan1 = keyPlan1;
+        this.mergePlan = mergePlan;
+    }
+
+    @Override
+    public Collection<Row> get() {
+        return JoinOperator.join(relation1, index2.get(), keyPlan1, mergePlan).getRows();
+    }
+
+    void joinInto(RowBatchBuffer out) {
+        JoinOperator.forEachMatch(relation1, index2.get(), keyPlan1, (row1, row2) -> out.addMergedRow(mergePlan, row1, row2));
+    }
+}
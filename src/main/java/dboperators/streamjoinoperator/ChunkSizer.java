@@ -0,0 +1,92 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Row;
+import dboperators.Rows;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Adaptive sizes of the successive chunks of one relation read by the chunk based joins. <br/>
+ * A cross product of chunks probes every chunk of the second relation with all the rows of the first one,
+ * so bigger chunks mean less index lookups, but every chunk holds its rows and index entries in memory. <br/>
+ * The first chunk has the minimum size, or when the rows count of the relation is estimated, the size splitting it
+ * into as many chunks as the parallelism of the common pool, within the memory budget for rows of a default width.
+ * Every next chunk doubles the size of the previous one as long as it fits in the memory budget,
+ * according to the average width of the rows read so far.
+ */
+class ChunkSizer {
+    static final int MIN_CHUNK_SIZE = 1 << 10;
+    static final int MAX_CHUNK_SIZE = 1 << 22;
+    private static final long DEFAULT_ROW_SIZE = 128;
+    // the estimated size of the index entries of one row
+    private static final long INDEX_ROW_SIZE = 32;
+
+    private final long chunkMemoryBudget;
+    private int chunkSize;
+    private long readRowsCount;
+    private long readRowsSize;
+
+    /**
+     * @param chunkMemoryBudget the estimated heap size in bytes of the rows and index entries of one chunk
+     */
+    ChunkSizer(long chunkMemoryBudget, StreamRelation relation) {
+        this.chunkMemoryBudget = chunkMemoryBudget;
+        final long initialSize = relation.getEstimatedRowsCount()
+                .map(rowsCount -> rowsCount / ForkJoinPool.getCommonPoolParallelism())
+                .orElse((long) MIN_CHUNK_SIZE);
+        this.chunkSize = clamp(Math.min(initialSize, chunkMemoryBudget / (DEFAULT_ROW_SIZE + INDEX_ROW_SIZE)));
+    }
+
+    /**
+     * @return the size of the next chunk, before reading its rows
+     */
+    int nextChunkSize() {
+        if (readRowsCount > 0) {
+            final long rowSize = readRowsSize / readRowsCount + INDEX_ROW_SIZE;
+            chunkSize = clamp(Math.min(2L * chunkSize, chunkMemoryBudget / rowSize));
+        }
+        return chunkSize;
+    }
+
+    /**
+     * Records the width of a read row.
+     */
+    void add(Row row) {
+        readRowsCount++;
+        readRowsSize += Rows.estimatedSize(row);
+    }
+
+    /**
+     * Groups the rows into chunks of the successive sizes.
+     */
+    Iterator<ArrayList<Row>> chunks(Iterator<Row> rows) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public ArrayList<Row> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final int size = nextChunkSize();
+                final ArrayList<Row> chunk = new ArrayList<>(Math.min(size, MIN_CHUNK_SIZE));
+                while (rows.hasNext() && chunk.size() < size) {
+                    final Row row = rows.next();
+                    add(row);
+                    chunk.add(row);
+                }
+                return chunk;
+            }
+        };
+    }
+
+    private static int clamp(long size) {
+        return (int) Math.max(MIN_CHUNK_SIZE, Math.min(size, MAX_CHUNK_SIZE));
+    }
+}
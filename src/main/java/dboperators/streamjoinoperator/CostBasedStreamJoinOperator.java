@@ -0,0 +1,186 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Column;
+import dboperators.Columns;
+import dboperators.ProjectionPlan;
+import dboperators.RelationMetadata;
+import dboperators.sortoperator.ExternalSortOperator;
+
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Chooses the join operator and the build side from the statistics of the two relations:
+ * their estimated rows counts, the estimated distinct counts of their common columns, their sort order and a memory budget.
+ * <ul>
+ * <li>both relations sorted by the common columns: {@link SortMergeStreamJoinOperator}, in constant memory</li>
+ * <li>no estimated rows count at all: {@link SymmetricHashStreamJoinOperator}, producing rows as soon as they are read</li>
+ * <li>both relations fit in the memory budget and are big enough: {@link PartitionedHashStreamJoinOperator},
+ * unless there are too few distinct keys to spread the partitions over all the cores</li>
+ * <li>the smallest relation fits in the memory budget: {@link SingleHashStreamJoinOperator} indexing the smallest relation</li>
+ * <li>otherwise {@link SortMergeStreamJoinOperator} if one relation is already sorted or else {@link GraceHashStreamJoinOperator}</li>
+ * </ul>
+ * A relation without an estimated rows count is considered bigger than any relation having one.
+ * The output columns are always the union of the columns of the first and of the second relation, in this order,
+ * even when the chosen operator gets the relations in the reverse order.
+ */
+public class CostBasedStreamJoinOperator implements IStreamJoinOperator {
+    private static final long DEFAULT_ROW_SIZE = 128;
+    // the estimated size of the index entries of one row, see OpenAddressingIndex
+    private static final long INDEX_ROW_SIZE = 32;
+    private static final long PARALLEL_ROWS_THRESHOLD = 1L << 16;
+
+    private final long memoryBudget;
+    private final long estimatedRowSize;
+
+    public CostBasedStreamJoinOperator() {
+        this(Runtime.getRuntime().maxMemory() / 4);
+    }
+
+    /**
+     * @param memoryBudget the heap size in bytes that the join can use
+     */
+    public CostBasedStreamJoinOperator(long memoryBudget) {
+        this(memoryBudget, DEFAULT_ROW_SIZE);
+    }
+
+    /**
+     * @param estimatedRowSize the estimated heap size in bytes of one row
+     */
+    public CostBasedStreamJoinOperator(long memoryBudget, long estimatedRowSize) {
+        this.memoryBudget = memoryBudget;
+        this.estimatedRowSize = estimatedRowSize;
+    }
+
+    @Override
+    public StreamRelation join(StreamRelation rel1, StreamRelation rel2) {
+        return plan(rel1, rel2).join(rel1, rel2);
+    }
+
+    public Plan plan(StreamRelation rel1, StreamRelation rel2) {
+        Objects.requireNonNull(rel1);
+        Objects.requireNonNull(rel2);
+
+        final ArrayList<Column> commonColumns = Columns.intersection(rel1.getColumns(), rel2.getColumns());
+
+        if (commonColumns.size() > 0) {
+            final boolean sorted1 = rel1.isSortedBy(commonColumns);
+            final boolean sorted2 = rel2.isSortedBy(commonColumns);
+            if (sorted1 && sorted2) {
+                return new Plan(new SortMergeStreamJoinOperator(new ExternalSortOperator(memoryBudget)), false,
+                        "both relations are sorted by the common columns");
+            }
+            if (rel1.getEstimatedRowsCount().isEmpty() && rel2.getEstimatedRowsCount().isEmpty()) {
+                return new Plan(new SymmetricHashStreamJoinOperator(), false, "no estimated rows count");
+            }
+
+            final long rowsCount1 = rel1.getEstimatedRowsCount().orElse(Long.MAX_VALUE);
+            final long rowsCount2 = rel2.getEstimatedRowsCount().orElse(Long.MAX_VALUE);
+            // the single hash operator indexes the second relation
+            final boolean swapped = rowsCount1 < rowsCount2;
+            final StreamRelation buildRel = swapped ? rel1 : rel2;
+            final long buildRowsCount = Math.min(rowsCount1, rowsCount2);
+            final long probeRowsCount = Math.max(rowsCount1, rowsCount2);
+
+            if (indexSize(buildRowsCount) <= memoryBudget) {
+                final boolean bothFit = probeRowsCount != Long.MAX_VALUE
+                        && indexSize(buildRowsCount) + indexSize(probeRowsCount) <= memoryBudget;
+                final boolean enoughKeys = estimatedKeysCount(buildRel, commonColumns)
+                        .map(keysCount -> keysCount >= ForkJoinPool.getCommonPoolParallelism() * 4L)
+                        .orElse(true);
+                if (bothFit && enoughKeys && probeRowsCount >= PARALLEL_ROWS_THRESHOLD) {
+                    return new Plan(new PartitionedHashStreamJoinOperator(), false,
+                            "both relations fit in memory and can be partitioned");
+                }
+                return new Plan(new SingleHashStreamJoinOperator(), swapped,
+                        "the smallest relation with " + buildRowsCount + " rows fits in memory");
+            }
+            if (sorted1 || sorted2) {
+                return new Plan(new SortMergeStreamJoinOperator(new ExternalSortOperator(memoryBudget)), false,
+                        "the relations do not fit in memory and one of them is sorted by the common columns");
+            }
+            return new Plan(new GraceHashStreamJoinOperator(memoryBudget), false,
+                    "the relations do not fit in memory");
+        } else {
+            // create a Cartesian product as there is no common column
+            return new Plan(new BlockNestedLoopStreamJoinOperator(), false, "the relations have no common column");
+        }
+    }
+
+    private long indexSize(long rowsCount) {
+        return rowsCount > Long.MAX_VALUE / (estimatedRowSize + INDEX_ROW_SIZE)
+                ? Long.MAX_VALUE
+                : rowsCount * (estimatedRowSize + INDEX_ROW_SIZE);
+    }
+
+    /**
+     * @return the product of the distinct counts of the columns, capped by the rows count, if they are all estimated
+     */
+    private static Optional<Long> estimatedKeysCount(StreamRelation rel, ArrayList<Column> columns) {
+        long keysCount = 1;
+        for (Column column : columns) {
+            final Optional<Long> distinctCount = rel.getEstimatedDistinctCount(column);
+            if (distinctCount.isEmpty()) {
+                return Optional.empty();
+            }
+            keysCount = distinctCount.get() > 0 && keysCount > Long.MAX_VALUE / distinctCount.get()
+                    ? Long.MAX_VALUE
+                    : keysCount * distinctCount.get();
+        }
+        final long keys = keysCount;
+        return Optional.of(rel.getEstimatedRowsCount().map(rowsCount -> Math.min(rowsCount, keys)).orElse(keys));
+    }
+
+    /**
+     * The chosen operator and the order in which it gets the two relations.
+     */
+    public static class Plan {
+        private final IStreamJoinOperator operator;
+        private final boolean swapped;
+        private final String reason;
+
+        Plan(IStreamJoinOperator operator, boolean swapped, String reason) {
+            this.operator = operator;
+            this.swapped = swapped;
+            this.reason = reason;
+        }
+
+        public IStreamJoinOperator getOperator() {
+            return operator;
+        }
+
+        /**
+         * @return true if the operator gets the second relation first
+         */
+        public boolean isSwapped() {
+            return swapped;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public StreamRelation join(StreamRelation rel1, StreamRelation rel2) {
+            if (!swapped) {
+                return operator.join(rel1, rel2);
+            }
+            // restore the order of the output columns
+            final StreamRelation swappedOutRel = operator.join(rel2, rel1);
+            final ArrayList<Column> outRelColumns = Columns.union(rel1.getColumns(), rel2.getColumns());
+            final ProjectionPlan outPlan = ProjectionPlan.of(swappedOutRel, new RelationMetadata(outRelColumns));
+            return new StreamRelation(outRelColumns, swappedOutRel.getRows().map(outPlan::project));
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Plan.class.getSimpleName() + "[", "]")
+                    .add("operator=" + operator.getClass().getSimpleName())
+                    .add("swapped=" + swapped)
+                    .add("reason='" + reason + "'")
+                    .toString();
+        }
+    }
+}
@@ -2,28 +2,33 @@ package dboperators.streamjoinoperator;
 
 import dboperators.Column;
 import dboperators.Columns;
+import dboperators.MergePlan;
+import dboperators.ProjectionPlan;
+import dboperators.RelationMetadata;
+import dboperators.Row;
+import dboperators.batch.RowBatch;
 import dboperators.joinoperator.Index;
-import dboperators.joinoperator.JoinOperator;
 import dboperators.joinoperator.Relation;
 import io.vavr.Function1;
+import io.vavr.Lazy;
 import io.vavr.Tuple;
 import io.vavr.Tuple2;
 import io.vavr.collection.Iterator;
 import io.vavr.collection.List;
-import io.vavr.collection.Stream;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
 It uses the vavr library for sequential stream/iterator operations.<br>
 Implements a custom join operation based on the following steps:
  <ul>
-<li>first groups both relations rows into a stream of chunks of rows of fixed size,</li>
+<li>first groups both relations rows into a stream of chunks of rows of growing sizes, see {@link ChunkSizer},</li>
 <li>then maps one stream of chunked relations into indexes </li>
 <li>then  creates a cross product between the stream of chunked relations and the stream of chunked indexes by
  <ul>
@@ -34,11 +39,25 @@ Implements a custom join operation based on the following steps:
  </ul>
 </li>
  </ul>
+ Every join of a chunk of relation 1 with an index of relation 2 is an independent task, taken from the cross product under a lock
+ and run outside of it, so a parallel output stream joins the chunk pairs on many threads. <br/>
  Runtime complexity: O(N1*N2*b/chunk-size) - where b is the index bucket size. <br/>
  Memory complexity: O(chunk-size) <br/>
  */
 public class CrossProductChunkBasedStreamJoinOperator implements IStreamJoinOperator {
-    private static final int CHUNK_SIZE = 1 << 10;
+    private final long memoryBudget;
+
+    public CrossProductChunkBasedStreamJoinOperator() {
+        this(Runtime.getRuntime().maxMemory() / 4);
+    }
+
+    /**
+     * @param memoryBudget the estimated heap size in bytes of a pair of joined chunks, their rows and index entries,
+     *                     which bounds the sizes of the chunks, see {@link ChunkSizer}
+     */
+    public CrossProductChunkBasedStreamJoinOperator(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
 
     @Override
     public StreamRelation join(StreamRelation rel1, StreamRelation rel2) {
@@ -50,48 +69,74 @@ public class CrossProductChunkBasedStreamJoinOperator implements IStreamJoinOper
         if (commonColumns.size() > 0) {
             // create the columns of the output relation
             ArrayList<Column> outRelColumns = Columns.union(rel1.getColumns(), rel2.getColumns());
+            final Iterator<ChunkJoinTask> joinTasks = joinTasks(rel1, rel1.getRows(), rel2, rel2.getRows(), commonColumns, outRelColumns);
 
-            // create the stream of the output relation
-            final Iterator<List<Relation>> relations1 = Stream.ofAll(rel1.getRows()).grouped(CHUNK_SIZE)
-                    .map(rows -> new Relation(rel1.getColumns(), rows.collect(Collectors.toList())))
-                    .map(toIntermediaryList());
+            // create the output relation
+            return new StreamRelation(outRelColumns, StreamSupport.stream(JoinTasksSpliterator.of(joinTasks), false));
+        } else {
+            // create a Cartesian product as there is no common column
+            return new BlockNestedLoopStreamJoinOperator().join(rel1, rel2);
+        }
+    }
 
-            final Iterator<Relation> relations2 = Stream.ofAll(rel2.getRows()).grouped(CHUNK_SIZE)
-                    .map(rows -> new Relation(rel2.getColumns(), rows.collect(Collectors.toList())));
-            final Iterator<List<Index>> indexes2 = relations2.map(rc2 -> new Index(rc2, commonColumns))
-                    .map(toIntermediaryList());
+    /**
+     * Runs the join tasks one after the other, every task merging its matches directly into the batch.
+     */
+    @Override
+    public long joinBatches(StreamRelation rel1, StreamRelation rel2, int batchSize, Consumer<? super RowBatch> sink) {
+        Objects.requireNonNull(rel1);
+        Objects.requireNonNull(rel2);
+        Objects.requireNonNull(sink);
 
-            final Iterator<Relation> outRelations = this.zipAll(relations1, indexes2, toLastWhenNull(), toLastWhenNull())
-                    .flatMap(relationIndexLists -> {
-                        final List<Relation> cRelations1 = relationIndexLists._1();
-                        final List<Index> cIndexes2 = relationIndexLists._2();
+        final ArrayList<Column> commonColumns = Columns.intersection(rel1.getColumns(), rel2.getColumns());
+        if (commonColumns.isEmpty()) {
+            return IStreamJoinOperator.super.joinBatches(rel1, rel2, batchSize, sink);
+        }
+        final ArrayList<Column> outRelColumns = Columns.union(rel1.getColumns(), rel2.getColumns());
+        final RowBatchBuffer out = new RowBatchBuffer(outRelColumns, batchSize, sink);
+        try (Stream<Row> rows1 = rel1.getRows(); Stream<Row> rows2 = rel2.getRows()) {
+            joinTasks(rel1, rows1, rel2, rows2, commonColumns, outRelColumns).forEach(task -> task.joinInto(out));
+        }
+        return out.flush();
+    }
 
-                        if(cRelations1.head() == null && cIndexes2.head() == null){
-                            return Iterator.empty();//this case should not happen, but it is safer to check
-                        }
+    private Iterator<ChunkJoinTask> joinTasks(StreamRelation rel1, Stream<Row> rows1, StreamRelation rel2, Stream<Row> rows2,
+                                              ArrayList<Column> commonColumns, ArrayList<Column> outRelColumns) {
+        final ProjectionPlan keyPlan1 = ProjectionPlan.of(rel1, new RelationMetadata(commonColumns));
+        final MergePlan mergePlan = MergePlan.of(rel1, rel2, new RelationMetadata(outRelColumns));
 
-                        if(cRelations1.head() == null){
-                            return cRelations1.tail().iterator().map(relation -> JoinOperator.join(relation, cIndexes2.head()));
-                        }
+        final Iterator<List<Relation>> relations1 = Iterator.ofAll(new ChunkSizer(memoryBudget / 2, rel1).chunks(rows1.iterator()))
+                .map(rows -> new Relation(rel1.getColumns(), rows))
+                .map(toIntermediaryList());
 
-                        if(cIndexes2.head() == null){
-                            return cIndexes2.tail().iterator().map(index -> JoinOperator.join(cRelations1.head(), index));
-                        }
+        final Iterator<Relation> relations2 = Iterator.ofAll(new ChunkSizer(memoryBudget / 2, rel2).chunks(rows2.iterator()))
+                .map(rows -> new Relation(rel2.getColumns(), rows));
+        // the indexes are built once, by the first task using them
+        final Iterator<List<Lazy<Index>>> indexes2 = relations2.map(rc2 -> Lazy.of(() -> new Index(rc2, commonColumns)))
+                .map(toIntermediaryList());
 
-                        // both heads are not null
-                        final Iterator<Relation> out1 = cRelations1.iterator().map(relation -> JoinOperator.join(relation, cIndexes2.head()));
-                        final Iterator<Relation> out2 = cIndexes2.tail().iterator().map(index -> JoinOperator.join(cRelations1.head(), index));
-                        return out1.concat(out2);
-                    });
+        return this.zipAll(relations1, indexes2, toLastWhenNull(), toLastWhenNull())
+                .flatMap(relationIndexLists -> {
+                    final List<Relation> cRelations1 = relationIndexLists._1();
+                    final List<Lazy<Index>> cIndexes2 = relationIndexLists._2();
 
+                    if(cRelations1.head() == null && cIndexes2.head() == null){
+                        return Iterator.empty();//this case should not happen, but it is safer to check
+                    }
 
-            // create the output relation
-            return new StreamRelation(outRelColumns, outRelations.toJavaStream().map(Relation::getRows).flatMap(Collection::stream));
-        } else {
-            // create a Cartesian product as there is no common column
-            //TODO: implement it or leave it as an error
-            throw new IllegalStateException("The two input relations have no common column!");
-        }
+                    if(cRelations1.head() == null){
+                        return cRelations1.tail().iterator().map(relation -> new ChunkJoinTask(relation, cIndexes2.head(), keyPlan1, mergePlan));
+                    }
+
+                    if(cIndexes2.head() == null){
+                        return cIndexes2.tail().iterator().map(index -> new ChunkJoinTask(cRelations1.head(), index, keyPlan1, mergePlan));
+                    }
+
+                    // both heads are not null
+                    final Iterator<ChunkJoinTask> out1 = cRelations1.iterator().map(relation -> new ChunkJoinTask(relation, cIndexes2.head(), keyPlan1, mergePlan));
+                    final Iterator<ChunkJoinTask> out2 = cIndexes2.tail().iterator().map(index -> new ChunkJoinTask(cRelations1.head(), index, keyPlan1, mergePlan));
+                    return out1.concat(out2);
+                });
     }
 
     private <T> Function<List<T>, List<T>> toLastWhenNull() {
@@ -0,0 +1,287 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Column;
+import dboperators.Columns;
+import dboperators.Hashing;
+import dboperators.MergePlan;
+import dboperators.ProjectionPlan;
+import dboperators.RelationMetadata;
+import dboperators.Row;
+import dboperators.Rows;
+import dboperators.SpillFile;
+import dboperators.joinoperator.BloomFilter;
+import dboperators.joinoperator.HashJoinProbe;
+import dboperators.joinoperator.JoinType;
+import dboperators.joinoperator.OpenAddressingIndex;
+import dboperators.joinoperator.Relation;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Grace hash join, spilling to disk the relations that do not fit in a memory budget. <br/>
+ * It reads the build relation, the smallest one according to the estimated rows counts or else the second one, in memory.
+ * If it fits in the memory budget it is indexed and probed with the rows of the other relation, like in {@link SingleHashStreamJoinOperator}.
+ * Otherwise both relations are hash partitioned on their common columns into temporary {@link SpillFile}s
+ * and then the partitions are joined one by one, each partition being partitioned again if it still does not fit. <br/>
+ * Only after a few partitioning levels, which happens only when a single key has too many rows, the build partition is read in memory anyway. <br/>
+ * Runtime complexity O(N1+N2*b) plus the disk I/O of writing and reading once both relations per partitioning level <br/>
+ * Memory complexity O(memory budget) <br/>
+ */
+public class GraceHashStreamJoinOperator implements IStreamJoinOperator {
+    private static final int PARTITION_BITS = 5;
+    private static final int PARTITIONS_COUNT = 1 << PARTITION_BITS;
+    private static final int MAX_DEPTH = 4;
+    // the estimated size of the open addressing index entries of one row
+    private static final long INDEX_ROW_SIZE = 32;
+
+    private final long memoryBudget;
+    private final Path spillDirectory;
+    private final boolean withBloomFilters;
+    private final JoinType joinType;
+
+    /**
+     * @param memoryBudget the estimated heap size in bytes of the build side rows that can be indexed in memory
+     */
+    public GraceHashStreamJoinOperator(long memoryBudget) {
+        this(memoryBudget, null);
+    }
+
+    /**
+     * @param spillDirectory the directory of the temporary files or null for the default temporary directory
+     */
+    public GraceHashStreamJoinOperator(long memoryBudget, Path spillDirectory) {
+        this(memoryBudget, spillDirectory, false);
+    }
+
+    /**
+     * @param withBloomFilters whether to build a Bloom filter of the build keys, used for rejecting the probe rows without match
+     *                         before probing the in memory index or before writing them to the spill files
+     */
+    public GraceHashStreamJoinOperator(long memoryBudget, Path spillDirectory, boolean withBloomFilters) {
+        this(memoryBudget, spillDirectory, withBloomFilters, JoinType.INNER);
+    }
+
+    /**
+     * @param joinType the join type, whose rows without match are output by the join of the partition they are spilled to
+     */
+    public GraceHashStreamJoinOperator(long memoryBudget, Path spillDirectory, boolean withBloomFilters, JoinType joinType) {
+        this.memoryBudget = memoryBudget;
+        this.spillDirectory = spillDirectory;
+        this.withBloomFilters = withBloomFilters;
+        this.joinType = Objects.requireNonNull(joinType);
+    }
+
+    @Override
+    public JoinType getJoinType() {
+        return joinType;
+    }
+
+    @Override
+    public StreamRelation join(StreamRelation rel1, StreamRelation rel2) {
+        Objects.requireNonNull(rel1);
+        Objects.requireNonNull(rel2);
+
+        final ArrayList<Column> commonColumns = Columns.intersection(rel1.getColumns(), rel2.getColumns());
+
+        if (commonColumns.size() > 0 || joinType != JoinType.INNER) {
+            // create the columns of the output relation
+            ArrayList<Column> outRelColumns = joinType.getColumns(rel1, rel2);
+            final MergePlan mergePlan = joinType.isFiltering() ? null : MergePlan.of(rel1, rel2, new RelationMetadata(outRelColumns));
+
+            final boolean buildRel1 = rel1.getEstimatedRowsCount().isPresent() && rel2.getEstimatedRowsCount().isPresent()
+                    && rel1.getEstimatedRowsCount().get() < rel2.getEstimatedRowsCount().get();
+            final JoinSides sides = buildRel1
+                    ? new JoinSides(rel1, rel2, true, commonColumns, mergePlan, joinType)
+                    : new JoinSides(rel2, rel1, false, commonColumns, mergePlan, joinType);
+
+            // the build side is read only when the output stream is consumed
+            final Stream<Row> outRows = Rows.lazy(() -> join(sides, sides.buildRel.getRows(), sides.probeRel.getRows(), 0));
+            return new StreamRelation(outRelColumns, outRows);
+        } else {
+            // create a Cartesian product as there is no common column
+            return new BlockNestedLoopStreamJoinOperator().join(rel1, rel2);
+        }
+    }
+
+    private Stream<Row> join(JoinSides sides, Stream<Row> buildRows, Stream<Row> probeRows, int depth) {
+        // read the build rows in memory until the memory budget is exceeded
+        final Iterator<Row> buildIterator = buildRows.iterator();
+        final ArrayList<Row> bufferedRows = new ArrayList<>();
+        long bufferedSize = 0;
+        while (buildIterator.hasNext() && (bufferedSize <= memoryBudget || depth >= MAX_DEPTH)) {
+            final Row buildRow = buildIterator.next();
+            bufferedRows.add(buildRow);
+            bufferedSize += Rows.estimatedSize(buildRow) + INDEX_ROW_SIZE;
+        }
+
+        if (bufferedSize <= memoryBudget || depth >= MAX_DEPTH) {
+            buildRows.close();
+            final OpenAddressingIndex index = new OpenAddressingIndex(new Relation(sides.buildRel.getColumns(), bufferedRows), sides.commonColumns, withBloomFilters);
+            return new HashJoinProbe(index, sides.buildIsFirst, sides.probeKeyPlan.getIndexes(), sides.mergePlan, sides.joinType)
+                    .join(probeRows);
+        }
+
+        // spill both sides into partitions
+        final SpillFile[] buildFiles = new SpillFile[PARTITIONS_COUNT];
+        final SpillFile[] probeFiles = new SpillFile[PARTITIONS_COUNT];
+        for (int p = 0; p < PARTITIONS_COUNT; p++) {
+            buildFiles[p] = new SpillFile(sides.buildRel.getColumns(), spillDirectory);
+            probeFiles[p] = new SpillFile(sides.probeRel.getColumns(), spillDirectory);
+        }
+        // the probe rows rejected by the Bloom filter of the build keys are not written at all, unless they are in the output
+        final BloomFilter bloomFilter = withBloomFilters && !sides.keepsUnmatchedProbeRows
+                ? new BloomFilter(Math.max(sides.buildRel.getEstimatedRowsCount().orElse(0L), bufferedRows.size() * 2L))
+                : null;
+        final int[] buildKeyIndexes = sides.buildKeyPlan.getIndexes();
+        final Consumer<Row> buildWriter = buildRow -> {
+            final long hash = Hashing.hash(buildRow.getValues(), buildKeyIndexes);
+            if (bloomFilter != null) {
+                bloomFilter.add(hash);
+            }
+            buildFiles[partitionOf(hash, depth)].write(buildRow);
+        };
+        bufferedRows.forEach(buildWriter);
+        bufferedRows.clear();
+        buildIterator.forEachRemaining(buildWriter);
+        buildRows.close();
+        final int[] probeKeyIndexes = sides.probeKeyPlan.getIndexes();
+        probeRows.iterator().forEachRemaining(probeRow -> {
+            final long hash = Hashing.hash(probeRow.getValues(), probeKeyIndexes);
+            if (bloomFilter == null || bloomFilter.mightContain(hash)) {
+                probeFiles[partitionOf(hash, depth)].write(probeRow);
+            }
+        });
+        probeRows.close();
+
+        return joinPartitions(sides, buildFiles, probeFiles, depth);
+    }
+
+    /**
+     * Joins the partitions one by one, pulling the joined rows of a partition one at a time. <br/>
+     * The files of every partition are deleted as soon as its joined rows are all read,
+     * and closing the returned stream deletes the files of the partitions not read yet,
+     * e.g. once a consumer stops early with a limit or a findFirst.
+     */
+    private Stream<Row> joinPartitions(JoinSides sides, SpillFile[] buildFiles, SpillFile[] probeFiles, int depth) {
+        final PartitionsRows partitionsRows = new PartitionsRows(sides, buildFiles, probeFiles, depth);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(partitionsRows, Spliterator.NONNULL), false)
+                .onClose(partitionsRows::close);
+    }
+
+    /**
+     * Every partitioning level uses the next bits of the key hash, starting with the highest ones.
+     */
+    private static int partitionOf(long hash, int depth) {
+        return (int) (hash >>> (Long.SIZE - PARTITION_BITS * (depth + 1))) & (PARTITIONS_COUNT - 1);
+    }
+
+    /**
+     * Iterates the joined rows of the spilled partitions, joining a partition only once the rows of the previous one are read.
+     */
+    private class PartitionsRows implements Iterator<Row> {
+        private final JoinSides sides;
+        private final SpillFile[] buildFiles;
+        private final SpillFile[] probeFiles;
+        private final int depth;
+        private int partition = -1;
+        private Stream<Row> rows = Stream.empty();
+        private Iterator<Row> rowsIterator = Collections.emptyIterator();
+
+        PartitionsRows(JoinSides sides, SpillFile[] buildFiles, SpillFile[] probeFiles, int depth) {
+            this.sides = sides;
+            this.buildFiles = buildFiles;
+            this.probeFiles = probeFiles;
+            this.depth = depth;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!rowsIterator.hasNext()) {
+                closePartition();
+                if (partition == PARTITIONS_COUNT - 1) {
+                    return false;
+                }
+                partition++;
+                final boolean emptyBuild = buildFiles[partition].getRowsCount() == 0 && !sides.keepsUnmatchedProbeRows;
+                final boolean emptyProbe = probeFiles[partition].getRowsCount() == 0 && !sides.keepsUnmatchedBuildRows;
+                rows = emptyBuild || emptyProbe
+                        ? Stream.empty()
+                        : join(sides, buildFiles[partition].readRows(), probeFiles[partition].readRows(), depth + 1);
+                rowsIterator = rows.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return rowsIterator.next();
+        }
+
+        /**
+         * Closes the rows of the current partition and deletes its files.
+         */
+        private void closePartition() {
+            rows.close();
+            rowsIterator = Collections.emptyIterator();
+            if (partition >= 0) {
+                buildFiles[partition].close();
+                probeFiles[partition].close();
+            }
+        }
+
+        /**
+         * Closes the current partition and deletes the files of all the partitions, the ones not read yet included.
+         */
+        void close() {
+            try {
+                closePartition();
+            } finally {
+                partition = PARTITIONS_COUNT - 1;
+                for (int p = 0; p < PARTITIONS_COUNT; p++) {
+                    buildFiles[p].close();
+                    probeFiles[p].close();
+                }
+            }
+        }
+    }
+
+    private static class JoinSides {
+        final StreamRelation buildRel;
+        final StreamRelation probeRel;
+        final boolean buildIsFirst;
+        final ArrayList<Column> commonColumns;
+        final ProjectionPlan buildKeyPlan;
+        final ProjectionPlan probeKeyPlan;
+        final MergePlan mergePlan;
+        final JoinType joinType;
+        final boolean keepsUnmatchedBuildRows;
+        final boolean keepsUnmatchedProbeRows;
+
+        JoinSides(StreamRelation buildRel, StreamRelation probeRel, boolean buildIsFirst, ArrayList<Column> commonColumns,
+                  MergePlan mergePlan, JoinType joinType) {
+            this.buildRel = buildRel;
+            this.probeRel = probeRel;
+            this.buildIsFirst = buildIsFirst;
+            this.commonColumns = commonColumns;
+            this.buildKeyPlan = ProjectionPlan.of(buildRel, new RelationMetadata(commonColumns));
+            this.probeKeyPlan = ProjectionPlan.of(probeRel, new RelationMetadata(commonColumns));
+            this.mergePlan = mergePlan;
+            this.joinType = joinType;
+            this.keepsUnmatchedBuildRows = buildIsFirst ? joinType.keepsUnmatchedRows1() : joinType.keepsUnmatchedRows2();
+            this.keepsUnmatchedProbeRows = buildIsFirst ? joinType.keepsUnmatchedRows2() : joinType.keepsUnmatchedRows1();
+        }
+    }
+}
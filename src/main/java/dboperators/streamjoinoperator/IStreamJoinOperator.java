@@ -1,5 +1,74 @@
 package dboperators.streamjoinoperator;
 
+import dboperators.Column;
+import dboperators.ColumnPredicate;
+import dboperators.Row;
+import dboperators.batch.RowBatch;
+import dboperators.filteroperator.FilterOperator;
+import dboperators.filteroperator.ProjectOperator;
+import dboperators.joinoperator.JoinType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 public interface IStreamJoinOperator {
     StreamRelation join(StreamRelation rel1, StreamRelation rel2);
+
+    /**
+     * Same as {@link #join(StreamRelation, StreamRelation)}, but hands the output rows to the sink in columnar batches
+     * of at most batchSize rows, all of them on the calling thread and before returning. <br/>
+     * The sink receives the same batch every time, cleared and refilled between the calls, so it must copy the rows it keeps.
+     * By default the rows of the output stream are grouped into the batches, the operators able to merge their matches
+     * directly into the batch override it and skip the per row stream pipeline. It consumes the rows streams of the relations.
+     * @return the number of output rows
+     */
+    default long joinBatches(StreamRelation rel1, StreamRelation rel2, int batchSize, Consumer<? super RowBatch> sink) {
+        Objects.requireNonNull(sink);
+        final StreamRelation outRel = join(rel1, rel2);
+        final RowBatchBuffer out = new RowBatchBuffer(outRel.getColumns(), batchSize, sink);
+        try (Stream<Row> outRows = outRel.getRows()) {
+            outRows.sequential().forEach(out);
+        }
+        return out.flush();
+    }
+
+    /**
+     * @return the join type of the operator, {@link JoinType#INNER} for the operators without join type
+     */
+    default JoinType getJoinType() {
+        return JoinType.INNER;
+    }
+
+    /**
+     * Same as {@link #join(StreamRelation, StreamRelation)} with filters and a projection pushed down into the join. <br/>
+     * The predicates filter the output of the join. Every predicate is applied to the relations having its column,
+     * both of them for a common column, so the rejected rows never reach the join, as long as the rows without match
+     * of the other relation are not in the output: rejecting the rows of a relation would turn their matches into rows without match.
+     * So the outer joins push the predicates only into their preserved relation, the anti joins only into the first one,
+     * and the other predicates filter the joined rows. By default the joined rows are projected onto the output columns,
+     * the operators able to merge the rows directly into the output columns override it.
+     * @param outColumns the output columns, any of the columns of the two relations
+     */
+    default StreamRelation join(StreamRelation rel1, StreamRelation rel2, List<ColumnPredicate> predicates, ArrayList<Column> outColumns) {
+        Objects.requireNonNull(rel1);
+        Objects.requireNonNull(rel2);
+        Objects.requireNonNull(predicates);
+        Objects.requireNonNull(outColumns);
+        ColumnPredicate.checkApplicable(predicates, rel1, rel2);
+
+        final JoinType joinType = getJoinType();
+        final List<ColumnPredicate> predicates1 = joinType.keepsUnmatchedRows2() ? List.of() : ColumnPredicate.applicableTo(predicates, rel1);
+        final List<ColumnPredicate> predicates2 = joinType.keepsUnmatchedRows1() ? List.of() : ColumnPredicate.applicableTo(predicates, rel2);
+        final List<ColumnPredicate> joinedPredicates = predicates.stream()
+                .filter(predicate -> !predicates1.contains(predicate) && !predicates2.contains(predicate))
+                .collect(Collectors.toList());
+
+        final FilterOperator filterOperator = new FilterOperator();
+        final StreamRelation joined = join(filterOperator.filter(rel1, predicates1), filterOperator.filter(rel2, predicates2));
+        return new ProjectOperator().project(filterOperator.filter(joined, joinedPredicates), outColumns);
+    }
 }
@@ -0,0 +1,112 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Row;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Spliterator of the rows produced by independent join tasks, e.g. the joins of pairs of chunks, taken from a shared source. <br/>
+ * Splitting it creates another worker taking its tasks from the same source, up to twice the parallelism of the common pool,
+ * so a parallel stream runs the tasks on as many threads while every task is taken by exactly one worker.
+ * The rows are not ordered between the tasks.
+ */
+class JoinTasksSpliterator implements Spliterator<Row> {
+    private final JoinTasks tasks;
+    private final AtomicInteger workersCount;
+    private final int maxWorkersCount;
+    // the rows of the last task run by tryAdvance, reused between the tasks
+    private final ArrayList<Row> results = new ArrayList<>();
+    private final Consumer<Row> resultsWriter = results::add;
+    private int resultPosition;
+
+    /**
+     * A thread safe source of join tasks.
+     */
+    interface JoinTasks {
+        /**
+         * Takes the next task and runs it, ideally without holding any lock shared with the other workers.
+         * @param action receives the rows of the task, one at a time, on the thread of the worker
+         * @return false when there is no task left
+         */
+        boolean runNext(Consumer<? super Row> action);
+    }
+
+    JoinTasksSpliterator(JoinTasks tasks) {
+        this(tasks, new AtomicInteger(1), 2 * ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    private JoinTasksSpliterator(JoinTasks tasks, AtomicInteger workersCount, int maxWorkersCount) {
+        this.tasks = tasks;
+        this.workersCount = workersCount;
+        this.maxWorkersCount = maxWorkersCount;
+    }
+
+    /**
+     * @param tasks the lazily created tasks, taken under the lock of the iterator and run outside of it
+     */
+    static JoinTasksSpliterator of(Iterator<? extends Supplier<? extends Collection<Row>>> tasks) {
+        return new JoinTasksSpliterator(action -> {
+            final Supplier<? extends Collection<Row>> task;
+            synchronized (tasks) {
+                if (!tasks.hasNext()) {
+                    return false;
+                }
+                task = tasks.next();
+            }
+            task.get().forEach(action);
+            return true;
+        });
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Row> action) {
+        while (resultPosition == results.size()) {
+            results.clear();
+            resultPosition = 0;
+            if (!tasks.runNext(resultsWriter)) {
+                return false;
+            }
+        }
+        action.accept(results.get(resultPosition++));
+        return true;
+    }
+
+    /**
+     * Hands the rows of the tasks directly to the action, without buffering them.
+     */
+    @Override
+    public void forEachRemaining(Consumer<? super Row> action) {
+        while (resultPosition < results.size()) {
+            action.accept(results.get(resultPosition++));
+        }
+        while (tasks.runNext(action)) {
+            // the task rows are already consumed
+        }
+    }
+
+    @Override
+    public Spliterator<Row> trySplit() {
+        final int count = workersCount.get();
+        if (count >= maxWorkersCount || !workersCount.compareAndSet(count, count + 1)) {
+            return null;
+        }
+        return new JoinTasksSpliterator(tasks, workersCount, maxWorkersCount);
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL;
+    }
+}
@@ -0,0 +1,105 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * The window of the rows of each input that a {@link WindowedSymmetricHashStreamJoinOperator} keeps for joining the next rows. <br/>
+ * A rows window keeps the last rows read from each input. <br/>
+ * A time window joins only the rows whose timestamps differ by at most its size. The watermark is the smallest of the greatest
+ * timestamps read from each input minus the allowed lateness: the rows too old to match a row above the watermark are evicted
+ * and the rows read with a timestamp below the greatest one of their input minus the allowed lateness are dropped.
+ */
+public class JoinWindow {
+    private final long rowsCount;
+    private final Column timestampColumn1;
+    private final Column timestampColumn2;
+    private final long size;
+    private final long allowedLateness;
+
+    private JoinWindow(long rowsCount, Column timestampColumn1, Column timestampColumn2, long size, long allowedLateness) {
+        this.rowsCount = rowsCount;
+        this.timestampColumn1 = timestampColumn1;
+        this.timestampColumn2 = timestampColumn2;
+        this.size = size;
+        this.allowedLateness = allowedLateness;
+    }
+
+    /**
+     * @param rowsCount the number of last rows of each input joined with the next rows of the other one
+     */
+    public static JoinWindow ofRows(long rowsCount) {
+        if (rowsCount <= 0) {
+            throw new IllegalArgumentException("The rows count of a window must be positive: " + rowsCount);
+        }
+        return new JoinWindow(rowsCount, null, null, 0, 0);
+    }
+
+    /**
+     * A time window over inputs read in the order of their timestamps.
+     */
+    public static JoinWindow ofTime(Column timestampColumn1, Column timestampColumn2, long size) {
+        return ofTime(timestampColumn1, timestampColumn2, size, 0);
+    }
+
+    /**
+     * @param timestampColumn1 the INTEGER or LONG timestamp column of the first relation, which can be the one of the second relation,
+     *                         the timestamp columns being never part of the join key
+     * @param size the greatest difference of the timestamps of two joined rows
+     * @param allowedLateness how far behind the greatest timestamp of its input the timestamp of a row can be without being dropped
+     */
+    public static JoinWindow ofTime(Column timestampColumn1, Column timestampColumn2, long size, long allowedLateness) {
+        Objects.requireNonNull(timestampColumn1);
+        Objects.requireNonNull(timestampColumn2);
+        for (Column column : new Column[]{timestampColumn1, timestampColumn2}) {
+            if (column.getType() != ColumnType.INTEGER && column.getType() != ColumnType.LONG) {
+                throw new IllegalArgumentException("Unsupported timestamp column type: " + column);
+            }
+        }
+        if (size < 0 || allowedLateness < 0) {
+            throw new IllegalArgumentException("The size and the allowed lateness of a window cannot be negative");
+        }
+        return new JoinWindow(0, timestampColumn1, timestampColumn2, size, allowedLateness);
+    }
+
+    public boolean isTimeBased() {
+        return timestampColumn1 != null;
+    }
+
+    public long getRowsCount() {
+        return rowsCount;
+    }
+
+    public Column getTimestampColumn1() {
+        return timestampColumn1;
+    }
+
+    public Column getTimestampColumn2() {
+        return timestampColumn2;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getAllowedLateness() {
+        return allowedLateness;
+    }
+
+    @Override
+    public String toString() {
+        return isTimeBased()
+                ? new StringJoiner(", ", JoinWindow.class.getSimpleName() + "[", "]")
+                .add("timestampColumn1=" + timestampColumn1)
+                .add("timestampColumn2=" + timestampColumn2)
+                .add("size=" + size)
+                .add("allowedLateness=" + allowedLateness)
+                .toString()
+                : new StringJoiner(", ", JoinWindow.class.getSimpleName() + "[", "]")
+                .add("rowsCount=" + rowsCount)
+                .toString();
+    }
+}
@@ -0,0 +1,230 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Column;
+import dboperators.Columns;
+import dboperators.Hashing;
+import dboperators.RelationMetadata;
+import dboperators.Row;
+import dboperators.joinoperator.OpenAddressingIndex;
+import dboperators.joinoperator.Relation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Pipelined natural join of N relations, e.g. of the fact relation of a star schema with its dimension relations. <br/>
+ * It indexes in an {@link OpenAddressingIndex} every relation except the largest one according to the estimated rows counts,
+ * or else the first one, which is streamed and probes the indexes one after the other in a single pass.
+ * Every index is probed on its columns common with the relations joined before it, read in place from one array of output values
+ * filled by the probe row and the matched rows and reused for all the probe rows, so no intermediary merged row
+ * and no key row is created, only the final output rows, handed one at a time to the output stream. <br/>
+ * The indexes are probed in an order where every index has common columns with the relations joined before it, if possible,
+ * and the smallest first, so that the probe rows without match are rejected as soon as possible.
+ * The output has the same columns and rows as the nested joins of the relations in the given order. <br/>
+ * Runtime complexity O(N1+...+Nn + N*b) where N is the rows count of the streamed relation and b the number of intermediary matches <br/>
+ * Memory complexity O(N1+...+Nn) of all the indexed relations <br/>
+ */
+public class MultiWayHashStreamJoinOperator implements IStreamJoinOperator {
+
+    @Override
+    public StreamRelation join(StreamRelation rel1, StreamRelation rel2) {
+        return join(List.of(rel1, rel2));
+    }
+
+    public StreamRelation join(List<StreamRelation> relations) {
+        Objects.requireNonNull(relations);
+        if (relations.isEmpty()) {
+            throw new IllegalStateException("There is no relation to join!");
+        }
+        relations.forEach(Objects::requireNonNull);
+
+        // create the columns of the output relation
+        ArrayList<Column> outRelColumns = new ArrayList<>();
+        for (StreamRelation relation : relations) {
+            outRelColumns = Columns.union(outRelColumns, relation.getColumns());
+        }
+        final RelationMetadata outRelMetadata = new RelationMetadata(outRelColumns);
+
+        final StreamRelation probeRel = relations.stream()
+                .reduce((r1, r2) -> rowsCount(r2) > rowsCount(r1) ? r2 : r1)
+                .get();
+        final List<Step> steps = plan(probeRel, relations, outRelMetadata);
+        final int[] probeOutIndexes = outIndexes(probeRel, outRelMetadata);
+        final int outColumnsCount = outRelColumns.size();
+
+        // the indexed relations are read only when the output stream is consumed
+        final Stream<Row> outRows = Stream.of(steps)
+                .flatMap(s -> {
+                    s.forEach(Step::buildIndex);
+                    if (s.stream().anyMatch(step -> step.index.getRowsCount() == 0)) {
+                        probeRel.getRows().close();
+                        return Stream.empty();
+                    }
+                    final ProbeSpliterator probeSpliterator =
+                            new ProbeSpliterator(probeRel.getRows().iterator(), s, probeOutIndexes, outColumnsCount);
+                    return StreamSupport.stream(probeSpliterator, false).onClose(probeRel.getRows()::close);
+                });
+        return new StreamRelation(outRelColumns, outRows);
+    }
+
+    /**
+     * Orders the relations to index after the probe relation, preferring the ones with common columns and then the smallest ones.
+     */
+    private static List<Step> plan(StreamRelation probeRel, List<StreamRelation> relations, RelationMetadata outRelMetadata) {
+        final List<StreamRelation> buildRels = relations.stream()
+                .filter(relation -> relation != probeRel)
+                .collect(Collectors.toCollection(ArrayList::new));
+        final Set<Column> joinedColumns = new HashSet<>(probeRel.getColumns());
+        final List<Step> steps = new ArrayList<>();
+        while (!buildRels.isEmpty()) {
+            StreamRelation next = null;
+            for (StreamRelation buildRel : buildRels) {
+                if (next == null || isBetter(buildRel, next, joinedColumns)) {
+                    next = buildRel;
+                }
+            }
+            buildRels.remove(next);
+            final ArrayList<Column> keyColumns = next.getColumns().stream()
+                    .filter(joinedColumns::contains)
+                    .collect(Collectors.toCollection(ArrayList::new));
+            steps.add(new Step(next, keyColumns, outRelMetadata));
+            joinedColumns.addAll(next.getColumns());
+        }
+        return steps;
+    }
+
+    private static boolean isBetter(StreamRelation rel, StreamRelation otherRel, Set<Column> joinedColumns) {
+        final boolean joined = rel.getColumns().stream().anyMatch(joinedColumns::contains);
+        final boolean otherJoined = otherRel.getColumns().stream().anyMatch(joinedColumns::contains);
+        if (joined != otherJoined) {
+            return joined;
+        }
+        return rowsCount(rel) < rowsCount(otherRel);
+    }
+
+    private static long rowsCount(StreamRelation relation) {
+        return relation.getEstimatedRowsCount().orElse(Long.MAX_VALUE);
+    }
+
+    /**
+     * Matches the output values filled so far with the index of the given step and continues with the next step for every match.
+     */
+    private static void probe(List<Step> steps, int stepIndex, Object[] outValues, Consumer<? super Row> action) {
+        if (stepIndex == steps.size()) {
+            action.accept(new Row(outValues.clone()));
+            return;
+        }
+        final Step step = steps.get(stepIndex);
+        final long hash = Hashing.hash(outValues, step.keyOutIndexes);
+        for (int rowId = step.index.firstRowId(hash, outValues, step.keyOutIndexes); rowId != -1; rowId = step.index.nextRowId(rowId)) {
+            final Object[] buildValues = step.index.getRow(rowId).getValues();
+            for (int i = 0; i < step.valueIndexes.length; i++) {
+                outValues[step.valueOutIndexes[i]] = buildValues[step.valueIndexes[i]];
+            }
+            probe(steps, stepIndex + 1, outValues, action);
+        }
+    }
+
+    /**
+     * @return for every column of the relation its position in the output columns
+     */
+    private static int[] outIndexes(RelationMetadata relation, RelationMetadata outRelMetadata) {
+        return relation.getColumns().stream().mapToInt(column -> outRelMetadata.getColumnIndexMap().get(column)).toArray();
+    }
+
+    /**
+     * Probes the indexes with the probe rows one at a time, filling one array of output values reused for all of them,
+     * and hands the output rows directly to the action, so a probe row without match allocates nothing.
+     */
+    private static class ProbeSpliterator extends Spliterators.AbstractSpliterator<Row> {
+        private final Iterator<Row> probeRows;
+        private final List<Step> steps;
+        private final int[] probeOutIndexes;
+        private final Object[] outValues;
+        // the output rows of the last probe row, for tryAdvance
+        private final ArrayList<Row> matches = new ArrayList<>();
+        private final Consumer<Row> matchesWriter = matches::add;
+        private int matchPosition;
+
+        ProbeSpliterator(Iterator<Row> probeRows, List<Step> steps, int[] probeOutIndexes, int outColumnsCount) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.probeRows = probeRows;
+            this.steps = steps;
+            this.probeOutIndexes = probeOutIndexes;
+            this.outValues = new Object[outColumnsCount];
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Row> action) {
+            while (matchPosition == matches.size()) {
+                matches.clear();
+                matchPosition = 0;
+                if (!probeRows.hasNext()) {
+                    return false;
+                }
+                probe(probeRows.next(), matchesWriter);
+            }
+            action.accept(matches.get(matchPosition++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Row> action) {
+            while (matchPosition < matches.size()) {
+                action.accept(matches.get(matchPosition++));
+            }
+            while (probeRows.hasNext()) {
+                probe(probeRows.next(), action);
+            }
+        }
+
+        private void probe(Row probeRow, Consumer<? super Row> action) {
+            final Object[] probeValues = probeRow.getValues();
+            for (int i = 0; i < probeOutIndexes.length; i++) {
+                outValues[probeOutIndexes[i]] = probeValues[i];
+            }
+            MultiWayHashStreamJoinOperator.probe(steps, 0, outValues, action);
+        }
+    }
+
+    /**
+     * The probe of the index of one relation.
+     */
+    private static class Step {
+        final StreamRelation relation;
+        final ArrayList<Column> keyColumns;
+        // the positions of the key columns in the output values
+        final int[] keyOutIndexes;
+        // the positions of the other columns in the rows of the relation and in the output values
+        final int[] valueIndexes;
+        final int[] valueOutIndexes;
+        OpenAddressingIndex index;
+
+        Step(StreamRelation relation, ArrayList<Column> keyColumns, RelationMetadata outRelMetadata) {
+            this.relation = relation;
+            this.keyColumns = keyColumns;
+            this.keyOutIndexes = outIndexes(new RelationMetadata(keyColumns), outRelMetadata);
+            final int[] outIndexes = outIndexes(relation, outRelMetadata);
+            this.valueIndexes = IntStream.range(0, outIndexes.length)
+                    .filter(i -> !keyColumns.contains(relation.getColumns().get(i)))
+                    .toArray();
+            this.valueOutIndexes = Arrays.stream(valueIndexes).map(i -> outIndexes[i]).toArray();
+        }
+
+        void buildIndex() {
+            index = new OpenAddressingIndex(new Relation(relation.getColumns(), relation.getRows().collect(Collectors.toList())), keyColumns);
+        }
+    }
+}
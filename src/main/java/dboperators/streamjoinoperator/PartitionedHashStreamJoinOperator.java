@@ -0,0 +1,187 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Column;
+import dboperators.Columns;
+import dboperators.Hashing;
+import dboperators.MergePlan;
+import dboperators.ProjectionPlan;
+import dboperators.RelationMetadata;
+import dboperators.Row;
+import dboperators.joinoperator.HashJoinProbe;
+import dboperators.joinoperator.JoinType;
+import dboperators.joinoperator.OpenAddressingIndex;
+import dboperators.joinoperator.Relation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Radix partitioned hash join, processing the partitions in parallel on the common ForkJoinPool. <br/>
+ * Both relations are read in parallel and partitioned on the high bits of the 64-bit hash of their common columns,
+ * so that rows with the same key end up in the same partition. Each partition is then joined independently
+ * by indexing its smallest side in an {@link OpenAddressingIndex}, which uses the low bits of the same hash. <br/>
+ * The number of partitions is derived from the estimated rows count, so that the index of one partition fits in the CPU cache,
+ * and it is at least a few times the parallelism, so that all the cores are busy. <br/>
+ * Runtime complexity O(N1+N2*b) spread over all the cores <br/>
+ * Memory complexity O(N1+N2) because both relations are partitioned in memory <br/>
+ */
+public class PartitionedHashStreamJoinOperator implements IStreamJoinOperator {
+    private static final int PARTITION_ROWS = 1 << 12;
+    private static final int MAX_PARTITION_BITS = 14;
+
+    private final int partitionBits;
+    private final boolean withBloomFilters;
+    private final JoinType joinType;
+
+    public PartitionedHashStreamJoinOperator() {
+        this(false);
+    }
+
+    /**
+     * @param withBloomFilters whether to build a Bloom filter with the index of every partition,
+     *                         for rejecting the probe rows without match before copying their key
+     */
+    public PartitionedHashStreamJoinOperator(boolean withBloomFilters) {
+        this(-1, withBloomFilters, JoinType.INNER);
+    }
+
+    /**
+     * @param partitionsCount the number of partitions, rounded up to a power of two
+     */
+    public PartitionedHashStreamJoinOperator(int partitionsCount) {
+        this(partitionsCount, false);
+    }
+
+    public PartitionedHashStreamJoinOperator(int partitionsCount, boolean withBloomFilters) {
+        this(bitsFor(partitionsCount), withBloomFilters, JoinType.INNER);
+    }
+
+    /**
+     * @param joinType the join type, the build side of every partition being its smallest side whatever the join type
+     */
+    public PartitionedHashStreamJoinOperator(JoinType joinType) {
+        this(joinType, false);
+    }
+
+    public PartitionedHashStreamJoinOperator(JoinType joinType, boolean withBloomFilters) {
+        this(-1, withBloomFilters, joinType);
+    }
+
+    /**
+     * @param partitionBits the number of bits of the partitions count or -1 when derived from the estimated rows count
+     */
+    private PartitionedHashStreamJoinOperator(int partitionBits, boolean withBloomFilters, JoinType joinType) {
+        this.partitionBits = partitionBits;
+        this.withBloomFilters = withBloomFilters;
+        this.joinType = Objects.requireNonNull(joinType);
+    }
+
+    @Override
+    public JoinType getJoinType() {
+        return joinType;
+    }
+
+    @Override
+    public StreamRelation join(StreamRelation rel1, StreamRelation rel2) {
+        Objects.requireNonNull(rel1);
+        Objects.requireNonNull(rel2);
+
+        final ArrayList<Column> commonColumns = Columns.intersection(rel1.getColumns(), rel2.getColumns());
+
+        if (commonColumns.size() > 0 || joinType != JoinType.INNER) {
+            // create the columns of the output relation
+            ArrayList<Column> outRelColumns = joinType.getColumns(rel1, rel2);
+            final RelationMetadata commonRelationMetadata = new RelationMetadata(commonColumns);
+            final ProjectionPlan keyPlan1 = ProjectionPlan.of(rel1, commonRelationMetadata);
+            final ProjectionPlan keyPlan2 = ProjectionPlan.of(rel2, commonRelationMetadata);
+            final MergePlan mergePlan = joinType.isFiltering() ? null : MergePlan.of(rel1, rel2, new RelationMetadata(outRelColumns));
+            final int bits = partitionBits >= 0 ? partitionBits : partitionBits(rel1, rel2);
+
+            // the partitioning starts only when the output stream is consumed, and the spliterator of the partitions
+            // is split by the output stream itself, so every partition is built and probed on a worker of the ForkJoinPool
+            final Stream<Row> outRows = StreamSupport.stream(() -> {
+                final List<Row>[] partitions1 = rel1.getRows().parallel().collect(partitioner(keyPlan1, bits));
+                final List<Row>[] partitions2 = rel2.getRows().parallel().collect(partitioner(keyPlan2, bits));
+                return IntStream.range(0, partitions1.length).parallel()
+                        .mapToObj(p -> joinPartition(rel1, partitions1[p], rel2, partitions2[p], commonColumns, keyPlan1, keyPlan2, mergePlan, joinType, withBloomFilters))
+                        .flatMap(List::stream)
+                        .spliterator();
+            }, Spliterator.NONNULL, true);
+
+            return new StreamRelation(outRelColumns, outRows);
+        } else {
+            // create a Cartesian product as there is no common column
+            return new BlockNestedLoopStreamJoinOperator().join(rel1, rel2);
+        }
+    }
+
+    private static List<Row> joinPartition(StreamRelation rel1, List<Row> rows1, StreamRelation rel2, List<Row> rows2,
+                                           ArrayList<Column> commonColumns,
+                                           ProjectionPlan keyPlan1, ProjectionPlan keyPlan2, MergePlan mergePlan,
+                                           JoinType joinType, boolean withBloomFilter) {
+        final ArrayList<Row> outRows = new ArrayList<>();
+        if ((rows1.isEmpty() && !joinType.keepsUnmatchedRows2()) || (rows2.isEmpty() && !joinType.keepsUnmatchedRows1())) {
+            return outRows;
+        }
+        // index the smallest side of the partition and probe it with the other side
+        final boolean buildIsFirst = rows1.size() <= rows2.size();
+        final OpenAddressingIndex buildIndex = buildIsFirst
+                ? new OpenAddressingIndex(new Relation(rel1.getColumns(), rows1), commonColumns, withBloomFilter)
+                : new OpenAddressingIndex(new Relation(rel2.getColumns(), rows2), commonColumns, withBloomFilter);
+        final int[] probeKeyIndexes = buildIsFirst ? keyPlan2.getIndexes() : keyPlan1.getIndexes();
+        final HashJoinProbe probe = new HashJoinProbe(buildIndex, buildIsFirst, probeKeyIndexes, mergePlan, joinType);
+        for (Row probeRow : buildIsFirst ? rows2 : rows1) {
+            probe.probe(probeRow, outRows::add);
+        }
+        probe.finish(outRows::add);
+        return outRows;
+    }
+
+    /**
+     * Collects the rows into 2^bits partitions chosen by the high bits of the key hash.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Collector<Row, ?, List<Row>[]> partitioner(ProjectionPlan keyPlan, int bits) {
+        final int[] keyIndexes = keyPlan.getIndexes();
+        return Collector.of(
+                () -> {
+                    final List<Row>[] partitions = new List[1 << bits];
+                    for (int p = 0; p < partitions.length; p++) {
+                        partitions[p] = new ArrayList<>();
+                    }
+                    return partitions;
+                },
+                (partitions, row) -> partitions[partitionOf(Hashing.hash(row.getValues(), keyIndexes), bits)].add(row),
+                (partitions, otherPartitions) -> {
+                    for (int p = 0; p < partitions.length; p++) {
+                        partitions[p].addAll(otherPartitions[p]);
+                    }
+                    return partitions;
+                });
+    }
+
+    static int partitionOf(long hash, int bits) {
+        return bits == 0 ? 0 : (int) (hash >>> (Long.SIZE - bits));
+    }
+
+    private static int partitionBits(StreamRelation rel1, StreamRelation rel2) {
+        final int minPartitions = ForkJoinPool.getCommonPoolParallelism() * 4;
+        final Optional<Long> smallestRowsCount = Stream.of(rel1.getEstimatedRowsCount(), rel2.getEstimatedRowsCount())
+                .flatMap(Optional::stream)
+                .min(Long::compare);
+        final long partitionsCount = smallestRowsCount.map(rowsCount -> rowsCount / PARTITION_ROWS).orElse(0L);
+        return bitsFor((int) Math.min(Math.max(partitionsCount, minPartitions), 1 << MAX_PARTITION_BITS));
+    }
+
+    private static int bitsFor(int partitionsCount) {
+        return partitionsCount <= 1 ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(partitionsCount - 1);
+    }
+}
@@ -0,0 +1,345 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Column;
+import dboperators.Columns;
+import dboperators.MergePlan;
+import dboperators.ProjectionPlan;
+import dboperators.RelationMetadata;
+import dboperators.Row;
+import dboperators.Rows;
+import dboperators.joinoperator.Index;
+import dboperators.joinoperator.JoinOperator;
+import dboperators.joinoperator.Relation;
+
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Pipelined variant of {@link CrossProductChunkBasedStreamJoinOperator}: the same cross product of the chunks of the first relation
+ * with the indexed chunks of the second one, but its steps run as stages on their own threads, connected by bounded queues:
+ * <ul>
+ * <li>two stages read and chunk the two relations, in chunks of growing sizes, see {@link ChunkSizer},</li>
+ * <li>one stage builds the indexes of the chunks of the second relation,</li>
+ * <li>one stage joins every new chunk with the indexes built so far and every new index with the chunks read so far,</li>
+ * <li>and the thread consuming the output stream only reads the joined rows.</li>
+ * </ul>
+ * So the parsing of the inputs overlaps the index building and the probing. A full queue blocks the stage writing into it,
+ * so a slow consumer stops the stages instead of buffering the whole join. <br/>
+ * The stages start when the output stream is consumed and end once all the joined rows are read. They are interrupted when
+ * the output stream is closed, or else only once the garbage collector finds the output abandoned, e.g. after a findFirst,
+ * so the output stream should be closed for releasing the threads, chunks and indexes as soon as it is not read any more. <br/>
+ * Runtime complexity: O(N1*N2*b/chunk-size) - where b is the index bucket size. <br/>
+ * Memory complexity: O(N1+N2) for the chunks and indexes read so far, plus O(queue-capacity*chunk-size) for the queues <br/>
+ */
+public class PipelinedCrossProductChunkBasedStreamJoinOperator implements IStreamJoinOperator {
+    private static final int QUEUE_CAPACITY = 4;
+    private final long memoryBudget;
+    private final int queueCapacity;
+
+    public PipelinedCrossProductChunkBasedStreamJoinOperator() {
+        this(QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param queueCapacity the number of chunks buffered between two stages
+     */
+    public PipelinedCrossProductChunkBasedStreamJoinOperator(int queueCapacity) {
+        this(Runtime.getRuntime().maxMemory() / 4, queueCapacity);
+    }
+
+    /**
+     * @param memoryBudget the estimated heap size in bytes of a pair of joined chunks, their rows and index entries,
+     *                     which bounds the sizes of the chunks, see {@link ChunkSizer}
+     */
+    public PipelinedCrossProductChunkBasedStreamJoinOperator(long memoryBudget, int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("The queue capacity must be positive: " + queueCapacity);
+        }
+        this.memoryBudget = memoryBudget;
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Override
+    public StreamRelation join(StreamRelation rel1, StreamRelation rel2) {
+        Objects.requireNonNull(rel1);
+        Objects.requireNonNull(rel2);
+
+        final ArrayList<Column> commonColumns = Columns.intersection(rel1.getColumns(), rel2.getColumns());
+
+        if (commonColumns.size() > 0) {
+            // create the columns of the output relation
+            ArrayList<Column> outRelColumns = Columns.union(rel1.getColumns(), rel2.getColumns());
+            final ProjectionPlan keyPlan1 = ProjectionPlan.of(rel1, new RelationMetadata(commonColumns));
+            final MergePlan mergePlan = MergePlan.of(rel1, rel2, new RelationMetadata(outRelColumns));
+
+            // the stages start only when the output stream is consumed, and run at most a few chunks ahead of the consumer
+            final Stream<Row> outRows = Rows.lazy(() -> {
+                final Pipeline pipeline = new Pipeline(rel1, rel2, commonColumns, keyPlan1, mergePlan, memoryBudget / 2, queueCapacity);
+                pipeline.start();
+                final PipelineRows pipelineRows = new PipelineRows(pipeline);
+                return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pipelineRows, Spliterator.NONNULL), false)
+                        .onClose(pipeline::stop);
+            });
+
+            // create the output relation
+            return new StreamRelation(outRelColumns, outRows);
+        } else {
+            // create a Cartesian product as there is no common column
+            return new BlockNestedLoopStreamJoinOperator().join(rel1, rel2);
+        }
+    }
+
+    /**
+     * The stage threads of one join and the queues between them.
+     */
+    private static class Pipeline {
+        private final StreamRelation rel1;
+        private final StreamRelation rel2;
+        private final ArrayList<Column> commonColumns;
+        private final ProjectionPlan keyPlan1;
+        private final MergePlan mergePlan;
+        private final long chunkMemoryBudget;
+        private final Channel<Relation> chunks1;
+        private final Channel<Relation> chunks2;
+        private final Channel<Index> indexes2;
+        private final Channel<List<Row>> output;
+        private final List<Thread> threads = new ArrayList<>();
+
+        Pipeline(StreamRelation rel1, StreamRelation rel2, ArrayList<Column> commonColumns,
+                 ProjectionPlan keyPlan1, MergePlan mergePlan, long chunkMemoryBudget, int queueCapacity) {
+            this.rel1 = rel1;
+            this.rel2 = rel2;
+            this.commonColumns = commonColumns;
+            this.keyPlan1 = keyPlan1;
+            this.mergePlan = mergePlan;
+            this.chunkMemoryBudget = chunkMemoryBudget;
+            this.chunks1 = new Channel<>(queueCapacity);
+            this.chunks2 = new Channel<>(queueCapacity);
+            this.indexes2 = new Channel<>(queueCapacity);
+            this.output = new Channel<>(queueCapacity);
+        }
+
+        void start() {
+            // all the threads are known before any stage starts, a failed stage stops the other ones
+            threads.add(newStage("read-1", () -> read(rel1, chunks1)));
+            threads.add(newStage("read-2", () -> read(rel2, chunks2)));
+            threads.add(newStage("index-2", this::index));
+            threads.add(newStage("probe", this::probe));
+            threads.forEach(Thread::start);
+        }
+
+        /**
+         * Interrupts the stages still running, e.g. blocked on a full queue once the consumer stopped reading.
+         */
+        void stop() {
+            threads.forEach(Thread::interrupt);
+        }
+
+        private Thread newStage(String name, Stage stage) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    stage.run();
+                } catch (InterruptedException e) {
+                    // the output stream is closed
+                } catch (RuntimeException | Error e) {
+                    fail(e);
+                }
+            }, "pipelined-join-" + name);
+            thread.setDaemon(true);
+            return thread;
+        }
+
+        /**
+         * Stops the other stages, then hands the failure to the consumer in place of the joined rows not read yet.
+         */
+        private void fail(Throwable failure) {
+            final Thread probeThread = threads.get(threads.size() - 1);
+            for (Thread thread : threads) {
+                if (thread != Thread.currentThread()) {
+                    thread.interrupt();
+                }
+            }
+            try {
+                // the probe stage is the only other writer of the output
+                if (probeThread != Thread.currentThread()) {
+                    probeThread.join();
+                }
+            } catch (InterruptedException e) {
+                // the output stream is closed
+                return;
+            }
+            output.fail(failure);
+        }
+
+        private void read(StreamRelation relation, Channel<Relation> chunks) throws InterruptedException {
+            try (Stream<Row> rows = relation.getRows()) {
+                final Iterator<ArrayList<Row>> rowChunks = new ChunkSizer(chunkMemoryBudget, relation).chunks(rows.iterator());
+                while (rowChunks.hasNext()) {
+                    chunks.put(new Relation(relation.getColumns(), rowChunks.next()));
+                }
+            }
+            chunks.close();
+        }
+
+        private void index() throws InterruptedException {
+            Relation chunk2;
+            while ((chunk2 = chunks2.take()) != null) {
+                indexes2.put(new Index(chunk2, commonColumns));
+            }
+            indexes2.close();
+        }
+
+        /**
+         * Joins every pair of a chunk and an index once, alternating between the two inputs like the zipped lists
+         * of {@link CrossProductChunkBasedStreamJoinOperator}.
+         */
+        private void probe() throws InterruptedException {
+            final ArrayList<Relation> readChunks1 = new ArrayList<>();
+            final ArrayList<Index> readIndexes2 = new ArrayList<>();
+            boolean open1 = true;
+            boolean open2 = true;
+            while (open1 || open2) {
+                if (open1) {
+                    final Relation chunk1 = chunks1.take();
+                    if (chunk1 == null) {
+                        open1 = false;
+                    } else {
+                        for (Index index2 : readIndexes2) {
+                            putJoinedRows(chunk1, index2);
+                        }
+                        readChunks1.add(chunk1);
+                    }
+                }
+                if (open2) {
+                    final Index index2 = indexes2.take();
+                    if (index2 == null) {
+                        open2 = false;
+                    } else {
+                        for (Relation chunk1 : readChunks1) {
+                            putJoinedRows(chunk1, index2);
+                        }
+                        readIndexes2.add(index2);
+                    }
+                }
+            }
+            output.close();
+        }
+
+        private void putJoinedRows(Relation chunk1, Index index2) throws InterruptedException {
+            final List<Row> rows = JoinOperator.join(chunk1, index2, keyPlan1, mergePlan).getRows();
+            if (!rows.isEmpty()) {
+                output.put(rows);
+            }
+        }
+    }
+
+    /**
+     * Iterates the joined rows of a pipeline on the consumer thread. The stages only reference the pipeline,
+     * so once the consumer abandons the iterator without closing the output stream, the cleaner stops the stages.
+     */
+    private static class PipelineRows implements Iterator<Row> {
+        private static final Cleaner CLEANER = Cleaner.create();
+
+        private final Pipeline pipeline;
+        private List<Row> rows = List.of();
+        private int position;
+
+        PipelineRows(Pipeline pipeline) {
+            this.pipeline = pipeline;
+            CLEANER.register(this, pipeline::stop);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (position == rows.size()) {
+                final List<Row> nextRows;
+                try {
+                    nextRows = pipeline.output.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the joined rows", e);
+                }
+                if (nextRows == null) {
+                    return false;
+                }
+                rows = nextRows;
+                position = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return rows.get(position++);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws InterruptedException;
+    }
+
+    /**
+     * Bounded queue between two stages, closed by its writer once it wrote all its elements.
+     */
+    private static class Channel<T> {
+        private static final Object END = new Object();
+        private final BlockingQueue<Object> queue;
+        // the element taken after the end, or the failure of a stage, so that every later take sees it too
+        private Object last;
+
+        Channel(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void put(T element) throws InterruptedException {
+            queue.put(element);
+        }
+
+        void close() throws InterruptedException {
+            queue.put(END);
+        }
+
+        /**
+         * Replaces the elements not read yet with the failure, once the writers are stopped.
+         */
+        void fail(Throwable failure) {
+            queue.clear();
+            queue.offer(failure);
+        }
+
+        /**
+         * @return the next element or null once the writer closed the channel
+         */
+        @SuppressWarnings("unchecked")
+        T take() throws InterruptedException {
+            final Object element = last != null ? last : queue.take();
+            if (element == END) {
+                last = END;
+                return null;
+            }
+            if (element instanceof Throwable) {
+                last = element;
+                final Throwable failure = (Throwable) element;
+                if (failure instanceof Error) {
+                    throw (Error) failure;
+                }
+                throw (RuntimeException) failure;
+            }
+            return (T) element;
+        }
+    }
+}
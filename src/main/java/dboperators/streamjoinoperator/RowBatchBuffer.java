@@ -0,0 +1,63 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Column;
+import dboperators.MergePlan;
+import dboperators.Row;
+import dboperators.batch.RowBatch;
+
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * The output of a batch-wise join, see {@link IStreamJoinOperator#joinBatches}: it fills one batch
+ * and hands it to the sink every time it is full, then clears it for the next rows.
+ */
+class RowBatchBuffer implements Consumer<Row> {
+    private final RowBatch batch;
+    private final int batchSize;
+    private final Consumer<? super RowBatch> sink;
+    private long rowsCount;
+
+    RowBatchBuffer(ArrayList<Column> columns, int batchSize, Consumer<? super RowBatch> sink) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive: " + batchSize);
+        }
+        this.batch = new RowBatch(columns, batchSize);
+        this.batchSize = batchSize;
+        this.sink = sink;
+    }
+
+    @Override
+    public void accept(Row row) {
+        batch.addRow(row);
+        rowAdded();
+    }
+
+    /**
+     * Adds the merge of two rows, without creating the merged row.
+     */
+    void addMergedRow(MergePlan mergePlan, Row row1, Row row2) {
+        batch.addMergedRow(mergePlan, row1, row2);
+        rowAdded();
+    }
+
+    private void rowAdded() {
+        rowsCount++;
+        if (batch.size() == batchSize) {
+            sink.accept(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Hands the last rows to the sink.
+     * @return the number of rows handed to the sink
+     */
+    long flush() {
+        if (batch.size() > 0) {
+            sink.accept(batch);
+            batch.clear();
+        }
+        return rowsCount;
+    }
+}
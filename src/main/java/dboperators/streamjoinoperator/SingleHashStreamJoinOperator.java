@@ -1,14 +1,28 @@
 package dboperators.streamjoinoperator;
 
 import dboperators.Column;
+import dboperators.ColumnPredicate;
 import dboperators.Columns;
+import dboperators.FilterPlan;
+import dboperators.Hashing;
+import dboperators.JoinKey;
+import dboperators.MergePlan;
+import dboperators.ProjectionPlan;
 import dboperators.RelationMetadata;
-import dboperators.Relations;
 import dboperators.Row;
+import dboperators.batch.RowBatch;
+import dboperators.joinoperator.HashJoinProbe;
+import dboperators.joinoperator.JoinType;
+import dboperators.joinoperator.OpenAddressingIndex;
+import dboperators.joinoperator.Relation;
 import de.infonautika.streamjoin.Join;
 
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -19,34 +33,134 @@ import java.util.stream.Stream;
  Memory complexity O(N2+N2/b)=O(N2) because it stores only one index in memory <br/>
 */
 public class SingleHashStreamJoinOperator implements IStreamJoinOperator {
-    private static final int CHUNK_SIZE = 1 << 10;
+    private final JoinType joinType;
+
+    public SingleHashStreamJoinOperator() {
+        this(JoinType.INNER);
+    }
+
+    /**
+     * @param joinType the join type, the joins other than the inner one index the second relation in an {@link OpenAddressingIndex}
+     *                 and stream the first one sequentially, through a {@link HashJoinProbe}
+     */
+    public SingleHashStreamJoinOperator(JoinType joinType) {
+        this.joinType = Objects.requireNonNull(joinType);
+    }
+
+    @Override
+    public JoinType getJoinType() {
+        return joinType;
+    }
 
     public StreamRelation join(StreamRelation rel1, StreamRelation rel2) {
         Objects.requireNonNull(rel1);
         Objects.requireNonNull(rel2);
 
         final ArrayList<Column> commonColumns = Columns.intersection(rel1.getColumns(), rel2.getColumns());
-        RelationMetadata commonRelationMetadata = new RelationMetadata(commonColumns);
 
-        if (commonColumns.size() > 0) {
+        if (joinType != JoinType.INNER) {
+            return joinWithProbe(rel1, rel2, commonColumns);
+        } else if (commonColumns.size() > 0) {
             // create the columns of the output relation
             ArrayList<Column> outRelationColumns = Columns.union(rel1.getColumns(), rel2.getColumns());
-            RelationMetadata outRelationMetadata = new RelationMetadata(outRelationColumns);
+            return hashJoin(rel1, rel1.getRows(), rel2, rel2.getRows(), commonColumns, outRelationColumns);
+        } else {
+            // create a Cartesian product as there is no common column
+            return new BlockNestedLoopStreamJoinOperator().join(rel1, rel2);
+        }
+    }
 
-            final Stream<Row> outRows = Join.join(rel1.getRows())
-                    .withKey(row -> Relations.extractRow(rel1, row, commonRelationMetadata))
-                    .on(rel2.getRows())
-                    .withKey(row -> Relations.extractRow(rel2, row, commonRelationMetadata))
-                    .combine((row1, row2) -> Relations.mergeRows(rel1, row1, rel2, row2, outRelationMetadata))
-                    .asStream().parallel();
+    /**
+     * Inner joins push the filters into the streams of both relations, before they are indexed or probed,
+     * and merge the matches directly into the output columns.
+     */
+    @Override
+    public StreamRelation join(StreamRelation rel1, StreamRelation rel2, List<ColumnPredicate> predicates, ArrayList<Column> outColumns) {
+        Objects.requireNonNull(rel1);
+        Objects.requireNonNull(rel2);
+        Objects.requireNonNull(predicates);
+        Objects.requireNonNull(outColumns);
 
-            return new StreamRelation(outRelationColumns,outRows);
+        final ArrayList<Column> commonColumns = Columns.intersection(rel1.getColumns(), rel2.getColumns());
+        if (joinType != JoinType.INNER || commonColumns.isEmpty()) {
+            return IStreamJoinOperator.super.join(rel1, rel2, predicates, outColumns);
+        }
+        ColumnPredicate.checkApplicable(predicates, rel1, rel2);
+        final FilterPlan filterPlan1 = FilterPlan.of(rel1, ColumnPredicate.applicableTo(predicates, rel1));
+        final FilterPlan filterPlan2 = FilterPlan.of(rel2, ColumnPredicate.applicableTo(predicates, rel2));
+        return hashJoin(
+                rel1, filterPlan1.isEmpty() ? rel1.getRows() : rel1.getRows().filter(filterPlan1::test),
+                rel2, filterPlan2.isEmpty() ? rel2.getRows() : rel2.getRows().filter(filterPlan2::test),
+                commonColumns, outColumns);
+    }
 
-        } else {
-            // create a Cartesian product as there is no common column
-            //TODO: implement it or leave it as an error
-            throw new IllegalStateException("The two input relations have no common column!");
+    /**
+     * Indexes the second relation, then probes the index with the rows of the first one read sequentially,
+     * the inner joins merging the matches directly into the batch.
+     */
+    @Override
+    public long joinBatches(StreamRelation rel1, StreamRelation rel2, int batchSize, Consumer<? super RowBatch> sink) {
+        Objects.requireNonNull(rel1);
+        Objects.requireNonNull(rel2);
+        Objects.requireNonNull(sink);
+
+        final ArrayList<Column> commonColumns = Columns.intersection(rel1.getColumns(), rel2.getColumns());
+        if (joinType == JoinType.INNER && commonColumns.isEmpty()) {
+            return IStreamJoinOperator.super.joinBatches(rel1, rel2, batchSize, sink);
+        }
+        final ArrayList<Column> outRelationColumns = joinType.getColumns(rel1, rel2);
+        final MergePlan mergePlan = joinType.isFiltering() ? null : MergePlan.of(rel1, rel2, new RelationMetadata(outRelationColumns));
+        final int[] keyIndexes1 = ProjectionPlan.of(rel1, new RelationMetadata(commonColumns)).getIndexes();
+        final RowBatchBuffer out = new RowBatchBuffer(outRelationColumns, batchSize, sink);
+
+        try (Stream<Row> rows1 = rel1.getRows(); Stream<Row> rows2 = rel2.getRows()) {
+            final Relation relation2 = new Relation(rel2.getColumns(), rows2.collect(Collectors.toList()));
+            final OpenAddressingIndex index2 = new OpenAddressingIndex(relation2, commonColumns);
+            final Iterator<Row> rowsIterator1 = rows1.iterator();
+            if (joinType == JoinType.INNER) {
+                while (rowsIterator1.hasNext()) {
+                    final Row row1 = rowsIterator1.next();
+                    final Object[] values1 = row1.getValues();
+                    index2.forEachRow(Hashing.hash(values1, keyIndexes1), values1, keyIndexes1, row2 -> out.addMergedRow(mergePlan, row1, row2));
+                }
+            } else {
+                final HashJoinProbe probe = new HashJoinProbe(index2, false, keyIndexes1, mergePlan, joinType);
+                rowsIterator1.forEachRemaining(row1 -> probe.probe(row1, out));
+                probe.finish(out);
+            }
         }
+        return out.flush();
     }
 
+    private StreamRelation hashJoin(RelationMetadata rel1, Stream<Row> rows1, RelationMetadata rel2, Stream<Row> rows2,
+                                    ArrayList<Column> commonColumns, ArrayList<Column> outRelationColumns) {
+        RelationMetadata commonRelationMetadata = new RelationMetadata(commonColumns);
+        final int[] keyIndexes1 = ProjectionPlan.of(rel1, commonRelationMetadata).getIndexes();
+        final int[] keyIndexes2 = ProjectionPlan.of(rel2, commonRelationMetadata).getIndexes();
+        final MergePlan mergePlan = MergePlan.of(rel1, rel2, new RelationMetadata(outRelationColumns));
+
+        final Stream<Row> outRows = Join.join(rows1)
+                .withKey(row1 -> JoinKey.of(row1.getValues(), keyIndexes1))
+                .on(rows2)
+                .withKey(row2 -> JoinKey.of(row2.getValues(), keyIndexes2))
+                .combine(mergePlan::merge)
+                .asStream().parallel();
+
+        return new StreamRelation(outRelationColumns, outRows);
+    }
+
+    private StreamRelation joinWithProbe(StreamRelation rel1, StreamRelation rel2, ArrayList<Column> commonColumns) {
+        final ArrayList<Column> outRelationColumns = joinType.getColumns(rel1, rel2);
+        final MergePlan mergePlan = joinType.isFiltering() ? null : MergePlan.of(rel1, rel2, new RelationMetadata(outRelationColumns));
+        final int[] keyIndexes1 = ProjectionPlan.of(rel1, new RelationMetadata(commonColumns)).getIndexes();
+
+        // the second relation is read only when the output stream is consumed
+        final Stream<Row> outRows = Stream.of(rel2)
+                .flatMap(r2 -> {
+                    final Relation relation2 = new Relation(r2.getColumns(), r2.getRows().collect(Collectors.toList()));
+                    final OpenAddressingIndex index2 = new OpenAddressingIndex(relation2, commonColumns);
+                    return new HashJoinProbe(index2, false, keyIndexes1, mergePlan, joinType).join(rel1.getRows().sequential());
+                });
+        return new StreamRelation(outRelationColumns, outRows);
+    }
 }
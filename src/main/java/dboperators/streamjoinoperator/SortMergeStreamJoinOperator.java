@@ -0,0 +1,180 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Column;
+import dboperators.Columns;
+import dboperators.MergePlan;
+import dboperators.RelationMetadata;
+import dboperators.Row;
+import dboperators.RowComparator;
+import dboperators.sortoperator.ExternalSortOperator;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Sort merge join, reading both relations in a single streaming pass. <br/>
+ * Both relations must be sorted by their common columns, see {@link StreamRelation#getSortColumns()}.
+ * The relations which are not already sorted are first sorted with an {@link ExternalSortOperator}. <br/>
+ * Only the current run of rows of the second relation having the same key is kept in memory,
+ * and it is joined with all the rows of the first relation having that key. <br/>
+ * The output relation is sorted by the common columns too. <br/>
+ * Runtime complexity O(N1+N2+N_out) for sorted relations, plus the sorting of the unsorted ones <br/>
+ * Memory complexity O(r) where r is the longest run of rows with the same key of the second relation <br/>
+ */
+public class SortMergeStreamJoinOperator implements IStreamJoinOperator {
+    private static final long DEFAULT_SORT_MEMORY_BUDGET = 1L << 26;
+
+    private final ExternalSortOperator sortOperator;
+
+    public SortMergeStreamJoinOperator() {
+        this(new ExternalSortOperator(DEFAULT_SORT_MEMORY_BUDGET));
+    }
+
+    /**
+     * @param sortOperator sorts the relations which are not already sorted by their common columns
+     */
+    public SortMergeStreamJoinOperator(ExternalSortOperator sortOperator) {
+        this.sortOperator = sortOperator;
+    }
+
+    @Override
+    public StreamRelation join(StreamRelation rel1, StreamRelation rel2) {
+        Objects.requireNonNull(rel1);
+        Objects.requireNonNull(rel2);
+
+        final ArrayList<Column> commonColumns = Columns.intersection(rel1.getColumns(), rel2.getColumns());
+
+        if (commonColumns.size() > 0) {
+            // create the columns of the output relation
+            ArrayList<Column> outRelColumns = Columns.union(rel1.getColumns(), rel2.getColumns());
+            final MergePlan mergePlan = MergePlan.of(rel1, rel2, new RelationMetadata(outRelColumns));
+
+            // merge on the sort order of one of the relations, if it is sorted by the common columns in any order
+            final ArrayList<Column> keyColumns = keyColumns(rel1, commonColumns)
+                    .or(() -> keyColumns(rel2, commonColumns))
+                    .orElse(commonColumns);
+            final StreamRelation sortedRel1 = sortOperator.sort(rel1, keyColumns);
+            final StreamRelation sortedRel2 = sortOperator.sort(rel2, keyColumns);
+            final RowComparator comparator1 = RowComparator.of(rel1, keyColumns);
+            final RowComparator comparator2 = RowComparator.of(rel2, keyColumns);
+
+            final Iterator<Row> resultIterator = new Iterator<>() {
+                Iterator<Row> rowsIterator1;
+                Iterator<Row> rowsIterator2;
+                Row row1;
+                Row row2;
+                // the run of rows of rel2 with the same key and the position of the next one to join with row1
+                final ArrayList<Row> run2 = new ArrayList<>();
+                int runPosition;
+                boolean matching;
+
+                @Override
+                public boolean hasNext() {
+                    if (rowsIterator1 == null) {
+                        rowsIterator1 = sortedRel1.getRows().iterator();
+                        rowsIterator2 = sortedRel2.getRows().iterator();
+                        row1 = next1();
+                        row2 = next2();
+                    }
+                    while (true) {
+                        if (matching) {
+                            if (runPosition < run2.size()) {
+                                return true;
+                            }
+                            // join the next row1 with the same run
+                            row1 = next1();
+                            runPosition = 0;
+                            matching = row1 != null && compare(row1, run2.get(0)) == 0;
+                            continue;
+                        }
+                        if (row1 == null) {
+                            return false;
+                        }
+                        // skip the rows of rel2 with a smaller key
+                        while (row2 != null && compare(row1, row2) > 0) {
+                            row2 = next2();
+                        }
+                        if (row2 == null) {
+                            return false;
+                        }
+                        if (compare(row1, row2) < 0) {
+                            row1 = next1();
+                            continue;
+                        }
+                        // read the run of rows of rel2 with the key of row1
+                        run2.clear();
+                        do {
+                            run2.add(row2);
+                            row2 = next2();
+                        } while (row2 != null && comparator2.compare(run2.get(0), row2) == 0);
+                        runPosition = 0;
+                        matching = true;
+                    }
+                }
+
+                @Override
+                public Row next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return mergePlan.merge(row1, run2.get(runPosition++));
+                }
+
+                private int compare(Row r1, Row r2) {
+                    return RowComparator.compare(r1, comparator1.getIndexes(), r2, comparator2.getIndexes());
+                }
+
+                private Row next1() {
+                    return nextSorted(rowsIterator1, row1, comparator1, rel1);
+                }
+
+                private Row next2() {
+                    return nextSorted(rowsIterator2, row2, comparator2, rel2);
+                }
+            };
+
+            final Stream<Row> outRows = StreamSupport.stream(Spliterators.spliteratorUnknownSize(resultIterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(() -> {
+                        sortedRel1.getRows().close();
+                        sortedRel2.getRows().close();
+                    });
+            final StreamRelation outRel = new StreamRelation(outRelColumns, outRows);
+            outRel.setSortColumns(Optional.of(keyColumns));
+            return outRel;
+        } else {
+            // create a Cartesian product as there is no common column
+            return new BlockNestedLoopStreamJoinOperator().join(rel1, rel2);
+        }
+    }
+
+    /**
+     * @return the next row, after checking that it is not smaller than the previous one
+     */
+    private static Row nextSorted(Iterator<Row> rowsIterator, Row previousRow, RowComparator comparator, StreamRelation rel) {
+        if (!rowsIterator.hasNext()) {
+            return null;
+        }
+        final Row row = rowsIterator.next();
+        if (previousRow != null && comparator.compare(previousRow, row) > 0) {
+            throw new IllegalStateException("The rows of the relation with the columns " + rel.getColumns() + " are not sorted by " + rel.getSortColumns());
+        }
+        return row;
+    }
+
+    /**
+     * @return the first sort columns of the relation if they are the common columns in another order
+     */
+    private static Optional<ArrayList<Column>> keyColumns(StreamRelation rel, ArrayList<Column> commonColumns) {
+        return rel.getSortColumns()
+                .filter(sortColumns -> sortColumns.size() >= commonColumns.size())
+                .map(sortColumns -> new ArrayList<>(sortColumns.subList(0, commonColumns.size())))
+                .filter(keyColumns -> keyColumns.containsAll(commonColumns));
+    }
+}
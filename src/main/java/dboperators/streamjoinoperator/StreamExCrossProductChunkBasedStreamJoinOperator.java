@@ -2,24 +2,43 @@ package dboperators.streamjoinoperator;
 
 import dboperators.Column;
 import dboperators.Columns;
+import dboperators.MergePlan;
+import dboperators.ProjectionPlan;
+import dboperators.RelationMetadata;
 import dboperators.Row;
+import dboperators.batch.RowBatch;
 import dboperators.joinoperator.Index;
 import dboperators.joinoperator.JoinOperator;
 import dboperators.joinoperator.Relation;
+import one.util.streamex.EntryStream;
 import one.util.streamex.StreamEx;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
- * Based on StreamEx library and its cross product function (between a stream and an in memory collection).
+ * Based on StreamEx library and its cross product function (between a stream and an in memory collection). <br/>
+ * The chunks have growing sizes, see {@link ChunkSizer}.
   */
 public class StreamExCrossProductChunkBasedStreamJoinOperator implements IStreamJoinOperator {
-    private static final int CHUNK_SIZE = 1 << 10;
+    private final long memoryBudget;
+
+    public StreamExCrossProductChunkBasedStreamJoinOperator() {
+        this(Runtime.getRuntime().maxMemory() / 4);
+    }
+
+    /**
+     * @param memoryBudget the estimated heap size in bytes of a pair of joined chunks, their rows and index entries,
+     *                     which bounds the sizes of the chunks, see {@link ChunkSizer}
+     */
+    public StreamExCrossProductChunkBasedStreamJoinOperator(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
 
     public StreamRelation join(StreamRelation rel1, StreamRelation rel2) {
         Objects.requireNonNull(rel1);
@@ -30,38 +49,85 @@ public class StreamExCrossProductChunkBasedStreamJoinOperator implements IStream
         if (commonColumns.size() > 0) {
             // create the columns of the output relation
             ArrayList<Column> outRelColumns = Columns.union(rel1.getColumns(), rel2.getColumns());
+            final ProjectionPlan keyPlan1 = ProjectionPlan.of(rel1, new RelationMetadata(commonColumns));
+            final MergePlan mergePlan = MergePlan.of(rel1, rel2, new RelationMetadata(outRelColumns));
 
             // create the stream of the output relation
-            final BiPredicate<Row, Row> sameGroup1 = new SameGroupPredicate();
-            final StreamEx<Relation> relations1 = StreamEx.of(rel1.getRows()).groupRuns(sameGroup1)
-                    .map(rows -> new Relation(rel1.getColumns(), rows));
-
-            final BiPredicate<Row, Row> sameGroup2 = new SameGroupPredicate();
-            final StreamEx<Relation> relations2 = StreamEx.of(rel2.getRows()).groupRuns(sameGroup2)
-                    .map(rows -> new Relation(rel2.getColumns(), rows));
-            final StreamEx<Index> indexes2 = relations2.map(rc2 -> new Index(rc2, commonColumns));
-            final List<Index> indexes2List = indexes2.collect(Collectors.toList());
-
-            final Stream<Relation> outRelations = relations1.cross(indexes2List)
-                    .map(entry -> JoinOperator.join(entry.getKey(), entry.getValue()));
+            final Stream<Relation> outRelations = chunkPairs(rel1, rel1.getRows(), rel2, rel2.getRows(), commonColumns)
+                    .map(entry -> JoinOperator.join(entry.getKey(), entry.getValue(), keyPlan1, mergePlan));
 
             // create the output relation
             return new StreamRelation(outRelColumns, outRelations.flatMap(outRel -> outRel.getRows().stream()).parallel());
         } else {
             // create a Cartesian product as there is no common column
-            //TODO: implement it or leave it as an error
-            throw new IllegalStateException("The two input relations have no common column!");
+            return new BlockNestedLoopStreamJoinOperator().join(rel1, rel2);
         }
     }
 
+    /**
+     * Joins the chunk pairs sequentially, merging the matches directly into the batch in place of flattening output relations.
+     */
+    @Override
+    public long joinBatches(StreamRelation rel1, StreamRelation rel2, int batchSize, Consumer<? super RowBatch> sink) {
+        Objects.requireNonNull(rel1);
+        Objects.requireNonNull(rel2);
+        Objects.requireNonNull(sink);
+
+        final ArrayList<Column> commonColumns = Columns.intersection(rel1.getColumns(), rel2.getColumns());
+        if (commonColumns.isEmpty()) {
+            return IStreamJoinOperator.super.joinBatches(rel1, rel2, batchSize, sink);
+        }
+        final ArrayList<Column> outRelColumns = Columns.union(rel1.getColumns(), rel2.getColumns());
+        final ProjectionPlan keyPlan1 = ProjectionPlan.of(rel1, new RelationMetadata(commonColumns));
+        final MergePlan mergePlan = MergePlan.of(rel1, rel2, new RelationMetadata(outRelColumns));
+        final RowBatchBuffer out = new RowBatchBuffer(outRelColumns, batchSize, sink);
+        try (Stream<Row> rows1 = rel1.getRows(); Stream<Row> rows2 = rel2.getRows()) {
+            chunkPairs(rel1, rows1, rel2, rows2, commonColumns).sequential()
+                    .forEach(entry -> JoinOperator.forEachMatch(entry.getKey(), entry.getValue(), keyPlan1,
+                            (row1, row2) -> out.addMergedRow(mergePlan, row1, row2)));
+        }
+        return out.flush();
+    }
+
+    /**
+     * The cross product of the chunks of the first relation with the indexes of the chunks of the second relation,
+     * which is read completely first.
+     */
+    private EntryStream<Relation, Index> chunkPairs(StreamRelation rel1, Stream<Row> rows1, StreamRelation rel2, Stream<Row> rows2,
+                                                     ArrayList<Column> commonColumns) {
+        final BiPredicate<Row, Row> sameGroup1 = new SameGroupPredicate(new ChunkSizer(memoryBudget / 2, rel1));
+        final StreamEx<Relation> relations1 = StreamEx.of(rows1).groupRuns(sameGroup1)
+                .map(rows -> new Relation(rel1.getColumns(), rows));
+
+        final BiPredicate<Row, Row> sameGroup2 = new SameGroupPredicate(new ChunkSizer(memoryBudget / 2, rel2));
+        final StreamEx<Relation> relations2 = StreamEx.of(rows2).groupRuns(sameGroup2)
+                .map(rows -> new Relation(rel2.getColumns(), rows));
+        final StreamEx<Index> indexes2 = relations2.map(rc2 -> new Index(rc2, commonColumns));
+        final List<Index> indexes2List = indexes2.collect(Collectors.toList());
+
+        return relations1.cross(indexes2List);
+    }
+
     private static class SameGroupPredicate implements BiPredicate<Row, Row> {
+        final ChunkSizer chunkSizer;
+        int chunkSize;
         int count = 1;
 
+        SameGroupPredicate(ChunkSizer chunkSizer) {
+            this.chunkSizer = chunkSizer;
+            this.chunkSize = chunkSizer.nextChunkSize();
+        }
+
         @Override
         public boolean test(Row row, Row row2) {
+            if (count == 1) {
+                chunkSizer.add(row);
+            }
+            chunkSizer.add(row2);
             count++;
-            if (count > CHUNK_SIZE) {
+            if (count > chunkSize) {
                 count = 1;
+                chunkSize = chunkSizer.nextChunkSize();
                 return false;
             }
             return true;
@@ -3,21 +3,36 @@ package dboperators.streamjoinoperator;
 import dboperators.Column;
 import dboperators.RelationMetadata;
 import dboperators.Row;
+import dboperators.batch.RowBatch;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.StringJoiner;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class StreamRelation extends RelationMetadata {
     private Stream<Row> rows;
     private Optional<Long> estimatedRowsCount = Optional.empty();
+    private Map<Column, Long> estimatedDistinctCounts = new HashMap<>();
+    private Optional<ArrayList<Column>> sortColumns = Optional.empty();
 
     public static StreamRelation of(Stream<Row> rows, Column... columns) {
         return new StreamRelation(new ArrayList<>(Arrays.asList(columns)), rows);
     }
 
+    public static StreamRelation ofRowBatches(ArrayList<Column> columns, Stream<RowBatch> batches) {
+        return new StreamRelation(columns, batches.flatMap(batch -> IntStream.range(0, batch.size()).mapToObj(batch::getRow)));
+    }
+
     public StreamRelation(ArrayList<Column> columns, Stream<Row> rows) {
         super(columns);
         this.rows = rows;
@@ -27,6 +42,32 @@ public class StreamRelation extends RelationMetadata {
         return rows;
     }
 
+    /**
+     * Groups the rows into columnar batches of at most batchSize rows. It consumes the rows stream.
+     */
+    public Stream<RowBatch> getRowBatches(int batchSize) {
+        final Iterator<Row> rowsIterator = rows.iterator();
+        final Iterator<RowBatch> batchesIterator = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return rowsIterator.hasNext();
+            }
+
+            @Override
+            public RowBatch next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final RowBatch batch = new RowBatch(columns, batchSize);
+                while (rowsIterator.hasNext() && batch.size() < batchSize) {
+                    batch.addRow(rowsIterator.next());
+                }
+                return batch;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batchesIterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
     public Optional<Long> getEstimatedRowsCount() {
         return estimatedRowsCount;
     }
@@ -35,12 +76,49 @@ public class StreamRelation extends RelationMetadata {
         this.estimatedRowsCount = estimatedRowsCount;
     }
 
+    /**
+     * @return the estimated number of distinct values of the column
+     */
+    public Optional<Long> getEstimatedDistinctCount(Column column) {
+        return Optional.ofNullable(estimatedDistinctCounts.get(column));
+    }
+
+    public void setEstimatedDistinctCount(Column column, Optional<Long> estimatedDistinctCount) {
+        if (estimatedDistinctCount.isPresent()) {
+            estimatedDistinctCounts.put(column, estimatedDistinctCount.get());
+        } else {
+            estimatedDistinctCounts.remove(column);
+        }
+    }
+
+    /**
+     * @return the columns by which the rows are known to be sorted in ascending order, with the nulls first
+     */
+    public Optional<ArrayList<Column>> getSortColumns() {
+        return sortColumns;
+    }
+
+    public void setSortColumns(Optional<ArrayList<Column>> sortColumns) {
+        this.sortColumns = sortColumns;
+    }
+
+    /**
+     * @return true if the rows are sorted by the given columns, in this order, followed by any other columns
+     */
+    public boolean isSortedBy(ArrayList<Column> columns) {
+        return sortColumns
+                .filter(sc -> sc.size() >= columns.size() && sc.subList(0, columns.size()).equals(columns))
+                .isPresent();
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", StreamRelation.class.getSimpleName() + "[", "]")
                 .add("columns=" + columns)
                 .add("rows=" + rows)
                 .add("estimatedRowsCount=" + estimatedRowsCount)
+                .add("estimatedDistinctCounts=" + estimatedDistinctCounts)
+                .add("sortColumns=" + sortColumns)
                 .toString();
     }
 
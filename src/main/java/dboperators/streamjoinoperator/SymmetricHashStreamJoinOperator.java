@@ -2,18 +2,26 @@ package dboperators.streamjoinoperator;
 
 import dboperators.Column;
 import dboperators.Columns;
+import dboperators.Hashing;
+import dboperators.MergePlan;
+import dboperators.ProjectionPlan;
 import dboperators.RelationMetadata;
-import dboperators.Relations;
 import dboperators.Row;
-import dboperators.joinoperator.Index;
+import dboperators.batch.RowBatch;
+import dboperators.joinoperator.IIndex;
+import dboperators.joinoperator.OpenAddressingIndex;
 import dboperators.joinoperator.Relation;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -21,8 +29,44 @@ import java.util.stream.StreamSupport;
  * Implements a stream join operation by creating two indexes while reading the streams rows and joining iteratively the two new rows with the old ones from the indexes. <br/>
  * The runtime complexity is O(N1*b2+N2*b1), where N1,N2 are number of rows of the two streams and b1,b2 are the sizes of the index buckets. <br/>
  * The memory complexity is O(N1+N1/b1+N2+N2/b2)=O(N1+N2) because it stores in memory both indexes. <br/>
+ * The indexes are split by the hash of the join key into partitions joined independently, so a parallel output stream
+ * joins the rows of different partitions on many threads while the inputs are still read sequentially. <br/>
+ * The rows are read and joined by batches of row pairs, so a match comes out only once the batch of its second row is read:
+ * the first batch holds a single row pair and every next batch twice as many up to the maximum batch size,
+ * which keeps the time to the first output rows low while the batches of a long stream stay large.
+ * A maximum batch size of 1 joins every row pair as soon as it is read, at the cost of throughput. <br/>
  * */
 public class SymmetricHashStreamJoinOperator implements IStreamJoinOperator {
+    private static final int DEFAULT_BATCH_SIZE = 1 << 10;
+
+    private final BiFunction<Relation, ArrayList<Column>, IIndex> indexFactory;
+    private final int batchSize;
+
+    /**
+     * Uses open addressing indexes, which are probed and filled without allocating a key per row.
+     */
+    public SymmetricHashStreamJoinOperator() {
+        this(OpenAddressingIndex::new);
+    }
+
+    /**
+     * @param indexFactory creates the two indexes, e.g. {@code Index::new}
+     */
+    public SymmetricHashStreamJoinOperator(BiFunction<Relation, ArrayList<Column>, IIndex> indexFactory) {
+        this(indexFactory, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param indexFactory creates the two indexes, e.g. {@code Index::new}
+     * @param batchSize    the maximum number of row pairs read before joining them
+     */
+    public SymmetricHashStreamJoinOperator(BiFunction<Relation, ArrayList<Column>, IIndex> indexFactory, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive: " + batchSize);
+        }
+        this.indexFactory = Objects.requireNonNull(indexFactory);
+        this.batchSize = batchSize;
+    }
 
     @Override
     public StreamRelation join(StreamRelation rel1, StreamRelation rel2) {
@@ -44,64 +88,313 @@ public class SymmetricHashStreamJoinOperator implements IStreamJoinOperator {
                 // create the output relation
                 return new StreamRelation(outRelColumns, Stream.empty());
             }else{
-                // create empty indexes
-                Index index1 = new Index(new Relation(rel1.getColumns()), commonColumns);
-                Index index2 = new Index(new Relation(rel2.getColumns()), commonColumns);
-
-                final Iterator<Row> resultIterator = new Iterator<>() {
-                    final ArrayList<Row> EMPTY = new ArrayList<>(0);
-                    ArrayList<Row> results = new ArrayList<>();
-                    Iterator<Row> resultsIterator = results.iterator();
-                    @Override
-                    public boolean hasNext() {
-                        while(!hasResults() && hasRows()) {
-                            // Read next rows
-                            final Optional<Row> row1 = rowsIterator1.hasNext() ? Optional.of(rowsIterator1.next()) : Optional.empty();
-                            final Optional<Row> row2 = rowsIterator2.hasNext() ? Optional.of(rowsIterator2.next()) : Optional.empty();
-
-                            // Join the rows with the old ones
-                            // add row1 to index1
-                            row1.ifPresent(index1::addIndexRow);
-                            // join index1 with row2
-                            final ArrayList<Row> resultRows1 = row2.map(r2 -> index1.getValues().getOrDefault(Relations.extractRow(rel2, r2, index1), EMPTY)).orElse(EMPTY);
-                            // join row1 with index2 without row2 to avoid the duplication of joining row1 with row2
-                            final ArrayList<Row> resultRows2 = row1.map(r1 -> index2.getValues().getOrDefault(Relations.extractRow(rel1, r1, index2), EMPTY)).orElse(EMPTY);
-                            // add row2 to index2
-                            row2.ifPresent(index2::addIndexRow);
-
-                            // Create results
-                            results.clear();
-                            results.ensureCapacity(resultRows1.size() + resultRows2.size());
-                            row2.ifPresent(r2 -> resultRows1.forEach(r1 -> results.add(Relations.mergeRows(rel1, r1, rel2, r2, outRelMetadata))));
-                            row1.ifPresent(r1 -> resultRows2.forEach(r2 -> results.add(Relations.mergeRows(rel2, r2, rel1, r1, outRelMetadata))));
-                            resultsIterator = results.iterator();
+                final SymmetricJoinTasks joinTasks = joinTasks(rel1, rowsIterator1, rel2, rowsIterator2, commonColumns, outRelMetadata);
+                // create the output relation
+                return new StreamRelation(outRelColumns, StreamSupport.stream(new JoinTasksSpliterator(joinTasks), false));
+            }
+        } else {
+            // create a Cartesian product as there is no common column
+            return new BlockNestedLoopStreamJoinOperator().join(rel1, rel2);
+        }
+    }
+
+    /**
+     * Runs the join tasks one after the other, the partitions merging the matches directly into the batch.
+     */
+    @Override
+    public long joinBatches(StreamRelation rel1, StreamRelation rel2, int batchSize, Consumer<? super RowBatch> sink) {
+        Objects.requireNonNull(rel1);
+        Objects.requireNonNull(rel2);
+        Objects.requireNonNull(sink);
+
+        final ArrayList<Column> commonColumns = Columns.intersection(rel1.getColumns(), rel2.getColumns());
+        if (commonColumns.isEmpty()) {
+            return IStreamJoinOperator.super.joinBatches(rel1, rel2, batchSize, sink);
+        }
+        final ArrayList<Column> outRelColumns = Columns.union(rel1.getColumns(), rel2.getColumns());
+        final RowBatchBuffer out = new RowBatchBuffer(outRelColumns, batchSize, sink);
+        try (Stream<Row> rows1 = rel1.getRows(); Stream<Row> rows2 = rel2.getRows()) {
+            final SymmetricJoinTasks joinTasks = joinTasks(rel1, rows1.iterator(), rel2, rows2.iterator(),
+                    commonColumns, new RelationMetadata(outRelColumns));
+            while (joinTasks.runNextInto(out)) {
+                // the matches are already in the batch
+            }
+        }
+        return out.flush();
+    }
+
+    private SymmetricJoinTasks joinTasks(StreamRelation rel1, Iterator<Row> rowsIterator1, StreamRelation rel2, Iterator<Row> rowsIterator2,
+                                         ArrayList<Column> commonColumns, RelationMetadata outRelMetadata) {
+        final int[] keyIndexes1 = ProjectionPlan.of(rel1, new RelationMetadata(commonColumns)).getIndexes();
+        final int[] keyIndexes2 = ProjectionPlan.of(rel2, new RelationMetadata(commonColumns)).getIndexes();
+        return new SymmetricJoinTasks(rowsIterator1, rowsIterator2, keyIndexes1, keyIndexes2, batchSize,
+                () -> indexFactory.apply(new Relation(rel1.getColumns()), commonColumns),
+                () -> indexFactory.apply(new Relation(rel2.getColumns()), commonColumns),
+                MergePlan.of(rel1, rel2, outRelMetadata), MergePlan.of(rel2, rel1, outRelMetadata));
+    }
+
+    /**
+     * The symmetric join of the rows read so far, split by the hash of their key into partitions joined independently of each other.
+     * A task reads the next batch of row pairs, twice as large as the previous one up to the maximum batch size, under the lock of the inputs, appends the batch to the queue of every partition
+     * having rows in it, then drains the queues of the partitions it can lock. <br/>
+     * The queue of a partition keeps the reading order, so each pair of matching rows is joined once, by the second of the two rows. <br/>
+     * Nothing is allocated per row besides the output rows: the batches are recycled once every partition joined their rows,
+     * the key hashes are computed once into the batch and the matches are handed to the consumer one at a time.
+     */
+    private static class SymmetricJoinTasks implements JoinTasksSpliterator.JoinTasks {
+        private static final int PARTITION_BITS = 4;
+
+        private final Iterator<Row> rowsIterator1;
+        private final Iterator<Row> rowsIterator2;
+        private final int[] keyIndexes1;
+        private final int[] keyIndexes2;
+        private final int maxBatchSize;
+        private final MergePlan mergePlan12;
+        private final MergePlan mergePlan21;
+        private final Partition[] partitions = new Partition[1 << PARTITION_BITS];
+        private final ArrayDeque<Batch> freeBatches = new ArrayDeque<>();
+        // guarded by the lock of the inputs
+        private boolean inputsRead;
+        private int batchSize = 1;
+
+        SymmetricJoinTasks(Iterator<Row> rowsIterator1, Iterator<Row> rowsIterator2, int[] keyIndexes1, int[] keyIndexes2, int maxBatchSize,
+                           Supplier<IIndex> indexFactory1, Supplier<IIndex> indexFactory2, MergePlan mergePlan12, MergePlan mergePlan21) {
+            this.rowsIterator1 = rowsIterator1;
+            this.rowsIterator2 = rowsIterator2;
+            this.keyIndexes1 = keyIndexes1;
+            this.keyIndexes2 = keyIndexes2;
+            this.maxBatchSize = maxBatchSize;
+            this.mergePlan12 = mergePlan12;
+            this.mergePlan21 = mergePlan21;
+            for (int p = 0; p < partitions.length; p++) {
+                partitions[p] = new Partition(p, indexFactory1.get(), indexFactory2.get());
+            }
+        }
+
+        @Override
+        public boolean runNext(Consumer<? super Row> action) {
+            return runNext(action, null);
+        }
+
+        /**
+         * Same as {@link #runNext(Consumer)}, merging the matches directly into the batch of the output.
+         */
+        boolean runNextInto(RowBatchBuffer out) {
+            return runNext(null, out);
+        }
+
+        private boolean runNext(Consumer<? super Row> action, RowBatchBuffer out) {
+            final boolean lastTask;
+            synchronized (this) {
+                lastTask = inputsRead;
+                if (!lastTask) {
+                    readBatch();
+                }
+            }
+
+            boolean drained = false;
+            for (Partition partition : partitions) {
+                if (!partition.hasPendingBatches()) {
+                    continue;
+                }
+                // once the inputs are read, wait for the partitions drained by other tasks so that no row is left behind
+                if (lastTask) {
+                    partition.lock.lock();
+                } else if (!partition.lock.tryLock()) {
+                    continue;
+                }
+                try {
+                    Batch batch;
+                    while ((batch = partition.pollPendingBatch()) != null) {
+                        drained = true;
+                        partition.join(batch, action, out);
+                        if (batch.pendingPartitionsCount.decrementAndGet() == 0) {
+                            releaseBatch(batch);
                         }
-                        return hasResults();
                     }
+                } finally {
+                    partition.lock.unlock();
+                }
+            }
+            return !lastTask || drained;
+        }
 
-                    private boolean hasRows() {
-                        return rowsIterator1.hasNext() || rowsIterator2.hasNext();
-                    }
+        /**
+         * Reads the next row pairs into a batch and appends it to the queues of its partitions.
+         */
+        private void readBatch() {
+            final Batch batch = takeBatch();
+            while (batch.size < 2 * batchSize && (rowsIterator1.hasNext() || rowsIterator2.hasNext())) {
+                if (rowsIterator1.hasNext()) {
+                    batch.add(rowsIterator1.next(), keyIndexes1, true);
+                }
+                if (rowsIterator2.hasNext()) {
+                    batch.add(rowsIterator2.next(), keyIndexes2, false);
+                }
+            }
+            inputsRead = !rowsIterator1.hasNext() && !rowsIterator2.hasNext();
+            batchSize = Math.min(2 * batchSize, maxBatchSize);
 
-                    private boolean hasResults() {
-                        return resultsIterator.hasNext();
-                    }
+            int partitionsCount = 0;
+            for (int head : batch.partitionHeads) {
+                if (head != Batch.END) {
+                    partitionsCount++;
+                }
+            }
+            if (partitionsCount == 0) {
+                releaseBatch(batch);
+                return;
+            }
+            // the count is set before any partition can join the batch
+            batch.pendingPartitionsCount.set(partitionsCount);
+            for (int p = 0; p < partitions.length; p++) {
+                if (batch.partitionHeads[p] != Batch.END) {
+                    partitions[p].addPendingBatch(batch);
+                }
+            }
+        }
+
+        private Batch takeBatch() {
+            Batch batch;
+            synchronized (freeBatches) {
+                batch = freeBatches.poll();
+            }
+            if (batch == null) {
+                batch = new Batch(2 * maxBatchSize);
+            }
+            batch.clear();
+            return batch;
+        }
+
+        private void releaseBatch(Batch batch) {
+            synchronized (freeBatches) {
+                freeBatches.push(batch);
+            }
+        }
+
+        private static int partitionOf(long hash) {
+            return (int) (hash >>> (Long.SIZE - PARTITION_BITS));
+        }
+
+        /**
+         * Row pairs read together, with the hashes of their keys and a chain of the rows of every partition in reading order.
+         */
+        private static class Batch {
+            static final int END = -1;
+
+            final Row[] rows;
+            final long[] hashes;
+            final boolean[] first;
+            final int[] nextRows;
+            final int[] partitionHeads = new int[1 << PARTITION_BITS];
+            final int[] partitionTails = new int[1 << PARTITION_BITS];
+            // the number of partitions which have not joined their rows of the batch yet
+            final AtomicInteger pendingPartitionsCount = new AtomicInteger();
+            int size;
+
+            Batch(int capacity) {
+                rows = new Row[capacity];
+                hashes = new long[capacity];
+                first = new boolean[capacity];
+                nextRows = new int[capacity];
+            }
 
-                    @Override
-                    public Row next() {
-                        if (!hasNext()) {
-                            throw new NoSuchElementException();
+            void clear() {
+                Arrays.fill(rows, 0, size, null);
+                Arrays.fill(partitionHeads, END);
+                size = 0;
+            }
+
+            void add(Row row, int[] keyIndexes, boolean firstRow) {
+                final long hash = Hashing.hash(row.getValues(), keyIndexes);
+                final int partition = partitionOf(hash);
+                final int i = size++;
+                rows[i] = row;
+                hashes[i] = hash;
+                first[i] = firstRow;
+                nextRows[i] = END;
+                if (partitionHeads[partition] == END) {
+                    partitionHeads[partition] = i;
+                } else {
+                    nextRows[partitionTails[partition]] = i;
+                }
+                partitionTails[partition] = i;
+            }
+        }
+
+        /**
+         * The two indexes of the rows of a partition. It probes them itself for the matches of the row being joined,
+         * so no consumer is created per probe.
+         */
+        private class Partition implements Consumer<Row> {
+            final int partition;
+            final IIndex index1;
+            final IIndex index2;
+            final ReentrantLock lock = new ReentrantLock();
+            // guarded by the monitor of the partition
+            private final ArrayDeque<Batch> pendingBatches = new ArrayDeque<>();
+            // the row being joined, guarded by the lock
+            private Row probeRow;
+            private boolean probeFirst;
+            private Consumer<? super Row> action;
+            private RowBatchBuffer out;
+
+            Partition(int partition, IIndex index1, IIndex index2) {
+                this.partition = partition;
+                this.index1 = index1;
+                this.index2 = index2;
+            }
+
+            synchronized void addPendingBatch(Batch batch) {
+                pendingBatches.addLast(batch);
+            }
+
+            synchronized Batch pollPendingBatch() {
+                return pendingBatches.pollFirst();
+            }
+
+            synchronized boolean hasPendingBatches() {
+                return !pendingBatches.isEmpty();
+            }
+
+            /**
+             * Joins every row of the batch in the partition with the rows of the other relation read before it, then indexes it.
+             */
+            void join(Batch batch, Consumer<? super Row> action, RowBatchBuffer out) {
+                this.action = action;
+                this.out = out;
+                try {
+                    for (int i = batch.partitionHeads[partition]; i != Batch.END; i = batch.nextRows[i]) {
+                        final Row row = batch.rows[i];
+                        probeRow = row;
+                        probeFirst = batch.first[i];
+                        if (probeFirst) {
+                            index2.forEachRow(batch.hashes[i], row.getValues(), keyIndexes1, this);
+                            index1.addIndexRow(row, batch.hashes[i]);
+                        } else {
+                            index1.forEachRow(batch.hashes[i], row.getValues(), keyIndexes2, this);
+                            index2.addIndexRow(row, batch.hashes[i]);
                         }
-                        return resultsIterator.next();
                     }
-                };
-                // create the output relation
-                return new StreamRelation(outRelColumns, StreamSupport.stream(Spliterators.spliteratorUnknownSize(resultIterator, 0), false));
+                } finally {
+                    this.action = null;
+                    this.out = null;
+                    probeRow = null;
+                }
+            }
+
+            /**
+             * Merges a match of the row being joined.
+             */
+            @Override
+            public void accept(Row indexedRow) {
+                final MergePlan mergePlan = probeFirst ? mergePlan21 : mergePlan12;
+                if (out != null) {
+                    out.addMergedRow(mergePlan, indexedRow, probeRow);
+                } else {
+                    action.accept(mergePlan.merge(indexedRow, probeRow));
+                }
             }
-        } else {
-            // create a Cartesian product as there is no common column
-            //TODO: implement it or leave it as an error
-            throw new IllegalStateException("The two input relations have no common column!");
         }
     }
 }
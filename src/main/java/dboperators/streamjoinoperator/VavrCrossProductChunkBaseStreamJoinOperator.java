@@ -2,22 +2,40 @@ package dboperators.streamjoinoperator;
 
 import dboperators.Column;
 import dboperators.Columns;
+import dboperators.MergePlan;
+import dboperators.ProjectionPlan;
+import dboperators.RelationMetadata;
+import dboperators.Row;
+import dboperators.batch.RowBatch;
 import dboperators.joinoperator.Index;
-import dboperators.joinoperator.JoinOperator;
 import dboperators.joinoperator.Relation;
+import io.vavr.Lazy;
 import io.vavr.collection.Iterator;
 import io.vavr.collection.Stream;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.StreamSupport;
 
 /**
- * Based on vavr library and its cross product function with two streams.
+ * Based on vavr library and its cross product function with two streams. <br/>
+ * The chunks have growing sizes, see {@link ChunkSizer}. Every pair of the cross product is joined by an independent task, so a parallel output stream joins the chunk pairs on many threads.
  */
 public class VavrCrossProductChunkBaseStreamJoinOperator implements IStreamJoinOperator {
-    private static final int CHUNK_SIZE = 1 << 10;
+    private final long memoryBudget;
+
+    public VavrCrossProductChunkBaseStreamJoinOperator() {
+        this(Runtime.getRuntime().maxMemory() / 4);
+    }
+
+    /**
+     * @param memoryBudget the estimated heap size in bytes of a pair of joined chunks, their rows and index entries,
+     *                     which bounds the sizes of the chunks, see {@link ChunkSizer}
+     */
+    public VavrCrossProductChunkBaseStreamJoinOperator(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
 
     @Override
     public StreamRelation join(StreamRelation rel1, StreamRelation rel2) {
@@ -29,25 +47,53 @@ public class VavrCrossProductChunkBaseStreamJoinOperator implements IStreamJoinO
         if (commonColumns.size() > 0) {
             // create the columns of the output relation
             ArrayList<Column> outRelColumns = Columns.union(rel1.getColumns(), rel2.getColumns());
-
-            // create the stream of the output relation
-            final Iterator<Relation> relations1 = Stream.ofAll(rel1.getRows()).grouped(CHUNK_SIZE)
-                    .map(rows -> new Relation(rel1.getColumns(), rows.collect(Collectors.toList())));
-
-            final Iterator<Relation> relations2 = Stream.ofAll(rel2.getRows()).grouped(CHUNK_SIZE)
-                    .map(rows -> new Relation(rel2.getColumns(), rows.collect(Collectors.toList())));
-
-            final Iterator<Index> indexes2 = relations2.map(rc2 -> new Index(rc2, commonColumns));
-
-            final Iterator<Relation> outRelations = Stream.ofAll(relations1).crossProduct(Stream.ofAll(indexes2))
-                    .map(ri -> JoinOperator.join(ri._1(), ri._2()));
+            final Iterator<ChunkJoinTask> joinTasks = joinTasks(rel1, rel1.getRows(), rel2, rel2.getRows(), commonColumns, outRelColumns);
 
             // create the output relation
-            return new StreamRelation(outRelColumns, outRelations.toJavaStream().map(outRel -> outRel.getRows()).flatMap(Collection::stream));
+            return new StreamRelation(outRelColumns, StreamSupport.stream(JoinTasksSpliterator.of(joinTasks), false));
         } else {
             // create a Cartesian product as there is no common column
-            //TODO: implement it or leave it as an error
-            throw new IllegalStateException("The two input relations have no common column!");
+            return new BlockNestedLoopStreamJoinOperator().join(rel1, rel2);
         }
     }
+
+    /**
+     * Runs the join tasks one after the other, every task merging its matches directly into the batch.
+     */
+    @Override
+    public long joinBatches(StreamRelation rel1, StreamRelation rel2, int batchSize, Consumer<? super RowBatch> sink) {
+        Objects.requireNonNull(rel1);
+        Objects.requireNonNull(rel2);
+        Objects.requireNonNull(sink);
+
+        final ArrayList<Column> commonColumns = Columns.intersection(rel1.getColumns(), rel2.getColumns());
+        if (commonColumns.isEmpty()) {
+            return IStreamJoinOperator.super.joinBatches(rel1, rel2, batchSize, sink);
+        }
+        final ArrayList<Column> outRelColumns = Columns.union(rel1.getColumns(), rel2.getColumns());
+        final RowBatchBuffer out = new RowBatchBuffer(outRelColumns, batchSize, sink);
+        try (java.util.stream.Stream<Row> rows1 = rel1.getRows(); java.util.stream.Stream<Row> rows2 = rel2.getRows()) {
+            joinTasks(rel1, rows1, rel2, rows2, commonColumns, outRelColumns).forEach(task -> task.joinInto(out));
+        }
+        return out.flush();
+    }
+
+    private Iterator<ChunkJoinTask> joinTasks(StreamRelation rel1, java.util.stream.Stream<Row> rows1,
+                                              StreamRelation rel2, java.util.stream.Stream<Row> rows2,
+                                              ArrayList<Column> commonColumns, ArrayList<Column> outRelColumns) {
+        final ProjectionPlan keyPlan1 = ProjectionPlan.of(rel1, new RelationMetadata(commonColumns));
+        final MergePlan mergePlan = MergePlan.of(rel1, rel2, new RelationMetadata(outRelColumns));
+
+        final Iterator<Relation> relations1 = Iterator.ofAll(new ChunkSizer(memoryBudget / 2, rel1).chunks(rows1.iterator()))
+                .map(rows -> new Relation(rel1.getColumns(), rows));
+
+        final Iterator<Relation> relations2 = Iterator.ofAll(new ChunkSizer(memoryBudget / 2, rel2).chunks(rows2.iterator()))
+                .map(rows -> new Relation(rel2.getColumns(), rows));
+
+        // the indexes are built once, by the first task using them
+        final Iterator<Lazy<Index>> indexes2 = relations2.map(rc2 -> Lazy.of(() -> new Index(rc2, commonColumns)));
+
+        return Stream.ofAll(relations1).crossProduct(Stream.ofAll(indexes2))
+                .map(ri -> new ChunkJoinTask(ri._1(), ri._2(), keyPlan1, mergePlan));
+    }
 }
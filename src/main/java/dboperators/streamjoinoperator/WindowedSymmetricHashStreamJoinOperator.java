@@ -0,0 +1,231 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Column;
+import dboperators.Columns;
+import dboperators.JoinKey;
+import dboperators.MergePlan;
+import dboperators.ProjectionPlan;
+import dboperators.RelationMetadata;
+import dboperators.Row;
+import dboperators.Rows;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Symmetric hash join of unbounded streams, which keeps in its two indexes only the rows of a {@link JoinWindow}. <br/>
+ * Like {@link SymmetricHashStreamJoinOperator} it reads the two streams alternately and joins every new row with the indexed rows
+ * of the other stream, but the rows leaving the window are evicted from their index. Every index keeps its rows in hash buckets
+ * for the probes and in a queue ordered by their expiry for the evictions, the arrival order for a rows window
+ * and the timestamp order for a time window, so evicting a row costs O(1), or O(log W) for a time window. <br/>
+ * Without common column, or with only the timestamp columns in common, every row of the window matches. <br/>
+ * The runtime complexity is O(N1*b2+N2*b1) where b1,b2 are the numbers of matching rows in the windows. <br/>
+ * The memory complexity is O(W1+W2) where W1,W2 are the numbers of rows of the windows. <br/>
+ */
+public class WindowedSymmetricHashStreamJoinOperator implements IStreamJoinOperator {
+    private final JoinWindow window;
+
+    public WindowedSymmetricHashStreamJoinOperator(JoinWindow window) {
+        this.window = Objects.requireNonNull(window);
+    }
+
+    @Override
+    public StreamRelation join(StreamRelation rel1, StreamRelation rel2) {
+        Objects.requireNonNull(rel1);
+        Objects.requireNonNull(rel2);
+
+        // the timestamps are compared with the window, not with each other
+        final ArrayList<Column> keyColumns = Columns.intersection(rel1.getColumns(), rel2.getColumns());
+        if (window.isTimeBased()) {
+            keyColumns.remove(window.getTimestampColumn1());
+            keyColumns.remove(window.getTimestampColumn2());
+        }
+
+        // create the columns of the output relation
+        final ArrayList<Column> outRelColumns = Columns.union(rel1.getColumns(), rel2.getColumns());
+        final MergePlan mergePlan = MergePlan.of(rel1, rel2, new RelationMetadata(outRelColumns));
+        final RelationMetadata keyRelation = new RelationMetadata(keyColumns);
+        final int[] keyIndexes1 = ProjectionPlan.of(rel1, keyRelation).getIndexes();
+        final int[] keyIndexes2 = ProjectionPlan.of(rel2, keyRelation).getIndexes();
+        final int timestampIndex1 = window.isTimeBased() ? timestampIndex(rel1, window.getTimestampColumn1()) : -1;
+        final int timestampIndex2 = window.isTimeBased() ? timestampIndex(rel2, window.getTimestampColumn2()) : -1;
+
+        // the streams are read only when the output stream is consumed, and only as far as the output rows are pulled
+        final Stream<Row> outRows = Rows.lazy(() -> {
+            final WindowedJoin join = new WindowedJoin(rel1.getRows().iterator(), rel2.getRows().iterator(),
+                    new WindowSide(keyIndexes1, timestampIndex1), new WindowSide(keyIndexes2, timestampIndex2), mergePlan);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(join, 0), false);
+        }).onClose(() -> {
+            rel1.getRows().close();
+            rel2.getRows().close();
+        });
+        return new StreamRelation(outRelColumns, outRows);
+    }
+
+    private static int timestampIndex(RelationMetadata relation, Column timestampColumn) {
+        final Integer index = relation.getColumnIndexMap().get(timestampColumn);
+        if (index == null) {
+            throw new IllegalStateException("Timestamp column cannot be found in the relation set of columns!");
+        }
+        return index;
+    }
+
+    /**
+     * One input of the join: the positions of its key and timestamp columns and the index of the rows of its window.
+     */
+    private class WindowSide {
+        final int[] keyIndexes;
+        final int timestampIndex;
+        final Map<JoinKey, ArrayDeque<WindowEntry>> buckets = new HashMap<>();
+        // the entries by expiry, the first one expiring first
+        final Queue<WindowEntry> entries;
+        // the sequence number of the last row for a rows window, else the greatest timestamp read
+        long lastTimestamp;
+
+        WindowSide(int[] keyIndexes, int timestampIndex) {
+            this.keyIndexes = keyIndexes;
+            this.timestampIndex = timestampIndex;
+            this.lastTimestamp = window.isTimeBased() ? Long.MIN_VALUE : -1;
+            this.entries = window.isTimeBased()
+                    ? new PriorityQueue<>(Comparator.comparingLong(entry -> entry.timestamp))
+                    : new ArrayDeque<>();
+        }
+
+        /**
+         * @return the timestamp of the row or its sequence number for a rows window, null for a dropped row
+         */
+        Long timestampOf(Row row) {
+            if (!window.isTimeBased()) {
+                return ++lastTimestamp;
+            }
+            final Number value = (Number) row.getValues()[timestampIndex];
+            // the late rows could have missed matches already evicted
+            if (value == null || (lastTimestamp != Long.MIN_VALUE && value.longValue() < lastTimestamp - window.getAllowedLateness())) {
+                return null;
+            }
+            lastTimestamp = Math.max(lastTimestamp, value.longValue());
+            return value.longValue();
+        }
+
+        void add(WindowEntry entry) {
+            buckets.computeIfAbsent(entry.key, k -> new ArrayDeque<>()).addLast(entry);
+            entries.add(entry);
+        }
+
+        /**
+         * Evicts the entries whose timestamp is lower than the given one.
+         */
+        void evictBefore(long minTimestamp) {
+            while (!entries.isEmpty() && entries.peek().timestamp < minTimestamp) {
+                final WindowEntry entry = entries.poll();
+                final ArrayDeque<WindowEntry> bucket = buckets.get(entry.key);
+                // the rows of a bucket are in arrival order, the first one usually expires first
+                if (bucket.peekFirst() == entry) {
+                    bucket.pollFirst();
+                } else {
+                    bucket.removeFirstOccurrence(entry);
+                }
+                if (bucket.isEmpty()) {
+                    buckets.remove(entry.key);
+                }
+            }
+        }
+    }
+
+    private static class WindowEntry {
+        final JoinKey key;
+        final Row row;
+        final long timestamp;
+
+        WindowEntry(JoinKey key, Row row, long timestamp) {
+            this.key = key;
+            this.row = row;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * Reads the two streams alternately, joining every row with the window of the other stream before adding it to its own window.
+     */
+    private class WindowedJoin implements Iterator<Row> {
+        private final Iterator<Row> rowsIterator1;
+        private final Iterator<Row> rowsIterator2;
+        private final WindowSide side1;
+        private final WindowSide side2;
+        private final MergePlan mergePlan;
+        private final ArrayList<Row> results = new ArrayList<>();
+        private int resultPosition;
+
+        WindowedJoin(Iterator<Row> rowsIterator1, Iterator<Row> rowsIterator2, WindowSide side1, WindowSide side2, MergePlan mergePlan) {
+            this.rowsIterator1 = rowsIterator1;
+            this.rowsIterator2 = rowsIterator2;
+            this.side1 = side1;
+            this.side2 = side2;
+            this.mergePlan = mergePlan;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (resultPosition == results.size() && (rowsIterator1.hasNext() || rowsIterator2.hasNext())) {
+                results.clear();
+                resultPosition = 0;
+                if (rowsIterator1.hasNext()) {
+                    join(rowsIterator1.next(), side1, side2, true);
+                }
+                if (rowsIterator2.hasNext()) {
+                    join(rowsIterator2.next(), side2, side1, false);
+                }
+                evictByTime();
+            }
+            return resultPosition < results.size();
+        }
+
+        private void join(Row row, WindowSide side, WindowSide otherSide, boolean first) {
+            final Long timestamp = side.timestampOf(row);
+            if (timestamp == null) {
+                return;
+            }
+            final JoinKey key = JoinKey.of(row.getValues(), side.keyIndexes);
+            final ArrayDeque<WindowEntry> bucket = otherSide.buckets.get(key);
+            if (bucket != null) {
+                for (WindowEntry entry : bucket) {
+                    if (!window.isTimeBased() || Math.abs(entry.timestamp - timestamp) <= window.getSize()) {
+                        results.add(first ? mergePlan.merge(row, entry.row) : mergePlan.merge(entry.row, row));
+                    }
+                }
+            }
+            side.add(new WindowEntry(key, row, timestamp));
+            if (!window.isTimeBased()) {
+                side.evictBefore(timestamp - window.getRowsCount() + 1);
+            }
+        }
+
+        private void evictByTime() {
+            if (window.isTimeBased() && side1.lastTimestamp != Long.MIN_VALUE && side2.lastTimestamp != Long.MIN_VALUE) {
+                // no row above the watermark can match a row older than the watermark minus the window size
+                final long watermark = Math.min(side1.lastTimestamp, side2.lastTimestamp) - window.getAllowedLateness();
+                side1.evictBefore(watermark - window.getSize());
+                side2.evictBefore(watermark - window.getSize());
+            }
+        }
+
+        @Override
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return results.get(resultPosition++);
+        }
+    }
+}
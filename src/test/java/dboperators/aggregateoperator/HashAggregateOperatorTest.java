@@ -0,0 +1,116 @@
+package dboperators.aggregateoperator;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Columns;
+import dboperators.Row;
+import dboperators.streamjoinoperator.StreamRelation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class HashAggregateOperatorTest {
+    private static final int ROWS_COUNT = 100_000;
+    private static final Column G = new Column("G", ColumnType.VARCHAR);
+    private static final Column I = new Column("I", ColumnType.INTEGER);
+    private static final Column L = new Column("L", ColumnType.LONG);
+    private static final List<Aggregate> AGGREGATES = List.of(
+            Aggregate.count("COUNT"),
+            Aggregate.count(I, "COUNT_I"),
+            Aggregate.sum(L, "SUM_L"),
+            Aggregate.min(I, "MIN_I"),
+            Aggregate.max(L, "MAX_L"),
+            Aggregate.avg(I, "AVG_I"));
+
+    private static List<Row> getRows(int groupsCount) {
+        // every seventh I value is null
+        return IntStream.range(0, ROWS_COUNT)
+                .mapToObj(i -> Row.of("g" + (i * 7919 % groupsCount), i % 7 == 0 ? null : i % 1000 - 500, (long) i))
+                .collect(Collectors.toList());
+    }
+
+    private static Map<Object, Row> expectedResults(List<Row> rows) {
+        return rows.stream()
+                .collect(Collectors.groupingBy(row -> row.getValues()[0]))
+                .entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> {
+                    final List<Row> groupRows = e.getValue();
+                    final List<Integer> iValues = groupRows.stream().map(row -> (Integer) row.getValues()[1])
+                            .filter(v -> v != null).collect(Collectors.toList());
+                    return Row.of(e.getKey(),
+                            (long) groupRows.size(),
+                            (long) iValues.size(),
+                            groupRows.stream().mapToLong(row -> (Long) row.getValues()[2]).sum(),
+                            iValues.stream().min(Integer::compare).orElse(null),
+                            groupRows.stream().map(row -> (Long) row.getValues()[2]).max(Long::compare).orElse(null),
+                            iValues.isEmpty() ? null : iValues.stream().mapToLong(Integer::longValue).sum() / (double) iValues.size());
+                }));
+    }
+
+    private void assertAggregates(HashAggregateOperator operator, int groupsCount, boolean parallel) {
+        final List<Row> rows = getRows(groupsCount);
+        final Stream<Row> rowsStream = parallel ? rows.parallelStream() : rows.stream();
+        final StreamRelation output = operator.aggregate(StreamRelation.of(rowsStream, G, I, L), Columns.of(G), AGGREGATES);
+
+        final ArrayList<Column> expectedColumns = Columns.of(G);
+        AGGREGATES.forEach(aggregate -> expectedColumns.add(aggregate.getOutputColumn()));
+        Assertions.assertEquals(expectedColumns, output.getColumns());
+        Assertions.assertEquals(expectedResults(rows),
+                output.getRows().collect(Collectors.toMap(row -> row.getValues()[0], Function.identity())));
+    }
+
+    @Test
+    public void testAggregateInMemory() {
+        assertAggregates(new HashAggregateOperator(Long.MAX_VALUE), 1000, false);
+        assertAggregates(new HashAggregateOperator(Long.MAX_VALUE), 1000, true);
+    }
+
+    @Test
+    public void testAggregateWithSpilledStates() {
+        // about a hundred groups per partial table, so that the states of all the groups are spilled many times
+        assertAggregates(new HashAggregateOperator(1L << 14), 10_000, false);
+        assertAggregates(new HashAggregateOperator(1L << 14), 10_000, true);
+    }
+
+    @Test
+    public void testAggregateWithoutGroupColumns() {
+        final StreamRelation output = new HashAggregateOperator(Long.MAX_VALUE)
+                .aggregate(StreamRelation.of(getRows(10).stream(), G, I, L), new ArrayList<>(), AGGREGATES);
+        final Row expected = expectedResults(getRows(1)).get("g0");
+        Assertions.assertEquals(List.of(Row.of(Stream.of(expected.getValues()).skip(1).toArray())),
+                output.getRows().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testAggregateEmptyRelation() {
+        final StreamRelation output = new HashAggregateOperator(Long.MAX_VALUE)
+                .aggregate(StreamRelation.of(Stream.empty(), G, I, L), new ArrayList<>(), AGGREGATES);
+        Assertions.assertEquals(List.of(Row.of(0L, 0L, null, null, null, null)), output.getRows().collect(Collectors.toList()));
+
+        final StreamRelation groupedOutput = new HashAggregateOperator(Long.MAX_VALUE)
+                .aggregate(StreamRelation.of(Stream.empty(), G, I, L), Columns.of(G), AGGREGATES);
+        Assertions.assertEquals(0, groupedOutput.getRows().count());
+    }
+
+    @Test
+    public void testIntegerAndLongGroupValues() {
+        // an INTEGER and a LONG value of a LONG column with the same long value are in the same group, like the join keys
+        final StreamRelation rel = StreamRelation.of(Stream.of(Row.of("g", 1, 1L), Row.of("g", 2, 1), Row.of("g", 3, 2L)), G, I, L);
+        final StreamRelation output = new HashAggregateOperator(Long.MAX_VALUE).aggregate(rel, Columns.of(L), List.of(Aggregate.count("COUNT")));
+        Assertions.assertEquals(Map.of(1L, 2L, 2L, 1L), output.getRows()
+                .collect(Collectors.toMap(row -> ((Number) row.getValues()[0]).longValue(), row -> (Long) row.getValues()[1])));
+    }
+
+    @Test
+    public void testUnsupportedInputColumn() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Aggregate.sum(G, "SUM_G"));
+        Assertions.assertEquals(ColumnType.INTEGER, Aggregate.min(I, "MIN_I").getOutputColumn().getType());
+    }
+}
@@ -0,0 +1,92 @@
+package dboperators.aggregateoperator;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Columns;
+import dboperators.Row;
+import dboperators.streamjoinoperator.SingleHashStreamJoinOperator;
+import dboperators.streamjoinoperator.StreamRelation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class HashJoinAggregateOperatorTest {
+    private static final Column K = new Column("K", ColumnType.LONG);
+    private static final Column G1 = new Column("G1", ColumnType.VARCHAR);
+    private static final Column V1 = new Column("V1", ColumnType.INTEGER);
+    private static final Column G2 = new Column("G2", ColumnType.VARCHAR);
+    private static final Column V2 = new Column("V2", ColumnType.LONG);
+    private static final List<Aggregate> AGGREGATES = List.of(
+            Aggregate.count("COUNT"),
+            Aggregate.count(V2, "COUNT_V2"),
+            Aggregate.sum(V1, "SUM_V1"),
+            Aggregate.sum(V2, "SUM_V2"),
+            Aggregate.min(V1, "MIN_V1"),
+            Aggregate.max(V2, "MAX_V2"),
+            Aggregate.avg(V1, "AVG_V1"));
+
+    // a high fan-out join, every key having about twenty rows in the second relation
+    private static StreamRelation getRelation1(boolean parallel) {
+        final List<Row> rows = IntStream.range(0, 10_000)
+                .mapToObj(i -> Row.of((long) (i % 600), "g" + i % 13, i % 11 == 0 ? null : i % 100))
+                .collect(Collectors.toList());
+        return StreamRelation.of(parallel ? rows.parallelStream() : rows.stream(), K, G1, V1);
+    }
+
+    private static StreamRelation getRelation2() {
+        return StreamRelation.of(
+                IntStream.range(0, 10_000).mapToObj(i -> Row.of((long) (i % 500), "h" + i % 7, i % 3 == 0 ? null : (long) i)),
+                K, G2, V2);
+    }
+
+    private static Set<Row> joinThenAggregate(StreamRelation rel1, StreamRelation rel2, ArrayList<Column> groupColumns) {
+        return new HashAggregateOperator(Long.MAX_VALUE)
+                .aggregate(new SingleHashStreamJoinOperator().join(rel1, rel2), groupColumns, AGGREGATES)
+                .getRows().collect(Collectors.toSet());
+    }
+
+    private void assertSameAsJoinThenAggregate(ArrayList<Column> groupColumns) {
+        for (boolean parallel : new boolean[]{false, true}) {
+            final StreamRelation output = new HashJoinAggregateOperator()
+                    .aggregate(getRelation1(parallel), getRelation2(), groupColumns, AGGREGATES);
+            Assertions.assertEquals(joinThenAggregate(getRelation1(false), getRelation2(), groupColumns),
+                    output.getRows().collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    public void testGroupColumnsOfProbeRelation() {
+        assertSameAsJoinThenAggregate(Columns.of(G1));
+        assertSameAsJoinThenAggregate(Columns.of(K, G1));
+        assertSameAsJoinThenAggregate(new ArrayList<>());
+    }
+
+    @Test
+    public void testGroupColumnsOfBothRelations() {
+        assertSameAsJoinThenAggregate(Columns.of(G2));
+        assertSameAsJoinThenAggregate(Columns.of(G2, G1));
+    }
+
+    @Test
+    public void testCrossProduct() {
+        final StreamRelation rel1 = StreamRelation.of(IntStream.range(0, 30).mapToObj(i -> Row.of("g" + i % 3, i)), G1, V1);
+        final StreamRelation rel2 = StreamRelation.of(IntStream.range(0, 20).mapToObj(i -> Row.of("h" + i % 2, (long) i)), G2, V2);
+        final List<Row> output = new HashJoinAggregateOperator()
+                .aggregate(rel1, rel2, Columns.of(G1), List.of(Aggregate.count("COUNT"), Aggregate.sum(V2, "SUM_V2")))
+                .getRows().collect(Collectors.toList());
+        Assertions.assertEquals(Set.of(Row.of("g0", 200L, 1900L), Row.of("g1", 200L, 1900L), Row.of("g2", 200L, 1900L)), Set.copyOf(output));
+    }
+
+    @Test
+    public void testNoMatch() {
+        final StreamRelation output = new HashJoinAggregateOperator()
+                .aggregate(getRelation1(false), StreamRelation.of(Stream.empty(), K, G2, V2), new ArrayList<>(), AGGREGATES);
+        Assertions.assertEquals(List.of(Row.of(0L, 0L, null, null, null, null, null)), output.getRows().collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,145 @@
+package dboperators.batch;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Columns;
+import dboperators.Hashing;
+import dboperators.Row;
+import dboperators.joinoperator.IIndex;
+import dboperators.joinoperator.Index;
+import dboperators.joinoperator.JoinOperator;
+import dboperators.joinoperator.OpenAddressingIndex;
+import dboperators.joinoperator.Relation;
+import dboperators.joinoperator.SampleColumns;
+import dboperators.joinoperator.SampleRelations;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class RowBatchTest {
+    private static final Column ID = new Column("ID", ColumnType.LONG);
+    private static final Column COUNT = new Column("COUNT", ColumnType.INTEGER);
+    private static final Column PRICE = new Column("PRICE", ColumnType.DOUBLE);
+
+    @Test
+    public void testRowsRoundTrip() {
+        final List<Row> rows = List.of(
+                Row.of(1L, 10, "x1"),
+                Row.of(2L, null, "x2"),
+                Row.of(3L, 30, "x1")
+        );
+        final RowBatch batch = RowBatch.fromRows(Columns.of(ID, COUNT, SampleColumns.X), rows);
+
+        Assertions.assertEquals(3, batch.size());
+        Assertions.assertEquals(2L, ((LongColumnVector) batch.getVector(0)).getLong(1));
+        Assertions.assertTrue(batch.getVector(1).isNull(1));
+        Assertions.assertEquals(rows, batch.toRows());
+
+        batch.clear();
+        Assertions.assertEquals(0, batch.size());
+    }
+
+    @Test
+    public void testVarcharDictionaryCleared() {
+        final RowBatch batch = new RowBatch(Columns.of(SampleColumns.X), 2);
+        final VarcharColumnVector vector = (VarcharColumnVector) batch.getVector(0);
+        final VarcharColumnVector sharingVector = new VarcharColumnVector(2, vector.getDictionary());
+        final VarcharColumnVector.Dictionary sharedDictionary = vector.getDictionary();
+        batch.addRow(Row.of("x1"));
+        sharingVector.addFrom(vector, 0);
+
+        // the codes of the other vector refer to the shared dictionary
+        batch.clear();
+        Assertions.assertEquals(1, sharedDictionary.size());
+        Assertions.assertEquals("x1", sharingVector.get(0));
+
+        // a dictionary of its own is cleared with the vector
+        final RowBatch ownBatch = new RowBatch(Columns.of(SampleColumns.X), 2);
+        for (int i = 0; i < 10; i++) {
+            ownBatch.clear();
+            ownBatch.addRow(Row.of("x" + i));
+            ownBatch.addRow(Row.of("y" + i));
+            Assertions.assertEquals(2, ((VarcharColumnVector) ownBatch.getVector(0)).getDictionary().size());
+            Assertions.assertEquals(List.of(Row.of("x" + i), Row.of("y" + i)), ownBatch.toRows());
+        }
+    }
+
+    @Test
+    public void testBatchJoin() {
+        final Relation r1 = SampleRelations.getRelationXY();
+        final Relation r2 = SampleRelations.getRelationXZ();
+        final Index index2 = new Index(r2, Columns.of(SampleColumns.X));
+
+        final RowBatch output = JoinOperator.join(r1.toRowBatches(2).get(0), index2);
+        Assertions.assertEquals(Columns.of(SampleColumns.X, SampleColumns.Y, SampleColumns.Z), output.getColumns());
+        Assertions.assertEquals(List.of(Row.of("x1", "y1", "z1"), Row.of("x1", "y2", "z1")), output.toRows());
+
+        final Relation batchedOutput = new Relation(output.getColumns());
+        for (RowBatch batch : r1.toRowBatches(2)) {
+            batchedOutput.addRowBatch(JoinOperator.join(batch, index2));
+        }
+        Assertions.assertEquals(new HashSet<>(JoinOperator.join(r1, r2).getRows()), new HashSet<>(batchedOutput.getRows()));
+    }
+
+    @Test
+    public void testBatchJoinOnPrimitiveKeys() {
+        // the indexed rows hold an INTEGER value in the LONG column, and null keys match like in the row join
+        final Relation r1 = new Relation(Columns.of(ID, COUNT, PRICE, SampleColumns.X), List.of(
+                Row.of(1L, 10, 1.5, "x1"),
+                Row.of(2L, 20, 2.5, "x2"),
+                Row.of(2L, 20, 2.5, "x3"),
+                Row.of(3L, null, 3.5, "x1"),
+                Row.of(4L, 40, null, "x4")
+        ));
+        final Relation r2 = new Relation(Columns.of(ID, COUNT, PRICE, SampleColumns.Z), List.of(
+                Row.of(1, 10, 1.5, "z1"),
+                Row.of(2L, 20, 2.5, "z2"),
+                Row.of(2L, 20, 2.5, "z3"),
+                Row.of(3L, null, 3.5, "z4"),
+                Row.of(4L, 40, 4.5, "z5")
+        ));
+        final Set<Row> expected = new HashSet<>(JoinOperator.join(r1, r2).getRows());
+        Assertions.assertEquals(6, expected.size());
+
+        for (boolean openAddressing : new boolean[]{false, true}) {
+            final Relation output = new Relation(Columns.of(ID, COUNT, PRICE, SampleColumns.X, SampleColumns.Z));
+            final Relation indexed = new Relation(r2.getColumns(), r2.getRows());
+            final IIndex index = openAddressing
+                    ? new OpenAddressingIndex(indexed, Columns.of(ID, COUNT, PRICE), true)
+                    : new Index(indexed, Columns.of(ID, COUNT, PRICE), true);
+            for (RowBatch batch : r1.toRowBatches(2)) {
+                output.addRowBatch(JoinOperator.join(batch, index));
+            }
+            Assertions.assertEquals(expected, new HashSet<>(output.getRows()));
+        }
+    }
+
+    @Test
+    public void testKeyHashedFromVectors() {
+        final List<Row> rows = List.of(Row.of(1L, 10, 1.5, "x1"), Row.of(2L, null, null, null));
+        final RowBatch batch = RowBatch.fromRows(Columns.of(ID, COUNT, PRICE, SampleColumns.X), rows);
+        final int[] columns = {3, 1, 2, 0};
+        for (int row = 0; row < rows.size(); row++) {
+            Assertions.assertEquals(Hashing.hash(rows.get(row).getValues(), columns), Hashing.hash(batch, row, columns));
+            for (int column = 0; column < columns.length; column++) {
+                Assertions.assertTrue(batch.getVector(column).valueEquals(row, rows.get(row).getValues()[column]));
+            }
+        }
+        Assertions.assertTrue(batch.getVector(0).valueEquals(0, 1));
+        Assertions.assertFalse(batch.getVector(0).valueEquals(0, 1.0));
+        Assertions.assertFalse(batch.getVector(3).valueEquals(0, "x2"));
+    }
+
+    @Test
+    public void testIntegerVectorRejectsLongValues() {
+        final IntColumnVector vector = new IntColumnVector(2);
+        vector.add(42L);
+        Assertions.assertEquals(42, vector.getInt(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> vector.add(Long.MAX_VALUE));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> vector.add((long) Integer.MIN_VALUE - 1));
+        Assertions.assertEquals(1, vector.size());
+    }
+}
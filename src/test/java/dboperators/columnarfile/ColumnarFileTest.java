@@ -0,0 +1,104 @@
+package dboperators.columnarfile;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Columns;
+import dboperators.Row;
+import dboperators.joinoperator.JoinOperator;
+import dboperators.joinoperator.Relation;
+import dboperators.streamjoinoperator.SingleHashStreamJoinOperator;
+import dboperators.streamjoinoperator.StreamRelation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+public class ColumnarFileTest {
+    private static final Column I = new Column("I", ColumnType.INTEGER);
+    private static final Column L = new Column("L", ColumnType.LONG);
+    private static final Column D = new Column("D", ColumnType.DOUBLE);
+    private static final Column S = new Column("Sé", ColumnType.VARCHAR);
+    private static final ArrayList<Column> COLUMNS = Columns.of(I, L, D, S);
+
+    // every seventh value is null
+    private static final List<Row> ROWS = IntStream.range(0, 1000)
+            .mapToObj(i -> Row.of(
+                    i % 7 == 0 ? null : i - 500,
+                    i % 7 == 1 ? null : (long) i << 33,
+                    i % 7 == 2 ? null : i / 3.0,
+                    i % 7 == 3 ? null : "s中" + i % 13))
+            .collect(Collectors.toList());
+
+    @TempDir
+    Path directory;
+
+    private ColumnarFile writeAndOpen(List<Row> rows, int rowGroupSize) {
+        final Path path = directory.resolve("relation.dbc");
+        try (ColumnarFileWriter writer = new ColumnarFileWriter(path, COLUMNS, rowGroupSize)) {
+            rows.forEach(writer::write);
+        }
+        return ColumnarFile.open(path);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final ColumnarFile file = writeAndOpen(ROWS, 100);
+        Assertions.assertEquals(COLUMNS, file.getColumns());
+        Assertions.assertEquals(ROWS.size(), file.getRowsCount());
+        Assertions.assertEquals(10, file.getRowGroupsCount());
+        Assertions.assertEquals(ROWS, file.toRelation().getRows());
+
+        final StreamRelation rel = file.toStreamRelation();
+        Assertions.assertEquals(Optional.of((long) ROWS.size()), rel.getEstimatedRowsCount());
+        Assertions.assertEquals(ROWS, rel.getRows().parallel().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testColumnAccess() {
+        final ColumnarFile.RowGroup rowGroup = writeAndOpen(ROWS, 64).getRowGroup(2);
+        Assertions.assertEquals(64, rowGroup.size());
+        // the rows 128 to 191
+        Assertions.assertTrue(rowGroup.isNull(0, 5));
+        Assertions.assertEquals(129 - 500, rowGroup.getInt(0, 1));
+        Assertions.assertEquals(128L << 33, rowGroup.getLong(1, 0));
+        Assertions.assertEquals(130 / 3.0, rowGroup.getDouble(2, 2));
+        Assertions.assertEquals("s中" + 130 % 13, rowGroup.getString(3, 2));
+        Assertions.assertEquals(rowGroup.getCode(3, 0), rowGroup.getCode(3, 13));
+        Assertions.assertEquals(ROWS.get(190), rowGroup.getRow(62));
+    }
+
+    @Test
+    public void testEmptyFile() {
+        final ColumnarFile file = writeAndOpen(List.of(), 100);
+        Assertions.assertEquals(COLUMNS, file.getColumns());
+        Assertions.assertEquals(0, file.getRowGroupsCount());
+        Assertions.assertEquals(0, file.toStreamRelation().getRows().count());
+    }
+
+    @Test
+    public void testJoinOutputRoundTrip() {
+        final Column k = new Column("K", ColumnType.LONG);
+        final Relation r1 = new Relation(Columns.of(k, I),
+                LongStream.range(0, 2000).mapToObj(i -> Row.of(i % 300, (int) i)).collect(Collectors.toList()));
+        final Relation r2 = new Relation(Columns.of(k, S),
+                LongStream.range(0, 300).mapToObj(i -> Row.of(i, "s" + i)).collect(Collectors.toList()));
+        final Path path = directory.resolve("join.dbc");
+        ColumnarFileWriter.write(path, new SingleHashStreamJoinOperator().join(
+                new StreamRelation(r1.getColumns(), r1.getRows().stream()),
+                new StreamRelation(r2.getColumns(), r2.getRows().stream())));
+
+        final Relation expected = JoinOperator.join(r1, r2);
+        final Relation output = ColumnarFile.open(path).toRelation();
+        Assertions.assertEquals(expected.getColumns(), output.getColumns());
+        Assertions.assertEquals(Set.copyOf(expected.getRows()), Set.copyOf(output.getRows()));
+        Assertions.assertEquals(expected.getRows().size(), output.getRows().size());
+    }
+}
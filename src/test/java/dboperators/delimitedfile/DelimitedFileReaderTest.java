@@ -0,0 +1,114 @@
+package dboperators.delimitedfile;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Columns;
+import dboperators.Row;
+import dboperators.streamjoinoperator.StreamRelation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class DelimitedFileReaderTest {
+    private static final Column I = new Column("I", ColumnType.INTEGER);
+    private static final Column L = new Column("L", ColumnType.LONG);
+    private static final Column D = new Column("D", ColumnType.DOUBLE);
+    private static final Column S = new Column("S", ColumnType.VARCHAR);
+    private static final ArrayList<Column> COLUMNS = Columns.of(I, L, D, S);
+
+    @TempDir
+    Path directory;
+
+    private Path write(String content) {
+        try {
+            return Files.write(directory.resolve("relation.csv"), content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Row> readRows(DelimitedFileReader reader, Path path, boolean parallel) {
+        final StreamRelation rel = reader.read(path);
+        Assertions.assertEquals(COLUMNS, rel.getColumns());
+        try (Stream<Row> rows = rel.getRows()) {
+            return (parallel ? rows.parallel() : rows).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testCsv() {
+        final Path path = write("I,L,D,S\n"
+                + "1,-9223372036854775808,1.5,abc\r\n"
+                + "-2,,2e3,\"a,\"\"b\"\"\"\n"
+                + "\n"
+                + ",42,,é中\n"
+                + "3,4,-0.25,\"\"");
+        Assertions.assertEquals(List.of(
+                Row.of(1, Long.MIN_VALUE, 1.5, "abc"),
+                Row.of(-2, null, 2000.0, "a,\"b\""),
+                Row.of(null, 42L, null, "é中"),
+                Row.of(3, 4L, -0.25, "")),
+                readRows(DelimitedFileReader.csv(COLUMNS, true), path, false));
+    }
+
+    @Test
+    public void testTsv() {
+        final Path path = write("7\t8\t9.5\tx,y\n");
+        Assertions.assertEquals(List.of(Row.of(7, 8L, 9.5, "x,y")), readRows(DelimitedFileReader.tsv(COLUMNS, false), path, false));
+    }
+
+    @Test
+    public void testInvalidLines() {
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> readRows(DelimitedFileReader.csv(COLUMNS, false), write("1,2,3\n"), false));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> readRows(DelimitedFileReader.csv(COLUMNS, false), write("1,2,3,4,5\n"), false));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> readRows(DelimitedFileReader.csv(COLUMNS, false), write("3000000000,2,3,4\n"), false));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> readRows(DelimitedFileReader.csv(COLUMNS, false), write("1,2x,3,4\n"), false));
+    }
+
+    @Test
+    public void testParallelRead() {
+        // lines longer than the chunks read, so that lines span chunks
+        final String longValue = "v".repeat(DelimitedFileReader.CHUNK_SIZE / 3);
+        final List<Row> expected = IntStream.range(0, 100_000)
+                .mapToObj(i -> Row.of(i, (long) i * i, i / 8.0, i % 10_000 == 0 ? longValue : "s" + i))
+                .collect(Collectors.toList());
+        final Path path = write(expected.stream()
+                .map(row -> Stream.of(row.getValues()).map(String::valueOf).collect(Collectors.joining(",")))
+                .collect(Collectors.joining("\n", "", "\n")));
+
+        final DelimitedFileReader reader = new DelimitedFileReader(COLUMNS, ',', false, 1 << 12);
+        Assertions.assertEquals(expected, readRows(reader, path, false));
+        Assertions.assertEquals(expected, readRows(reader, path, true));
+        Assertions.assertEquals(expected, readRows(DelimitedFileReader.csv(COLUMNS, false), path, true));
+
+        // the ranges split at line starts cover all the lines
+        final StreamRelation rel = reader.read(path);
+        final Spliterator<Row> spliterator = rel.getRows().spliterator();
+        final Spliterator<Row> prefix = spliterator.trySplit();
+        Assertions.assertNotNull(prefix);
+        Assertions.assertEquals(expected.size(), countRows(prefix) + countRows(spliterator));
+        rel.getRows().close();
+    }
+
+    private static long countRows(Spliterator<Row> spliterator) {
+        final long[] count = new long[1];
+        spliterator.forEachRemaining(row -> count[0]++);
+        return count[0];
+    }
+}
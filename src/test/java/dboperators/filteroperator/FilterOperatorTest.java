@@ -0,0 +1,117 @@
+package dboperators.filteroperator;
+
+import dboperators.Column;
+import dboperators.ColumnPredicate;
+import dboperators.ColumnType;
+import dboperators.Columns;
+import dboperators.Row;
+import dboperators.batch.RowBatch;
+import dboperators.streamjoinoperator.StreamRelation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class FilterOperatorTest {
+    private static final Column I = new Column("I", ColumnType.INTEGER);
+    private static final Column L = new Column("L", ColumnType.LONG);
+    private static final Column D = new Column("D", ColumnType.DOUBLE);
+    private static final Column S = new Column("S", ColumnType.VARCHAR);
+    private static final ArrayList<Column> COLUMNS = Columns.of(I, L, D, S);
+
+    // every fifth value is null
+    private static final List<Row> ROWS = IntStream.range(0, 1000)
+            .mapToObj(i -> Row.of(
+                    i % 5 == 0 ? null : i % 100,
+                    i % 5 == 1 ? null : (long) i,
+                    i % 5 == 2 ? null : i / 10.0,
+                    i % 5 == 3 ? null : "s" + i % 17))
+            .collect(Collectors.toList());
+
+    private static List<Row> filterRows(List<ColumnPredicate> predicates) {
+        return ROWS.stream()
+                .filter(row -> predicates.stream().allMatch(p -> p.test(row.getValues()[COLUMNS.indexOf(p.getColumn())])))
+                .collect(Collectors.toList());
+    }
+
+    private void assertFiltered(List<ColumnPredicate> predicates) {
+        final List<Row> expected = filterRows(predicates);
+        Assertions.assertEquals(expected, new FilterOperator()
+                .filter(new StreamRelation(COLUMNS, ROWS.stream()), predicates)
+                .getRows().collect(Collectors.toList()));
+        // the batches are filtered one column at a time
+        Assertions.assertEquals(expected, new FilterOperator()
+                .filter(RowBatch.fromRows(COLUMNS, ROWS), predicates)
+                .toRows());
+    }
+
+    @Test
+    public void testComparisons() {
+        for (ColumnPredicate.Comparison comparison : ColumnPredicate.Comparison.values()) {
+            final boolean nullTest = comparison == ColumnPredicate.Comparison.IS_NULL || comparison == ColumnPredicate.Comparison.IS_NOT_NULL;
+            assertFiltered(List.of(ColumnPredicate.of(I, comparison, nullTest ? null : 50)));
+            assertFiltered(List.of(ColumnPredicate.of(L, comparison, nullTest ? null : 500L)));
+            assertFiltered(List.of(ColumnPredicate.of(D, comparison, nullTest ? null : 49.9)));
+            assertFiltered(List.of(ColumnPredicate.of(S, comparison, nullTest ? null : "s3")));
+        }
+    }
+
+    @Test
+    public void testFractionalConstantsOfIntegerColumns() {
+        Assertions.assertTrue(ColumnPredicate.lessThan(I, 1.5).test(1));
+        Assertions.assertFalse(ColumnPredicate.equalTo(I, 1.5).test(1));
+        Assertions.assertTrue(ColumnPredicate.greaterThan(L, -1.5).test(-1L));
+        Assertions.assertFalse(ColumnPredicate.greaterThan(L, 1e19).test(Long.MAX_VALUE));
+        Assertions.assertTrue(ColumnPredicate.greaterThan(L, -1e19).test(Long.MIN_VALUE));
+        Assertions.assertTrue(ColumnPredicate.equalTo(L, 2.0).test(2L));
+        // the rows below 49.5 and the rows above it, on the row path and on the vectorized path
+        final List<Row> lessRows = ROWS.stream().filter(row -> row.getValues()[0] != null && (int) row.getValues()[0] <= 49).collect(Collectors.toList());
+        Assertions.assertEquals(lessRows, filterRows(List.of(ColumnPredicate.lessThan(I, 49.5))));
+        assertFiltered(List.of(ColumnPredicate.lessThan(I, 49.5)));
+        assertFiltered(List.of(ColumnPredicate.greaterThan(I, 49.5)));
+        assertFiltered(List.of(ColumnPredicate.of(L, ColumnPredicate.Comparison.LESS_OR_EQUAL, 499.5)));
+        Assertions.assertTrue(filterRows(List.of(ColumnPredicate.equalTo(I, 49.5))).isEmpty());
+        assertFiltered(List.of(ColumnPredicate.equalTo(I, 49.5)));
+    }
+
+    @Test
+    public void testConjunction() {
+        final List<ColumnPredicate> predicates = List.of(
+                ColumnPredicate.greaterThan(I, 10),
+                ColumnPredicate.lessThan(L, 900),
+                ColumnPredicate.isNotNull(D),
+                ColumnPredicate.equalTo(S, "s5"));
+        Assertions.assertFalse(filterRows(predicates).isEmpty());
+        assertFiltered(predicates);
+        assertFiltered(List.of());
+    }
+
+    @Test
+    public void testInvalidPredicates() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ColumnPredicate.equalTo(S, 1));
+        Assertions.assertThrows(IllegalStateException.class, () -> new FilterOperator()
+                .filter(new StreamRelation(Columns.of(I), ROWS.stream()), List.of(ColumnPredicate.isNull(S))));
+    }
+
+    @Test
+    public void testProjection() {
+        final StreamRelation rel = new StreamRelation(COLUMNS, ROWS.stream());
+        rel.setSortColumns(Optional.of(Columns.of(S, I, L)));
+        final StreamRelation output = new ProjectOperator().project(rel, Columns.of(S, L));
+        Assertions.assertEquals(Optional.of(Columns.of(S)), output.getSortColumns());
+        Assertions.assertEquals(
+                ROWS.stream().map(row -> Row.of(row.getValues()[3], row.getValues()[1])).collect(Collectors.toList()),
+                output.getRows().collect(Collectors.toList()));
+
+        // the projected batch shares the vectors
+        final RowBatch batch = RowBatch.fromRows(COLUMNS, ROWS);
+        final RowBatch projectedBatch = new ProjectOperator().project(batch, Columns.of(S, L));
+        Assertions.assertEquals(Columns.of(S, L), projectedBatch.getColumns());
+        Assertions.assertSame(batch.getVector(3), projectedBatch.getVector(0));
+        Assertions.assertSame(batch.getVector(1), projectedBatch.getVector(1));
+    }
+}
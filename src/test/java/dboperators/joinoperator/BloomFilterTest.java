@@ -0,0 +1,60 @@
+package dboperators.joinoperator;
+
+import dboperators.Columns;
+import dboperators.Hashing;
+import dboperators.Row;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+public class BloomFilterTest {
+
+    @Test
+    public void testNoFalseNegatives() {
+        final BloomFilter bloomFilter = new BloomFilter(10_000);
+        for (long i = 0; i < 10_000; i++) {
+            bloomFilter.add(Hashing.hash(new Object[]{i}));
+        }
+        for (long i = 0; i < 10_000; i++) {
+            Assertions.assertTrue(bloomFilter.mightContain(Hashing.hash(new Object[]{i})));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveProbability() {
+        final BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+        for (long i = 0; i < 10_000; i++) {
+            bloomFilter.add(Hashing.hash(new Object[]{i}));
+        }
+        int falsePositives = 0;
+        for (long i = 10_000; i < 110_000; i++) {
+            if (bloomFilter.mightContain(Hashing.hash(new Object[]{i}))) {
+                falsePositives++;
+            }
+        }
+        Assertions.assertTrue(falsePositives < 100_000 * 0.03, "false positives: " + falsePositives);
+    }
+
+    @Test
+    public void testIndexBloomFilter() {
+        final Index index = new Index(SampleRelations.getRelationXY(), Columns.of(SampleColumns.X), true);
+
+        Assertions.assertTrue(index.getBloomFilter().isPresent());
+        Assertions.assertTrue(index.getBloomFilter().get().mightContain(Hashing.hash(Row.of("x1").getValues())));
+        Assertions.assertFalse(new Index(SampleRelations.getRelationXY(), Columns.of(SampleColumns.X)).getBloomFilter().isPresent());
+    }
+
+    @Test
+    public void testJoin() {
+        final Relation r1 = SampleRelations.getRelationXY();
+        final Relation r2 = SampleRelations.getRelationXZ();
+
+        Assertions.assertEquals(
+                new HashSet<>(JoinOperator.join(r1, r2).getRows()),
+                new HashSet<>(JoinOperator.join(r1, r2, (rel, columns) -> new Index(rel, columns, true)).getRows()));
+        Assertions.assertEquals(
+                new HashSet<>(JoinOperator.join(r1, r2).getRows()),
+                new HashSet<>(JoinOperator.join(r1, r2, (rel, columns) -> new OpenAddressingIndex(rel, columns, true)).getRows()));
+    }
+}
@@ -1,15 +1,43 @@
 package dboperators.joinoperator;
 
 import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Columns;
+import dboperators.JoinKey;
 import dboperators.Row;
+import dboperators.streamjoinoperator.StreamRelation;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public class IndexTest {
+    @Test
+    public void testIntegerAndLongKeys() {
+        // the INTEGER values of the first relation join the same LONG values of the second one
+        final Column k = new Column("K", ColumnType.LONG);
+        final Column a = new Column("A", ColumnType.VARCHAR);
+        final Column b = new Column("B", ColumnType.VARCHAR);
+        final Relation r1 = Relation.of(k, SampleColumns.X, a);
+        r1.getRows().addAll(List.of(Row.of(1, "x1", "a1"), Row.of(2, "x1", "a2"), Row.of(2, "x2", "a3")));
+        final Relation r2 = Relation.of(k, SampleColumns.X, b);
+        r2.getRows().addAll(List.of(Row.of(1L, "x1", "b1"), Row.of(2L, "x2", "b2"), Row.of(3L, "x1", "b3")));
+
+        Assertions.assertEquals(Set.of(Row.of(1, "x1", "a1", "b1"), Row.of(2, "x2", "a3", "b2")),
+                new HashSet<>(JoinOperator.join(r1, r2, Index::new).getRows()));
+        final IIndex index = new Index(r1, Columns.of(k));
+        final List<Row> matches = new ArrayList<>();
+        index.forEachRow(Row.of(2L), matches::add);
+        Assertions.assertEquals(List.of(Row.of(2, "x1", "a2"), Row.of(2, "x2", "a3")), matches);
+    }
+
     @Test
     public void testOneColumnIndexCreation() {
         final ArrayList<Column> indexColumns = new ArrayList<>();
@@ -17,12 +45,12 @@ public class IndexTest {
 
         final Index index = new Index(SampleRelations.getRelationXY(), indexColumns);
 
-        final Map<Row, ArrayList<Row>> values = index.getValues();
+        final Map<JoinKey, ArrayList<Row>> values = index.getValues();
         Assertions.assertEquals(
                 Set.of(
-                        Row.of("x1"),
-                        Row.of("x2"),
-                        Row.of("x3")
+                        JoinKey.of("x1"),
+                        JoinKey.of("x2"),
+                        JoinKey.of("x3")
                 ),
                 values.keySet()
         );
@@ -32,21 +60,53 @@ public class IndexTest {
         assertX3Rows(values);
     }
 
-    private void assertX1Rows(Map<Row, ArrayList<Row>> values) {
+    @Test
+    public void testAppendToBulkLoadedIndex() {
+        final Index index = new Index(SampleRelations.getRelationXY(), Columns.of(SampleColumns.X), true, 1000);
+        final StreamRelation newRows = StreamRelation.of(Stream.of(Row.of("x3", "y4"), Row.of("x4", "y4")), SampleColumns.X, SampleColumns.Y);
+        newRows.setEstimatedRowsCount(Optional.of(2L));
+
+        Assertions.assertEquals(2, index.append(newRows));
+
+        Assertions.assertEquals(7, index.getRelation().getRows().size());
+        Assertions.assertEquals(List.of(Row.of("x3", "y3"), Row.of("x3", "y4")), index.getValues().get(JoinKey.of("x3")));
+        Assertions.assertEquals(List.of(Row.of("x4", "y4")), index.getValues().get(JoinKey.of("x4")));
+        Assertions.assertTrue(index.getBloomFilter().get().mightContain(JoinKey.of("x4").hash()));
+        assertX1Rows(index.getValues());
+    }
+
+    @Test
+    public void testAppendManyRows() {
+        final Index index = new Index(Relation.of(SampleColumns.X, SampleColumns.Y), Columns.of(SampleColumns.X));
+        for (int batch = 0; batch < 3; batch++) {
+            final int from = batch * 10_000;
+            final StreamRelation newRows = StreamRelation.of(IntStream.range(from, from + 10_000).mapToObj(i -> Row.of("x" + i % 5000, "y" + i)),
+                    SampleColumns.X, SampleColumns.Y);
+            newRows.setEstimatedRowsCount(batch == 1 ? Optional.empty() : Optional.of(10_000L));
+            index.append(newRows);
+        }
+
+        Assertions.assertEquals(5000, index.getValues().size());
+        Assertions.assertEquals(6, index.getValues().get(JoinKey.of("x42")).size());
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> index.append(StreamRelation.of(Stream.empty(), SampleColumns.X, SampleColumns.Z)));
+    }
+
+    private void assertX1Rows(Map<JoinKey, ArrayList<Row>> values) {
         final ArrayList<Row> x1Rows = new ArrayList<>();
         x1Rows.add(Row.of("x1","y1"));
         x1Rows.add(Row.of("x1","y2"));
-        Assertions.assertEquals(x1Rows, values.get(Row.of("x1")));
+        Assertions.assertEquals(x1Rows, values.get(JoinKey.of("x1")));
     }
-    private void assertX2Rows(Map<Row, ArrayList<Row>> values) {
+    private void assertX2Rows(Map<JoinKey, ArrayList<Row>> values) {
         final ArrayList<Row> x1Rows = new ArrayList<>();
         x1Rows.add(Row.of("x2","y1"));
         x1Rows.add(Row.of("x2","y2"));
-        Assertions.assertEquals(x1Rows, values.get(Row.of("x2")));
+        Assertions.assertEquals(x1Rows, values.get(JoinKey.of("x2")));
     }
-    private void assertX3Rows(Map<Row, ArrayList<Row>> values) {
+    private void assertX3Rows(Map<JoinKey, ArrayList<Row>> values) {
         final ArrayList<Row> x1Rows = new ArrayList<>();
         x1Rows.add(Row.of("x3","y3"));
-        Assertions.assertEquals(x1Rows, values.get(Row.of("x3")));
+        Assertions.assertEquals(x1Rows, values.get(JoinKey.of("x3")));
     }
 }
@@ -0,0 +1,48 @@
+package dboperators.joinoperator;
+
+import dboperators.Hashing;
+import dboperators.JoinKey;
+import dboperators.Row;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class JoinKeyTest {
+
+    @Test
+    public void testLongKey() {
+        final JoinKey key = JoinKey.of(42L);
+
+        Assertions.assertEquals(JoinKey.of(42L), key);
+        Assertions.assertEquals(JoinKey.of(42L).hashCode(), key.hashCode());
+        Assertions.assertEquals(JoinKey.of(42), key);
+        Assertions.assertNotEquals(JoinKey.of(43L), key);
+        Assertions.assertEquals(Hashing.hash(new Object[]{42L}), key.hash());
+        Assertions.assertEquals(Row.of(42L), key.toRow());
+        Assertions.assertEquals(Row.of(42), JoinKey.of(42).toRow());
+    }
+
+    @Test
+    public void testValuesKey() {
+        final JoinKey key = JoinKey.of("x1", 1L);
+
+        Assertions.assertEquals(JoinKey.of("x1", 1L), key);
+        Assertions.assertEquals(JoinKey.of("x1", 1L).hashCode(), key.hashCode());
+        Assertions.assertNotEquals(JoinKey.of("x1", 2L), key);
+        Assertions.assertNotEquals(JoinKey.of("x1"), JoinKey.of(1L));
+        Assertions.assertEquals(Hashing.hash(new Object[]{"x1", 1L}), key.hash());
+        Assertions.assertEquals(JoinKey.of((Object) null), JoinKey.of((Object) null));
+        Assertions.assertEquals(JoinKey.of("x1", 1L), JoinKey.of("x1", 1));
+        Assertions.assertTrue(JoinKey.of("x1", 1).matches(new Object[]{"x1", 1L}, new int[]{0, 1}));
+    }
+
+    @Test
+    public void testRowKey() {
+        final Object[] rowValues = {"y1", 7L, "x1"};
+
+        Assertions.assertEquals(JoinKey.of(7L), JoinKey.of(rowValues, new int[]{1}));
+        Assertions.assertEquals(JoinKey.of("x1", 7L), JoinKey.of(rowValues, new int[]{2, 1}));
+        Assertions.assertTrue(JoinKey.of(7L).matches(rowValues, new int[]{1}));
+        Assertions.assertTrue(JoinKey.of("x1", 7L).matches(rowValues, new int[]{2, 1}));
+        Assertions.assertFalse(JoinKey.of("x1", 8L).matches(rowValues, new int[]{2, 1}));
+    }
+}
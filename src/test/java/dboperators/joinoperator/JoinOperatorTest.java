@@ -1,5 +1,7 @@
 package dboperators.joinoperator;
 
+import dboperators.ColumnPredicate;
+import dboperators.Columns;
 import dboperators.Row;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -71,4 +73,93 @@ public class JoinOperatorTest {
                 asSet(output.getRows())
         );
     }
+
+    @Test
+    public void testCrossProduct() {
+        final Relation r1 = SampleRelations.getRelationXZ();
+        final Relation r2 = Relation.of(SampleColumns.P);
+        r2.getRows().add(Row.of("p1"));
+        r2.getRows().add(Row.of("p2"));
+
+        final Relation output = JoinOperator.join(r1, r2);
+
+        Assertions.assertEquals(List.of(SampleColumns.X, SampleColumns.Z, SampleColumns.P), output.getColumns());
+        Assertions.assertEquals(
+                asSet(
+                        Row.of("x1", "z1", "p1"),
+                        Row.of("x1", "z1", "p2"),
+                        Row.of("x2", "z2", "p1"),
+                        Row.of("x2", "z2", "p2")
+                ),
+                asSet(output.getRows())
+        );
+    }
+
+    private Relation getRelationXZWithUnmatchedRow() {
+        final Relation r2 = SampleRelations.getRelationXZ();
+        r2.getRows().add(Row.of("x4", "z4"));
+        return r2;
+    }
+
+    @Test
+    public void testPushedDownFiltersAndProjection() {
+        final Relation r1 = SampleRelations.getRelationPXY();
+        final Relation r2 = SampleRelations.getRelationQXY();
+
+        // the predicate of the common column X filters both relations
+        final Relation output = JoinOperator.join(r1, r2,
+                List.of(ColumnPredicate.greaterThan(SampleColumns.X, "x1"), ColumnPredicate.of(SampleColumns.P, ColumnPredicate.Comparison.NOT_EQUAL, "p3")),
+                Columns.of(SampleColumns.Q, SampleColumns.P));
+        Assertions.assertEquals(Columns.of(SampleColumns.Q, SampleColumns.P), output.getColumns());
+        Assertions.assertEquals(List.of(Row.of("q2", "p2"), Row.of("q2", "p2")), output.getRows());
+
+        final Relation crossProduct = JoinOperator.join(SampleRelations.getRelationXZ(), Relation.of(SampleColumns.P),
+                List.of(ColumnPredicate.equalTo(SampleColumns.Z, "z2")), Columns.of(SampleColumns.X));
+        Assertions.assertEquals(Columns.of(SampleColumns.X), crossProduct.getColumns());
+        Assertions.assertEquals(List.of(), crossProduct.getRows());
+
+        Assertions.assertThrows(IllegalStateException.class, () -> JoinOperator.join(r1, r2,
+                List.of(ColumnPredicate.isNull(SampleColumns.Z)), Columns.of(SampleColumns.Q)));
+    }
+
+    @Test
+    public void testOuterJoins() {
+        final Relation r1 = SampleRelations.getRelationXY();
+        final Relation r2 = getRelationXZWithUnmatchedRow();
+        final Set<Row> innerRows = asSet(JoinOperator.join(r1, r2).getRows());
+
+        final Set<Row> leftRows = new HashSet<>(innerRows);
+        leftRows.add(Row.of("x3", "y3", null));
+        Assertions.assertEquals(leftRows, asSet(JoinOperator.join(r1, r2, JoinType.LEFT_OUTER).getRows()));
+
+        final Set<Row> rightRows = new HashSet<>(innerRows);
+        rightRows.add(Row.of("x4", null, "z4"));
+        Assertions.assertEquals(rightRows, asSet(JoinOperator.join(r1, r2, JoinType.RIGHT_OUTER).getRows()));
+
+        final Set<Row> fullRows = new HashSet<>(leftRows);
+        fullRows.addAll(rightRows);
+        final Relation output = JoinOperator.join(r1, r2, JoinType.FULL_OUTER);
+        Assertions.assertEquals(List.of(SampleColumns.X, SampleColumns.Y, SampleColumns.Z), output.getColumns());
+        Assertions.assertEquals(fullRows, asSet(output.getRows()));
+        Assertions.assertEquals(innerRows, asSet(JoinOperator.join(r1, r2, JoinType.INNER).getRows()));
+    }
+
+    @Test
+    public void testSemiAndAntiJoins() {
+        final Relation r1 = SampleRelations.getRelationXY();
+        final Relation r2 = getRelationXZWithUnmatchedRow();
+
+        final Relation semiOutput = JoinOperator.join(r1, r2, JoinType.SEMI);
+        Assertions.assertEquals(r1.getColumns(), semiOutput.getColumns());
+        Assertions.assertEquals(
+                List.of(Row.of("x1", "y1"), Row.of("x1", "y2"), Row.of("x2", "y1"), Row.of("x2", "y2")),
+                semiOutput.getRows());
+        Assertions.assertEquals(List.of(Row.of("x3", "y3")), JoinOperator.join(r1, r2, JoinType.ANTI).getRows());
+
+        // the first relation is the smallest one, so it is indexed
+        Assertions.assertEquals(
+                asSet(Row.of("x1", "z1"), Row.of("x2", "z2")),
+                asSet(JoinOperator.join(r2, r1, JoinType.SEMI).getRows()));
+        Assertions.assertEquals(List.of(Row.of("x4", "z4")), JoinOperator.join(r2, r1, JoinType.ANTI).getRows());
+    }
 }
@@ -0,0 +1,108 @@
+package dboperators.joinoperator;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Columns;
+import dboperators.Row;
+import dboperators.streamjoinoperator.StreamRelation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+public class OpenAddressingIndexTest {
+    private static final Column ID = new Column("ID", ColumnType.LONG);
+
+    private List<Row> matches(IIndex index, Row key) {
+        final ArrayList<Row> rows = new ArrayList<>();
+        index.forEachRow(key, rows::add);
+        return rows;
+    }
+
+    @Test
+    public void testIntegerAndLongKeys() {
+        // the INTEGER values of the first relation join the same LONG values of the second one
+        final Column k = new Column("K", ColumnType.LONG);
+        final Column a = new Column("A", ColumnType.VARCHAR);
+        final Column b = new Column("B", ColumnType.VARCHAR);
+        final Relation r1 = Relation.of(k, SampleColumns.X, a);
+        r1.getRows().addAll(List.of(Row.of(1, "x1", "a1"), Row.of(2, "x1", "a2"), Row.of(2, "x2", "a3")));
+        final Relation r2 = Relation.of(k, SampleColumns.X, b);
+        r2.getRows().addAll(List.of(Row.of(1L, "x1", "b1"), Row.of(2L, "x2", "b2"), Row.of(3L, "x1", "b3")));
+
+        Assertions.assertEquals(Set.of(Row.of(1, "x1", "a1", "b1"), Row.of(2, "x2", "a3", "b2")),
+                new HashSet<>(JoinOperator.join(r1, r2, OpenAddressingIndex::new).getRows()));
+        final IIndex index = new OpenAddressingIndex(r1, Columns.of(k));
+        final List<Row> matches = new ArrayList<>();
+        index.forEachRow(Row.of(2L), matches::add);
+        Assertions.assertEquals(List.of(Row.of(2, "x1", "a2"), Row.of(2, "x2", "a3")), matches);
+    }
+
+    @Test
+    public void testOneColumnIndexCreation() {
+        final OpenAddressingIndex index = new OpenAddressingIndex(SampleRelations.getRelationXY(), Columns.of(SampleColumns.X));
+
+        Assertions.assertEquals(3, index.getKeysCount());
+        Assertions.assertEquals(5, index.getRowsCount());
+        Assertions.assertEquals(List.of(Row.of("x1", "y1"), Row.of("x1", "y2")), matches(index, Row.of("x1")));
+        Assertions.assertEquals(List.of(Row.of("x3", "y3")), matches(index, Row.of("x3")));
+        Assertions.assertFalse(index.contains(Row.of("x4")));
+    }
+
+    @Test
+    public void testGrowingIndex() {
+        final Relation relation = Relation.of(ID, SampleColumns.Y);
+        final OpenAddressingIndex index = new OpenAddressingIndex(relation, Columns.of(ID));
+        for (long i = 0; i < 10_000; i++) {
+            index.addIndexRow(Row.of(i % 1000, "y" + i));
+        }
+
+        // the rows added to the index only are appended to the relation, their row ids being their positions in it
+        Assertions.assertEquals(10_000, relation.getRows().size());
+        Assertions.assertEquals(Row.of(1234 % 1000L, "y1234"), index.getRow(1234));
+
+        Assertions.assertEquals(1000, index.getKeysCount());
+        for (long i = 0; i < 1000; i++) {
+            Assertions.assertEquals(10, matches(index, Row.of(i)).size());
+        }
+        Assertions.assertEquals(Row.of(7L, "y7"), matches(index, Row.of(7L)).get(0));
+        Assertions.assertFalse(index.contains(Row.of(1000L)));
+    }
+
+    @Test
+    public void testAppend() {
+        final OpenAddressingIndex index = new OpenAddressingIndex(SampleRelations.getRelationXY(), Columns.of(SampleColumns.X));
+        final StreamRelation newRows = StreamRelation.of(LongStream.range(0, 10_000).mapToObj(i -> Row.of("x" + i % 100, "y" + i)),
+                SampleColumns.X, SampleColumns.Y);
+        newRows.setEstimatedRowsCount(Optional.of(10_000L));
+
+        Assertions.assertEquals(10_000, index.append(newRows));
+
+        Assertions.assertEquals(100, index.getKeysCount());
+        Assertions.assertEquals(10_005, index.getRowsCount());
+        Assertions.assertEquals(List.of(Row.of("x1", "y1"), Row.of("x1", "y2"), Row.of("x1", "y1")), matches(index, Row.of("x1")).subList(0, 3));
+        Assertions.assertEquals(101, matches(index, Row.of("x3")).size());
+    }
+
+    @Test
+    public void testRowsNotRandomAccess() {
+        final Relation relation = new Relation(Columns.of(SampleColumns.X), new LinkedList<>(List.of(Row.of("x1"))));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new OpenAddressingIndex(relation, Columns.of(SampleColumns.X)));
+    }
+
+    @Test
+    public void testJoin() {
+        final Relation r1 = SampleRelations.getRelationPXY();
+        final Relation r2 = SampleRelations.getRelationQXY();
+
+        Assertions.assertEquals(
+                new HashSet<>(JoinOperator.join(r1, r2).getRows()),
+                new HashSet<>(JoinOperator.join(r1, r2, OpenAddressingIndex::new).getRows()));
+    }
+}
@@ -14,4 +14,18 @@ public class RelationTest {
                 relation2, relation2.getRows().get(0));
         Assertions.assertArrayEquals(new Object[]{"x1", "y1", "z1"}, row.getValues());
     }
+
+    @Test
+    public void testAddMergedRowsOfAnotherPair() {
+        final Relation relation1 = SampleRelations.getRelationXY();
+        final Relation relation2 = SampleRelations.getRelationXZ();
+        final Relation relation3 = SampleRelations.getEmptyRelationXYZ();
+        relation3.addMergedRow(relation1, relation1.getRows().get(0), relation2, relation2.getRows().get(0));
+        relation3.addMergedRow(relation1, relation1.getRows().get(1), relation2, relation2.getRows().get(0));
+
+        // the plan of the previous pair does not apply to the swapped relations
+        final Row row = relation3.addMergedRow(relation2, relation2.getRows().get(0), relation1, relation1.getRows().get(1));
+        Assertions.assertArrayEquals(new Object[]{"x1", "y2", "z1"}, row.getValues());
+        Assertions.assertEquals(3, relation3.getRows().size());
+    }
 }
@@ -0,0 +1,56 @@
+package dboperators.joinoperator;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Columns;
+import dboperators.Row;
+import dboperators.RowCodec;
+import dboperators.SpillFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class RowCodecTest {
+    private static final ArrayList<Column> COLUMNS = Columns.of(
+            new Column("ID", ColumnType.LONG), new Column("COUNT", ColumnType.INTEGER), SampleColumns.X, new Column("AVG", ColumnType.DOUBLE));
+    private static final List<Row> ROWS = List.of(
+            Row.of(1L, 10, "x1", 1.5),
+            Row.of(null, -20, "x\u00e9\u4e2d", -0.25),
+            Row.of(Long.MAX_VALUE, null, null, null),
+            Row.of(3L, 30, "x".repeat(300), Double.NaN)
+    );
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final RowCodec codec = new RowCodec(COLUMNS);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        for (Row row : ROWS) {
+            codec.write(out, row);
+        }
+
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (Row row : ROWS) {
+            Assertions.assertEquals(row, codec.read(in));
+        }
+        Assertions.assertThrows(EOFException.class, () -> codec.read(in));
+    }
+
+    @Test
+    public void testSpillFile() {
+        try (SpillFile spillFile = new SpillFile(COLUMNS, null)) {
+            ROWS.forEach(spillFile::write);
+            Assertions.assertEquals(ROWS.size(), spillFile.getRowsCount());
+            Assertions.assertEquals(ROWS, spillFile.readRows().collect(Collectors.toList()));
+        }
+    }
+}
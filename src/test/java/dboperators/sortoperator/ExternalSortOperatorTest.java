@@ -0,0 +1,89 @@
+package dboperators.sortoperator;
+
+import dboperators.Columns;
+import dboperators.Row;
+import dboperators.RowComparator;
+import dboperators.joinoperator.SampleColumns;
+import dboperators.streamjoinoperator.StreamRelation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class ExternalSortOperatorTest {
+    private static final int ROWS_COUNT = 100_000;
+
+    @TempDir
+    Path spillDirectory;
+
+    private StreamRelation getRelationXY() {
+        return StreamRelation.of(
+                IntStream.range(0, ROWS_COUNT).mapToObj(i -> Row.of("x" + (i * 7919 % 1000), "y" + i)),
+                SampleColumns.X, SampleColumns.Y);
+    }
+
+    @Test
+    public void testSortInMemory() {
+        assertSorted(new ExternalSortOperator(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testSortWithSpilledRuns() {
+        // about a thousand rows per run, so that the runs are merged in two passes
+        assertSorted(new ExternalSortOperator(1L << 17));
+    }
+
+    @Test
+    public void testSortedRowsPulledThroughIterator() throws IOException {
+        final StreamRelation rel = getRelationXY();
+        final StreamRelation sortedRel = new ExternalSortOperator(1L << 17, spillDirectory).sort(rel, Columns.of(SampleColumns.X));
+
+        final ArrayList<Row> expectedRows = getRelationXY().getRows().collect(Collectors.toCollection(ArrayList::new));
+        expectedRows.sort(RowComparator.of(rel, Columns.of(SampleColumns.X)));
+        try (Stream<Row> sortedRows = sortedRel.getRows()) {
+            final Iterator<Row> sortedIterator = sortedRows.iterator();
+            Assertions.assertEquals(expectedRows.get(0), sortedIterator.next());
+            // the merged runs are still being read, not buffered in memory
+            Assertions.assertTrue(spillFilesCount() > 0);
+
+            final ArrayList<Row> pulledRows = new ArrayList<>(List.of(expectedRows.get(0)));
+            sortedIterator.forEachRemaining(pulledRows::add);
+            Assertions.assertEquals(expectedRows, pulledRows);
+        }
+        Assertions.assertEquals(0, spillFilesCount());
+    }
+
+    private long spillFilesCount() throws IOException {
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void testSortedRelationIsNotSortedAgain() {
+        final StreamRelation rel = getRelationXY();
+        rel.setSortColumns(Optional.of(Columns.of(SampleColumns.X, SampleColumns.Y)));
+        Assertions.assertSame(rel, new ExternalSortOperator(0).sort(rel, Columns.of(SampleColumns.X)));
+    }
+
+    private void assertSorted(ExternalSortOperator sortOperator) {
+        final StreamRelation rel = getRelationXY();
+        final StreamRelation sortedRel = sortOperator.sort(rel, Columns.of(SampleColumns.X));
+        final List<Row> sortedRows = sortedRel.getRows().collect(Collectors.toList());
+
+        final ArrayList<Row> expectedRows = getRelationXY().getRows().collect(Collectors.toCollection(ArrayList::new));
+        expectedRows.sort(RowComparator.of(rel, Columns.of(SampleColumns.X)));
+        Assertions.assertEquals(expectedRows, sortedRows);
+        Assertions.assertEquals(Optional.of(Columns.of(SampleColumns.X)), sortedRel.getSortColumns());
+    }
+}
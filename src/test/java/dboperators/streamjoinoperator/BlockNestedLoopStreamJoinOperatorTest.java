@@ -0,0 +1,111 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Row;
+import dboperators.joinoperator.SampleColumns;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+public class BlockNestedLoopStreamJoinOperatorTest {
+    private static final Column A = new Column("A", ColumnType.LONG);
+    private static final Column B = new Column("B", ColumnType.LONG);
+
+    private StreamRelation relation(Column column, long rowsCount) {
+        return StreamRelation.of(LongStream.range(0, rowsCount).mapToObj(i -> Row.of(i)), column);
+    }
+
+    @Test
+    public void testCrossProduct() {
+        final StreamRelation output = new BlockNestedLoopStreamJoinOperator(null, 7, false)
+                .join(relation(A, 20), relation(B, 30));
+
+        Assertions.assertEquals(List.of(A, B), output.getColumns());
+        final List<Row> rows = output.getRows().collect(Collectors.toList());
+        Assertions.assertEquals(20 * 30, rows.size());
+        Assertions.assertEquals(20 * 30, Set.copyOf(rows).size());
+    }
+
+    @Test
+    public void testThetaJoin() {
+        final StreamRelation output = new BlockNestedLoopStreamJoinOperator(
+                (row1, row2) -> (long) row1.getValues()[0] < (long) row2.getValues()[0], 7, true)
+                .join(relation(A, 100), relation(B, 100));
+
+        final List<Row> rows = output.getRows().collect(Collectors.toList());
+        Assertions.assertEquals(100 * 99 / 2, rows.size());
+        Assertions.assertTrue(rows.stream().allMatch(row -> (long) row.getValues()[0] < (long) row.getValues()[1]));
+    }
+
+    @Test
+    public void testCommonColumnsAndPredicate() {
+        final StreamRelation rel1 = StreamRelation.of(Stream.of(Row.of("x1", "y1"), Row.of("x1", "y2"), Row.of("x2", "y1")),
+                SampleColumns.X, SampleColumns.Y);
+        final StreamRelation rel2 = StreamRelation.of(Stream.of(Row.of("x1", "z1"), Row.of("x2", "z2")),
+                SampleColumns.X, SampleColumns.Z);
+
+        final StreamRelation output = new BlockNestedLoopStreamJoinOperator((row1, row2) -> !"y2".equals(row1.getValues()[1]))
+                .join(rel1, rel2);
+
+        Assertions.assertEquals(List.of(SampleColumns.X, SampleColumns.Y, SampleColumns.Z), output.getColumns());
+        Assertions.assertEquals(Set.of(Row.of("x1", "y1", "z1"), Row.of("x2", "y1", "z2")),
+                output.getRows().collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testEmptyInnerRelation() {
+        Assertions.assertEquals(0, new BlockNestedLoopStreamJoinOperator().join(relation(A, 10), relation(B, 0)).getRows().count());
+    }
+
+    @Test
+    public void testParallelOuterBlocks() {
+        // every thread waits for a second one at its first row pair, so that one thread cannot join all the outer blocks
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final CountDownLatch twoThreads = new CountDownLatch(2);
+        final StreamRelation output = new BlockNestedLoopStreamJoinOperator((row1, row2) -> {
+            if (threads.add(Thread.currentThread())) {
+                twoThreads.countDown();
+                try {
+                    twoThreads.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return true;
+        }, 7, true).join(relation(A, 1000), relation(B, 100));
+
+        Assertions.assertEquals(1000 * 100, output.getRows().count());
+        Assertions.assertTrue(threads.size() > 1, "threads: " + threads);
+    }
+
+    @Test
+    public void testFirstRowsPulledThroughIterator() {
+        // the cross product is far too large to be buffered
+        final StreamRelation output = new BlockNestedLoopStreamJoinOperator().join(relation(A, 1_000_000), relation(B, 100_000));
+
+        try (Stream<Row> rows = output.getRows()) {
+            final Iterator<Row> rowsIterator = rows.iterator();
+            Assertions.assertEquals(Row.of(0L, 0L), rowsIterator.next());
+            Assertions.assertEquals(Row.of(0L, 1L), rowsIterator.next());
+        }
+    }
+
+    @Test
+    public void testIntegerAndLongCommonColumn() {
+        final Column k = new Column("K", ColumnType.LONG);
+        final StreamRelation rel1 = StreamRelation.of(Stream.of(Row.of(1, "y1"), Row.of(2, "y2")), k, SampleColumns.Y);
+        final StreamRelation rel2 = StreamRelation.of(Stream.of(Row.of(2L, "z2"), Row.of(3L, "z3")), k, SampleColumns.Z);
+
+        Assertions.assertEquals(List.of(Row.of(2, "y2", "z2")), new BlockNestedLoopStreamJoinOperator().join(rel1, rel2).getRows().collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,50 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Row;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+public class ChunkSizerTest {
+    private static final Column A = new Column("A", ColumnType.LONG);
+
+    private static List<Integer> chunkSizes(ChunkSizer chunkSizer, long rowsCount) {
+        final Iterator<ArrayList<Row>> chunks = chunkSizer.chunks(LongStream.range(0, rowsCount).mapToObj(Row::of).iterator());
+        final List<Integer> sizes = new ArrayList<>();
+        chunks.forEachRemaining(chunk -> sizes.add(chunk.size()));
+        return sizes;
+    }
+
+    @Test
+    public void testGrowingChunks() {
+        final StreamRelation relation = StreamRelation.of(Stream.empty(), A);
+        Assertions.assertEquals(List.of(1 << 10, 1 << 11, 1 << 12, 10_000 - (1 << 13) + (1 << 10)),
+                chunkSizes(new ChunkSizer(Long.MAX_VALUE, relation), 10_000));
+    }
+
+    @Test
+    public void testChunksWithinMemoryBudget() {
+        // the rows of one long value take 56 bytes and their index entries 32 bytes
+        final StreamRelation relation = StreamRelation.of(Stream.empty(), A);
+        final List<Integer> sizes = chunkSizes(new ChunkSizer(3000 * 88, relation), 20_000);
+        Assertions.assertEquals(List.of(1 << 10, 1 << 11, 3000, 3000, 3000, 3000, 3000, 1928), sizes);
+    }
+
+    @Test
+    public void testFirstChunkOfEstimatedRelation() {
+        final StreamRelation relation = StreamRelation.of(Stream.empty(), A);
+        relation.setEstimatedRowsCount(Optional.of(1L << 20));
+        final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        Assertions.assertEquals(Math.max(1 << 10, (1 << 20) / parallelism), new ChunkSizer(Long.MAX_VALUE, relation).nextChunkSize());
+        Assertions.assertEquals(1 << 10, new ChunkSizer(1 << 10, relation).nextChunkSize());
+    }
+}
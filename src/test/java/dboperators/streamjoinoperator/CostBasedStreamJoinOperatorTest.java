@@ -0,0 +1,79 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Columns;
+import dboperators.Row;
+import dboperators.joinoperator.SampleColumns;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CostBasedStreamJoinOperatorTest {
+    private static final long MEMORY_BUDGET = 1L << 30;
+
+    private StreamRelation relation(Long estimatedRowsCount, Row... rows) {
+        final StreamRelation rel = StreamRelation.of(Stream.of(rows), SampleColumns.X, SampleColumns.Y);
+        rel.setEstimatedRowsCount(Optional.ofNullable(estimatedRowsCount));
+        return rel;
+    }
+
+    private StreamRelation relationXZ(Long estimatedRowsCount, Row... rows) {
+        final StreamRelation rel = StreamRelation.of(Stream.of(rows), SampleColumns.X, SampleColumns.Z);
+        rel.setEstimatedRowsCount(Optional.ofNullable(estimatedRowsCount));
+        return rel;
+    }
+
+    private CostBasedStreamJoinOperator.Plan plan(StreamRelation rel1, StreamRelation rel2) {
+        return new CostBasedStreamJoinOperator(MEMORY_BUDGET, 100).plan(rel1, rel2);
+    }
+
+    @Test
+    public void testSortedRelations() {
+        final StreamRelation rel1 = relation(null);
+        final StreamRelation rel2 = relationXZ(null);
+        rel1.setSortColumns(Optional.of(Columns.of(SampleColumns.X)));
+        rel2.setSortColumns(Optional.of(Columns.of(SampleColumns.X, SampleColumns.Z)));
+        Assertions.assertTrue(plan(rel1, rel2).getOperator() instanceof SortMergeStreamJoinOperator);
+    }
+
+    @Test
+    public void testNoEstimates() {
+        Assertions.assertTrue(plan(relation(null), relationXZ(null)).getOperator() instanceof SymmetricHashStreamJoinOperator);
+    }
+
+    @Test
+    public void testSmallestRelationIsIndexed() {
+        final CostBasedStreamJoinOperator.Plan plan = plan(relation(1000L), relationXZ(null));
+        Assertions.assertTrue(plan.getOperator() instanceof SingleHashStreamJoinOperator);
+        Assertions.assertTrue(plan.isSwapped());
+        Assertions.assertFalse(plan(relation(null), relationXZ(1000L)).isSwapped());
+    }
+
+    @Test
+    public void testBothRelationsFitInMemory() {
+        Assertions.assertTrue(plan(relation(1L << 20), relationXZ(1L << 20)).getOperator() instanceof PartitionedHashStreamJoinOperator);
+
+        // too few keys to be partitioned
+        final StreamRelation rel2 = relationXZ(1L << 20);
+        rel2.setEstimatedDistinctCount(SampleColumns.X, Optional.of(1L));
+        Assertions.assertTrue(plan(relation(1L << 20), rel2).getOperator() instanceof SingleHashStreamJoinOperator);
+    }
+
+    @Test
+    public void testRelationsDoNotFitInMemory() {
+        Assertions.assertTrue(plan(relation(1L << 30), relationXZ(1L << 30)).getOperator() instanceof GraceHashStreamJoinOperator);
+    }
+
+    @Test
+    public void testSwappedOutputColumns() {
+        final StreamRelation rel1 = relation(2L, Row.of("x1", "y1"), Row.of("x2", "y2"));
+        final StreamRelation rel2 = relationXZ(3L, Row.of("x1", "z1"), Row.of("x1", "z2"), Row.of("x3", "z3"));
+        final StreamRelation output = new CostBasedStreamJoinOperator(MEMORY_BUDGET, 100).join(rel1, rel2);
+
+        Assertions.assertEquals(Columns.of(SampleColumns.X, SampleColumns.Y, SampleColumns.Z), output.getColumns());
+        Assertions.assertEquals(Set.of(Row.of("x1", "y1", "z1"), Row.of("x1", "y1", "z2")), output.getRows().collect(Collectors.toSet()));
+    }
+}
@@ -0,0 +1,165 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Column;
+import dboperators.ColumnPredicate;
+import dboperators.ColumnType;
+import dboperators.Columns;
+import dboperators.FilterPlan;
+import dboperators.ProjectionPlan;
+import dboperators.RelationMetadata;
+import dboperators.Row;
+import dboperators.joinoperator.JoinType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+public class JoinTypeStreamJoinOperatorTest {
+    private static final Column K = new Column("K", ColumnType.LONG);
+    private static final Column A = new Column("A", ColumnType.LONG);
+    private static final Column B = new Column("B", ColumnType.LONG);
+    private static final int ROWS_COUNT = 20_000;
+
+    private static Stream<Arguments> joinTypeImpl() {
+        final List<Function<JoinType, IStreamJoinOperator>> operators = List.of(
+                SingleHashStreamJoinOperator::new,
+                PartitionedHashStreamJoinOperator::new,
+                joinType -> new PartitionedHashStreamJoinOperator(joinType, true),
+                joinType -> new GraceHashStreamJoinOperator(1L << 30, null, false, joinType),
+                // spills and partitions again
+                joinType -> new GraceHashStreamJoinOperator(1L << 16, null, true, joinType)
+        );
+        return Arrays.stream(JoinType.values())
+                .flatMap(joinType -> operators.stream().map(operator -> Arguments.of(joinType, operator.apply(joinType))));
+    }
+
+    private static List<Row> rows(long rowsCount, long keyOffset) {
+        // every key has 1 to 3 rows
+        return LongStream.range(0, rowsCount)
+                .mapToObj(i -> Row.of(keyOffset + i / (1 + i % 3), i))
+                .collect(Collectors.toList());
+    }
+
+    private static StreamRelation streamRelation(List<Row> rows, Column column, long estimatedRowsCount) {
+        final StreamRelation rel = StreamRelation.of(rows.stream(), K, column);
+        rel.setEstimatedRowsCount(Optional.of(estimatedRowsCount));
+        return rel;
+    }
+
+    /**
+     * Joins the (K, A) rows with the (K, B) rows with nested loops, independently of the indexes and merge plans of the operators.
+     * @return the count of every (K, A, B) output row, padded with nulls, or of every (K, A) row for the semi and anti joins
+     */
+    private static Map<Row, Long> nestedLoopJoin(List<Row> rows1, List<Row> rows2, JoinType joinType) {
+        final long[] keys2 = rows2.stream().mapToLong(row -> (long) row.getValues()[0]).toArray();
+        final boolean[] matched2 = new boolean[keys2.length];
+        final List<Row> outRows = new ArrayList<>();
+        for (Row row1 : rows1) {
+            final long key1 = (long) row1.getValues()[0];
+            boolean matched1 = false;
+            for (int i = 0; i < keys2.length; i++) {
+                if (key1 == keys2[i]) {
+                    matched1 = true;
+                    matched2[i] = true;
+                    if (!joinType.isFiltering()) {
+                        outRows.add(Row.of(key1, row1.getValues()[1], rows2.get(i).getValues()[1]));
+                    }
+                }
+            }
+            if (joinType == JoinType.SEMI && matched1 || joinType == JoinType.ANTI && !matched1) {
+                outRows.add(row1);
+            } else if (joinType.keepsUnmatchedRows1() && !joinType.isFiltering() && !matched1) {
+                outRows.add(Row.of(key1, row1.getValues()[1], null));
+            }
+        }
+        if (joinType.keepsUnmatchedRows2()) {
+            for (int i = 0; i < keys2.length; i++) {
+                if (!matched2[i]) {
+                    outRows.add(Row.of(keys2[i], null, rows2.get(i).getValues()[1]));
+                }
+            }
+        }
+        return outRows.stream().collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("joinTypeImpl")
+    public void testJoinType(JoinType joinType, IStreamJoinOperator joinOperator) {
+        final List<Row> rows1 = rows(ROWS_COUNT, 0);
+        final List<Row> rows2 = rows(ROWS_COUNT / 4, ROWS_COUNT / 2);
+        final ArrayList<Column> expectedColumns = joinType.isFiltering() ? Columns.of(K, A) : Columns.of(K, A, B);
+        final Map<Row, Long> expected = nestedLoopJoin(rows1, rows2, joinType);
+
+        // the estimates choose the build side of the grace hash join
+        for (boolean firstIsSmaller : new boolean[]{false, true}) {
+            final StreamRelation output = joinOperator.join(
+                    streamRelation(rows1, A, firstIsSmaller ? 1 : ROWS_COUNT),
+                    streamRelation(rows2, B, firstIsSmaller ? ROWS_COUNT : 1));
+
+            Assertions.assertEquals(expectedColumns, output.getColumns());
+            Assertions.assertEquals(expected, output.getRows().collect(Collectors.groupingBy(Function.identity(), Collectors.counting())));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("joinTypeImpl")
+    public void testPushedDownFiltersAndProjection(JoinType joinType, IStreamJoinOperator joinOperator) {
+        final List<Row> rows1 = rows(ROWS_COUNT, 0);
+        final List<Row> rows2 = rows(ROWS_COUNT / 4, ROWS_COUNT / 2);
+        // the output of the semi and anti joins has no column of the second relation
+        final List<ColumnPredicate> predicates = new ArrayList<>(List.of(
+                ColumnPredicate.lessThan(K, ROWS_COUNT * 3 / 4),
+                ColumnPredicate.greaterThan(A, 1000)));
+        if (!joinType.isFiltering()) {
+            predicates.add(ColumnPredicate.greaterThan(B, ROWS_COUNT / 8));
+        }
+        final ArrayList<Column> outColumns = joinType.isFiltering() ? Columns.of(A, K) : Columns.of(B, A, K);
+
+        // the predicates filter the output of the join
+        final RelationMetadata joined = new RelationMetadata(joinType.isFiltering() ? Columns.of(K, A) : Columns.of(K, A, B));
+        final FilterPlan filterPlan = FilterPlan.of(joined, predicates);
+        final ProjectionPlan projectionPlan = ProjectionPlan.of(joined, new RelationMetadata(outColumns));
+        final Map<Row, Long> expected = new HashMap<>();
+        nestedLoopJoin(rows1, rows2, joinType).forEach((row, count) -> {
+            if (filterPlan.test(row)) {
+                expected.merge(projectionPlan.project(row), count, Long::sum);
+            }
+        });
+
+        final StreamRelation output = joinOperator.join(
+                streamRelation(rows1, A, ROWS_COUNT), streamRelation(rows2, B, ROWS_COUNT / 4), predicates, outColumns);
+
+        Assertions.assertEquals(outColumns, output.getColumns());
+        Assertions.assertFalse(expected.isEmpty());
+        Assertions.assertEquals(expected, output.getRows().collect(Collectors.groupingBy(Function.identity(), Collectors.counting())));
+    }
+
+    @ParameterizedTest
+    @MethodSource("joinTypeImpl")
+    public void testPushedDownFiltersOfTheSecondRelation(JoinType joinType, IStreamJoinOperator joinOperator) {
+        // the second relation filters the matches of a semi join, but the output of an anti join has none of its columns
+        final List<ColumnPredicate> predicates = List.of(ColumnPredicate.greaterThan(B, 50));
+        final StreamRelation rel1 = StreamRelation.of(Stream.of(Row.of(1L, 10L), Row.of(2L, 20L)), K, A);
+        final StreamRelation rel2 = StreamRelation.of(Stream.of(Row.of(1L, 100L), Row.of(2L, 20L)), K, B);
+        final ArrayList<Column> outColumns = joinType.getColumns(rel1, rel2);
+
+        if (joinType == JoinType.ANTI) {
+            Assertions.assertThrows(IllegalStateException.class, () -> joinOperator.join(rel1, rel2, predicates, outColumns).getRows().count());
+        } else {
+            final Set<Row> expected = joinType.isFiltering() ? Set.of(Row.of(1L, 10L)) : Set.of(Row.of(1L, 10L, 100L));
+            Assertions.assertEquals(expected, joinOperator.join(rel1, rel2, predicates, outColumns).getRows().collect(Collectors.toSet()));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Columns;
+import dboperators.ProjectionPlan;
+import dboperators.Row;
+import dboperators.joinoperator.JoinOperator;
+import dboperators.joinoperator.Relation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+public class MultiWayHashStreamJoinOperatorTest {
+    private static final Column K1 = new Column("K1", ColumnType.LONG);
+    private static final Column K2 = new Column("K2", ColumnType.LONG);
+    private static final Column V = new Column("V", ColumnType.LONG);
+    private static final Column A = new Column("A", ColumnType.VARCHAR);
+    private static final Column B = new Column("B", ColumnType.VARCHAR);
+    private static final Column C = new Column("C", ColumnType.VARCHAR);
+
+    // a fact relation with two dimensions, the first one having a dimension too
+    private final Relation fact = relation(Columns.of(K1, K2, V),
+            LongStream.range(0, 10_000).mapToObj(i -> Row.of(i % 120, i % 70, i)).collect(Collectors.toList()));
+    private final Relation dimension1 = relation(Columns.of(K1, A),
+            LongStream.range(0, 200).mapToObj(i -> Row.of(i % 100, "a" + i % 30)).collect(Collectors.toList()));
+    private final Relation dimension2 = relation(Columns.of(K2, B),
+            LongStream.range(0, 50).mapToObj(i -> Row.of(i, "b" + i)).collect(Collectors.toList()));
+    private final Relation dimension11 = relation(Columns.of(A, C),
+            LongStream.range(0, 20).mapToObj(i -> Row.of("a" + i, "c" + i)).collect(Collectors.toList()));
+
+    private static Relation relation(ArrayList<Column> columns, List<Row> rows) {
+        return new Relation(columns, rows);
+    }
+
+    private static StreamRelation streamRelation(Relation relation, boolean withEstimate) {
+        final StreamRelation streamRelation = new StreamRelation(relation.getColumns(), relation.getRows().stream());
+        if (withEstimate) {
+            streamRelation.setEstimatedRowsCount(Optional.of((long) relation.getRows().size()));
+        }
+        return streamRelation;
+    }
+
+    private static Map<Row, Long> countRows(List<Row> rows) {
+        return rows.stream().collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    }
+
+    private void assertSameAsNestedJoins(List<Relation> relations, boolean withEstimates) {
+        Assertions.assertEquals(
+                relations.stream().map(Relation::getColumns).reduce(new ArrayList<>(), Columns::union),
+                new MultiWayHashStreamJoinOperator().join(relations.stream()
+                        .map(relation -> streamRelation(relation, withEstimates))
+                        .collect(Collectors.toList())).getColumns());
+
+        Relation expected = relations.get(0);
+        for (Relation relation : relations.subList(1, relations.size())) {
+            expected = JoinOperator.join(expected, relation);
+        }
+
+        final StreamRelation output = new MultiWayHashStreamJoinOperator().join(relations.stream()
+                .map(relation -> streamRelation(relation, withEstimates))
+                .collect(Collectors.toList()));
+
+        // the nested joins put first the columns of the biggest relation
+        Assertions.assertEquals(Set.copyOf(expected.getColumns()), Set.copyOf(output.getColumns()));
+        final ProjectionPlan projectionPlan = ProjectionPlan.of(expected, output);
+        Assertions.assertEquals(
+                countRows(expected.getRows().stream().map(projectionPlan::project).collect(Collectors.toList())),
+                countRows(output.getRows().collect(Collectors.toList())));
+    }
+
+    @Test
+    public void testStarJoin() {
+        assertSameAsNestedJoins(List.of(fact, dimension1, dimension2), true);
+        assertSameAsNestedJoins(List.of(fact, dimension1, dimension2), false);
+    }
+
+    @Test
+    public void testSnowflakeJoin() {
+        // the dimension of the dimension cannot be probed before the first dimension
+        assertSameAsNestedJoins(List.of(dimension11, dimension2, fact, dimension1), true);
+        assertSameAsNestedJoins(List.of(dimension1, dimension11, fact, dimension2), false);
+    }
+
+    @Test
+    public void testCrossProduct() {
+        assertSameAsNestedJoins(List.of(dimension2, dimension11), true);
+    }
+
+    @Test
+    public void testEmptyRelation() {
+        final Relation emptyDimension = relation(Columns.of(K2, B), List.of());
+        final StreamRelation output = new MultiWayHashStreamJoinOperator().join(List.of(
+                streamRelation(fact, true), streamRelation(dimension1, true), streamRelation(emptyDimension, true)));
+        Assertions.assertEquals(0, output.getRows().count());
+    }
+}
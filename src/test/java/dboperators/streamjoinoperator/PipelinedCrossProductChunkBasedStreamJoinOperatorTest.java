@@ -0,0 +1,88 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Row;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+public class PipelinedCrossProductChunkBasedStreamJoinOperatorTest {
+    private static final Column K = new Column("K", ColumnType.LONG);
+    private static final Column A = new Column("A", ColumnType.LONG);
+    private static final Column B = new Column("B", ColumnType.LONG);
+
+    @Test
+    public void testStageFailure() {
+        final Stream<Row> failingRows = LongStream.range(0, 5000)
+                .mapToObj(i -> {
+                    if (i == 3000) {
+                        throw new IllegalStateException("Cannot read row " + i);
+                    }
+                    return Row.of(i % 100, i);
+                });
+        final StreamRelation output = new PipelinedCrossProductChunkBasedStreamJoinOperator(1).join(
+                StreamRelation.of(failingRows, K, A),
+                StreamRelation.of(LongStream.range(0, 5000).mapToObj(i -> Row.of(i % 100, i)), K, B));
+
+        try (Stream<Row> rows = output.getRows()) {
+            final IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, rows::count);
+            Assertions.assertEquals("Cannot read row 3000", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testBackPressure() {
+        // the first relation is read at most a few chunks ahead of the consumer
+        final AtomicLong readRowsCount = new AtomicLong();
+        final StreamRelation output = new PipelinedCrossProductChunkBasedStreamJoinOperator(1).join(
+                StreamRelation.of(LongStream.range(0, 1_000_000).mapToObj(i -> Row.of(i, i)).peek(row -> readRowsCount.incrementAndGet()), K, A),
+                StreamRelation.of(LongStream.range(0, 1_000_000).mapToObj(i -> Row.of(i, i)), K, B));
+
+        try (Stream<Row> rows = output.getRows()) {
+            Assertions.assertEquals(10, rows.limit(10).count());
+        }
+        Assertions.assertTrue(readRowsCount.get() < 100_000, "Read rows: " + readRowsCount.get());
+    }
+
+    @Test
+    public void testBackPressureThroughIterator() {
+        final AtomicLong readRowsCount = new AtomicLong();
+        final StreamRelation output = new PipelinedCrossProductChunkBasedStreamJoinOperator(1).join(
+                StreamRelation.of(LongStream.range(0, 1_000_000).mapToObj(i -> Row.of(i, i)).peek(row -> readRowsCount.incrementAndGet()), K, A),
+                StreamRelation.of(LongStream.range(0, 1_000_000).mapToObj(i -> Row.of(i, i)), K, B));
+
+        try (Stream<Row> rows = output.getRows()) {
+            Assertions.assertNotNull(rows.iterator().next());
+        }
+        Assertions.assertTrue(readRowsCount.get() < 100_000, "Read rows: " + readRowsCount.get());
+    }
+
+    @Test
+    public void testAbandonedOutputStopsTheStages() throws InterruptedException {
+        final Optional<Row> firstRow = new PipelinedCrossProductChunkBasedStreamJoinOperator(1).join(
+                StreamRelation.of(LongStream.range(0, 1_000_000).mapToObj(i -> Row.of(i, i)), K, A),
+                StreamRelation.of(LongStream.range(0, 1_000_000).mapToObj(i -> Row.of(i, i)), K, B))
+                .getRows().findFirst();
+        Assertions.assertTrue(firstRow.isPresent());
+
+        // the output stream is not closed, the stages are stopped once it is garbage collected
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (stagesCount() > 0 && System.nanoTime() < deadline) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        Assertions.assertEquals(0, stagesCount());
+    }
+
+    private static long stagesCount() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("pipelined-join-") && thread.isAlive())
+                .count();
+    }
+}
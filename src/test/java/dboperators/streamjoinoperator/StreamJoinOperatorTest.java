@@ -1,25 +1,70 @@
 package dboperators.streamjoinoperator;
 
+import dboperators.Column;
+import dboperators.ColumnPredicate;
+import dboperators.ColumnType;
+import dboperators.Columns;
+import dboperators.Row;
+import dboperators.batch.RowBatch;
+import dboperators.batch.VarcharColumnVector;
 import dboperators.joinoperator.JoinOperator;
+import dboperators.joinoperator.JoinType;
+import dboperators.joinoperator.Index;
+import dboperators.sortoperator.ExternalSortOperator;
 import dboperators.joinoperator.Relation;
+import dboperators.joinoperator.SampleColumns;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import static dboperators.streamjoinoperator.SampleRelations.MAX_RELATION_SIZE;
 
 public class StreamJoinOperatorTest {
+    private static final Column K = new Column("K", ColumnType.LONG);
+    private static final Column A = new Column("A", ColumnType.INTEGER);
+    private static final Column B = new Column("B", ColumnType.INTEGER);
+
     private static Stream<IStreamJoinOperator> streamJoinImpl() {
         return Stream.of(
                 new VavrCrossProductChunkBaseStreamJoinOperator(),
                 new StreamExCrossProductChunkBasedStreamJoinOperator(),
                 new SingleHashStreamJoinOperator(),
                 new CrossProductChunkBasedStreamJoinOperator(),
-                new SymmetricHashStreamJoinOperator()
+                new PipelinedCrossProductChunkBasedStreamJoinOperator(),
+                new PipelinedCrossProductChunkBasedStreamJoinOperator(1),
+                new SymmetricHashStreamJoinOperator(),
+                new SymmetricHashStreamJoinOperator(Index::new),
+                new SymmetricHashStreamJoinOperator(Index::new, 1),
+                new PartitionedHashStreamJoinOperator(),
+                new PartitionedHashStreamJoinOperator(true),
+                new GraceHashStreamJoinOperator(1L << 20),
+                new GraceHashStreamJoinOperator(1L << 20, null, true),
+                new SortMergeStreamJoinOperator(new ExternalSortOperator(1L << 22)),
+                new CostBasedStreamJoinOperator()
         );
     }
 
@@ -57,6 +102,190 @@ public class StreamJoinOperatorTest {
         testXYZ_StreamJoin(joinOperator, 1000L);
     }
 
+    @ParameterizedTest
+    @MethodSource("streamJoinImpl")
+    public void testCrossProduct(IStreamJoinOperator joinOperator) {
+        final StreamRelation r1 = StreamRelation.of(LongStream.range(0, 100).mapToObj(i -> Row.of("x" + i)), SampleColumns.X);
+        final StreamRelation r2 = StreamRelation.of(LongStream.range(0, 30).mapToObj(i -> Row.of("p" + i)), SampleColumns.P);
+
+        final StreamRelation output = joinOperator.join(r1, r2);
+
+        Assertions.assertEquals(List.of(SampleColumns.X, SampleColumns.P), output.getColumns());
+        Assertions.assertEquals(100 * 30, output.getRows().distinct().count());
+    }
+
+    @ParameterizedTest
+    @MethodSource("streamJoinImpl")
+    public void testPushedDownFiltersAndProjection(IStreamJoinOperator joinOperator) {
+        final Relation r1 = dboperators.joinoperator.SampleRelations.getRelationPXY();
+        final Relation r2 = dboperators.joinoperator.SampleRelations.getRelationQXY();
+        final List<ColumnPredicate> predicates = List.of(
+                ColumnPredicate.greaterThan(SampleColumns.X, "x1"),
+                ColumnPredicate.of(SampleColumns.P, ColumnPredicate.Comparison.NOT_EQUAL, "p3"));
+        final Relation expected = JoinOperator.join(r1, r2, predicates, Columns.of(SampleColumns.Q, SampleColumns.P));
+
+        final StreamRelation output = joinOperator.join(
+                new StreamRelation(r1.getColumns(), r1.getRows().stream()),
+                new StreamRelation(r2.getColumns(), r2.getRows().stream()),
+                predicates, Columns.of(SampleColumns.Q, SampleColumns.P));
+
+        Assertions.assertEquals(Columns.of(SampleColumns.Q, SampleColumns.P), output.getColumns());
+        final Map<Row, Long> outputRows = output.getRows().collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        Assertions.assertEquals(Map.of(Row.of("q2", "p2"), 2L), outputRows);
+        Assertions.assertEquals(expected.getRows().stream().collect(Collectors.groupingBy(Function.identity(), Collectors.counting())), outputRows);
+    }
+
+    // relations of many chunks, the six rows of every key of the second one matching seven or eight rows of the first one
+    private static StreamRelation getRelationKA() {
+        return StreamRelation.of(IntStream.range(0, 5000).mapToObj(i -> Row.of((long) (i % 700), i)), K, A);
+    }
+
+    private static StreamRelation getRelationKB() {
+        return StreamRelation.of(IntStream.range(0, 3000).mapToObj(i -> Row.of((long) (i % 500), i)), K, B);
+    }
+
+    @ParameterizedTest
+    @MethodSource("streamJoinImpl")
+    public void testParallelOutput(IStreamJoinOperator joinOperator) {
+        final Map<Row, Long> expected = JoinOperator.join(
+                new Relation(getRelationKA().getColumns(), getRelationKA().getRows().collect(Collectors.toList())),
+                new Relation(getRelationKB().getColumns(), getRelationKB().getRows().collect(Collectors.toList())))
+                .getRows().stream().collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+
+        final Map<Row, Long> outputRows = joinOperator.join(getRelationKA(), getRelationKB()).getRows().parallel()
+                .collect(Collectors.groupingByConcurrent(Function.identity(), Collectors.counting()));
+
+        Assertions.assertEquals(expected, outputRows);
+    }
+
+    @Test
+    public void testPartitionsJoinedInParallel() {
+        // every thread waits for a second one with its first row, so that one thread cannot join all the partitions
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final CountDownLatch twoThreads = new CountDownLatch(2);
+        final long rowsCount = new PartitionedHashStreamJoinOperator(8).join(getRelationKA(), getRelationKB()).getRows().parallel()
+                .peek(row -> {
+                    if (threads.add(Thread.currentThread())) {
+                        twoThreads.countDown();
+                        try {
+                            twoThreads.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                })
+                .count();
+
+        Assertions.assertEquals(6 * (100 * 8 + 400 * 7), rowsCount);
+        Assertions.assertTrue(threads.size() > 1, "threads: " + threads);
+    }
+
+    @Test
+    public void testSplittableOutput() {
+        for (IStreamJoinOperator joinOperator : List.of(
+                new CrossProductChunkBasedStreamJoinOperator(),
+                new VavrCrossProductChunkBaseStreamJoinOperator(),
+                new SymmetricHashStreamJoinOperator())) {
+            final Spliterator<Row> spliterator = joinOperator.join(getRelationKA(), getRelationKB()).getRows().spliterator();
+            final Spliterator<Row> prefix = spliterator.trySplit();
+            Assertions.assertNotNull(prefix);
+
+            final long[] rowsCount = new long[1];
+            spliterator.forEachRemaining(row -> rowsCount[0]++);
+            prefix.forEachRemaining(row -> rowsCount[0]++);
+            Assertions.assertEquals(6 * (100 * 8 + 400 * 7), rowsCount[0]);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("streamJoinImpl")
+    public void testBatchOutput(IStreamJoinOperator joinOperator) {
+        final Map<Row, Long> expected = joinOperator.join(getRelationKA(), getRelationKB()).getRows()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+
+        final int batchSize = 1000;
+        final Set<RowBatch> batches = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Map<Row, Long> outputRows = new HashMap<>();
+        final long rowsCount = joinOperator.joinBatches(getRelationKA(), getRelationKB(), batchSize, batch -> {
+            Assertions.assertEquals(List.of(K, A, B), batch.getColumns());
+            Assertions.assertTrue(batch.size() > 0 && batch.size() <= batchSize);
+            batches.add(batch);
+            batch.toRows().forEach(row -> outputRows.merge(row, 1L, Long::sum));
+        });
+
+        Assertions.assertEquals(expected, outputRows);
+        Assertions.assertEquals(6 * (100 * 8 + 400 * 7), rowsCount);
+        // the same batch is refilled
+        Assertions.assertEquals(1, batches.size());
+    }
+
+    @Test
+    public void testSymmetricHashFirstRows() {
+        // endless inputs, so the first output rows must come out of the first batches
+        final AtomicLong readRowsCount = new AtomicLong();
+        final StreamRelation rel1 = StreamRelation.of(LongStream.iterate(0, i -> i + 1).peek(i -> readRowsCount.incrementAndGet()).mapToObj(i -> Row.of(i, (int) i)), K, A);
+        final StreamRelation rel2 = StreamRelation.of(LongStream.iterate(0, i -> i + 1).peek(i -> readRowsCount.incrementAndGet()).mapToObj(i -> Row.of(i, (int) i)), K, B);
+
+        final List<Row> firstRows = new SymmetricHashStreamJoinOperator().join(rel1, rel2).getRows().limit(3).collect(Collectors.toList());
+
+        Assertions.assertEquals(List.of(Row.of(0L, 0, 0), Row.of(1L, 1, 1), Row.of(2L, 2, 2)), firstRows);
+        Assertions.assertTrue(readRowsCount.get() <= 2 * 4, "read rows: " + readRowsCount.get());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SymmetricHashStreamJoinOperator(Index::new, 0));
+    }
+
+    @Test
+    public void testGraceHashDeletesReadPartitions(@TempDir Path spillDirectory) throws IOException {
+        // both relations are spilled into partitions small enough to be joined in memory
+        final int rowsCount = 100_000;
+        final StreamRelation rel1 = StreamRelation.of(LongStream.range(0, rowsCount).mapToObj(i -> Row.of(i, (int) i)), K, A);
+        final StreamRelation rel2 = StreamRelation.of(LongStream.range(0, rowsCount).mapToObj(i -> Row.of(i, (int) i)), K, B);
+
+        try (Stream<Row> rows = new GraceHashStreamJoinOperator(1L << 20, spillDirectory).join(rel1, rel2).getRows()) {
+            final Iterator<Row> rowsIterator = rows.iterator();
+            for (int i = 0; i < rowsCount / 2; i++) {
+                rowsIterator.next();
+            }
+            // the files of the partitions read so far are deleted, not the ones of the partitions still to be read
+            final long spillFilesCount = filesCount(spillDirectory);
+            Assertions.assertTrue(spillFilesCount > 0 && spillFilesCount < 2 * 32, "spill files: " + spillFilesCount);
+        }
+        Assertions.assertEquals(0, filesCount(spillDirectory));
+    }
+
+    private static long filesCount(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("streamJoinImpl")
+    public void testBatchOutputOfVarcharColumns(IStreamJoinOperator joinOperator) {
+        final Column s = new Column("S", ColumnType.VARCHAR);
+        final int batchSize = 100;
+        final long rowsCount = joinOperator.joinBatches(
+                getRelationKA(),
+                StreamRelation.of(IntStream.range(0, 3000).mapToObj(i -> Row.of((long) (i % 500), "s" + i)), K, s),
+                batchSize,
+                batch -> {
+                    // the dictionary of the reused batch holds only the strings of its rows
+                    Assertions.assertTrue(((VarcharColumnVector) batch.getVector(2)).getDictionary().size() <= batch.size());
+                });
+        Assertions.assertEquals(6 * (100 * 8 + 400 * 7), rowsCount);
+    }
+
+    @Test
+    public void testBatchOutputOfOuterJoin() {
+        final IStreamJoinOperator joinOperator = new SingleHashStreamJoinOperator(JoinType.FULL_OUTER);
+        final Set<Row> expected = joinOperator.join(getRelationKA(), getRelationKB()).getRows().collect(Collectors.toSet());
+
+        final Set<Row> outputRows = new HashSet<>();
+        joinOperator.joinBatches(getRelationKA(), getRelationKB(), 7, batch -> outputRows.addAll(batch.toRows()));
+
+        Assertions.assertEquals(expected, outputRows);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> joinOperator.joinBatches(getRelationKA(), getRelationKB(), 0, batch -> {}));
+    }
+
     @Test
     public void testXYZ_NonStreamJoin() {
         final StreamRelation r1 = SampleRelations.getRelationXY();
@@ -0,0 +1,110 @@
+package dboperators.streamjoinoperator;
+
+import dboperators.Column;
+import dboperators.ColumnType;
+import dboperators.Row;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+public class WindowedSymmetricHashStreamJoinOperatorTest {
+    private static final Column K = new Column("K", ColumnType.LONG);
+    private static final Column T1 = new Column("T1", ColumnType.LONG);
+    private static final Column T2 = new Column("T2", ColumnType.LONG);
+    private static final Column TS = new Column("TS", ColumnType.LONG);
+    private static final Column A = new Column("A", ColumnType.LONG);
+    private static final Column B = new Column("B", ColumnType.LONG);
+
+    @Test
+    public void testRowsWindow() {
+        final int window = 50;
+        final StreamRelation output = new WindowedSymmetricHashStreamJoinOperator(JoinWindow.ofRows(window)).join(
+                StreamRelation.of(LongStream.range(0, 2000).mapToObj(i -> Row.of(i % 10, i)), K, A),
+                StreamRelation.of(LongStream.range(0, 2000).mapToObj(j -> Row.of(j % 10, j)), K, B));
+
+        // the row i of the first stream is read before the row i of the second one
+        final Set<Row> expected = new HashSet<>();
+        for (long i = 0; i < 2000; i++) {
+            for (long j = Math.max(0, i - window); j < Math.min(2000, i + window); j++) {
+                if (i % 10 == j % 10) {
+                    expected.add(Row.of(i % 10, i, j));
+                }
+            }
+        }
+        final List<Row> rows = output.getRows().collect(Collectors.toList());
+        Assertions.assertEquals(expected.size(), rows.size());
+        Assertions.assertEquals(expected, Set.copyOf(rows));
+    }
+
+    @Test
+    public void testTimeWindow() {
+        // the second stream is faster, its timestamps grow by 2 against 3 for the first one
+        final StreamRelation output = new WindowedSymmetricHashStreamJoinOperator(JoinWindow.ofTime(T1, T2, 20)).join(
+                StreamRelation.of(LongStream.range(0, 3000).mapToObj(i -> Row.of(i % 7, i * 3, i)), K, T1, A),
+                StreamRelation.of(LongStream.range(0, 3000).mapToObj(j -> Row.of(j % 7, j * 2, j)), K, T2, B));
+
+        final Set<Row> expected = new HashSet<>();
+        for (long i = 0; i < 3000; i++) {
+            for (long j = 0; j < 3000; j++) {
+                if (i % 7 == j % 7 && Math.abs(i * 3 - j * 2) <= 20) {
+                    expected.add(Row.of(i % 7, i * 3, i, j * 2, j));
+                }
+            }
+        }
+        final List<Row> rows = output.getRows().collect(Collectors.toList());
+        Assertions.assertEquals(List.of(K, T1, A, T2, B), output.getColumns());
+        Assertions.assertEquals(expected.size(), rows.size());
+        Assertions.assertEquals(expected, Set.copyOf(rows));
+    }
+
+    @Test
+    public void testWatermarkWithLateRows() {
+        // the common timestamp column is not part of the join key
+        final StreamRelation output = new WindowedSymmetricHashStreamJoinOperator(JoinWindow.ofTime(TS, TS, 5, 10)).join(
+                StreamRelation.of(Stream.of(Row.of(1L, 100L, 1L), Row.of(1L, 92L, 2L), Row.of(1L, 80L, 3L), Row.of(1L, 130L, 4L)), K, TS, A),
+                StreamRelation.of(Stream.of(Row.of(1L, 96L, 1L), Row.of(1L, 101L, 2L), Row.of(1L, 128L, 3L), Row.of(1L, 95L, 4L)), K, TS, B));
+
+        // the rows 80 and 95 are late: 80 is more than 10 behind 100, and 95 more than 10 behind 128
+        Assertions.assertEquals(
+                Set.of(Row.of(1L, 100L, 1L, 1L), Row.of(1L, 100L, 1L, 2L), Row.of(1L, 92L, 2L, 1L), Row.of(1L, 130L, 4L, 3L)),
+                output.getRows().collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testUnboundedStreams() {
+        final StreamRelation output = new WindowedSymmetricHashStreamJoinOperator(JoinWindow.ofRows(100)).join(
+                StreamRelation.of(Stream.iterate(0L, i -> i + 1).map(i -> Row.of(i % 1000, i)), K, A),
+                StreamRelation.of(Stream.iterate(0L, j -> j + 1).map(j -> Row.of(j % 1000, j)), K, B));
+
+        Assertions.assertEquals(
+                LongStream.range(0, 10_000).mapToObj(i -> Row.of(i % 1000, i, i)).collect(Collectors.toList()),
+                output.getRows().limit(10_000).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testUnboundedStreamsPulledThroughIterator() {
+        final StreamRelation output = new WindowedSymmetricHashStreamJoinOperator(JoinWindow.ofRows(100)).join(
+                StreamRelation.of(Stream.iterate(0L, i -> i + 1).map(i -> Row.of(i % 1000, i)), K, A),
+                StreamRelation.of(Stream.iterate(0L, j -> j + 1).map(j -> Row.of(j % 1000, j)), K, B));
+
+        final Iterator<Row> rowsIterator = output.getRows().iterator();
+        for (long i = 0; i < 5; i++) {
+            Assertions.assertEquals(Row.of(i, i, i), rowsIterator.next());
+        }
+    }
+
+    @Test
+    public void testInvalidWindows() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> JoinWindow.ofRows(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> JoinWindow.ofTime(TS, new Column("D", ColumnType.DOUBLE), 5));
+        Assertions.assertThrows(IllegalStateException.class, () -> new WindowedSymmetricHashStreamJoinOperator(JoinWindow.ofTime(T1, T2, 5))
+                .join(StreamRelation.of(Stream.empty(), K, T1), StreamRelation.of(Stream.empty(), K, TS)));
+    }
+}